@@ -1,10 +1,15 @@
 package com.y5neko.qrts.config;
 
+import com.y5neko.qrts.service.AppSettings;
 import com.y5neko.qrts.service.DataManager;
 import javafx.scene.image.Image;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
 
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
 public class GlobalVariable {
     public static Image icon = new Image("img/icon.png");
 
@@ -16,58 +21,46 @@ public class GlobalVariable {
     public static double TOOL_DESC_FONT_SIZE = 10;
     public static double BUTTON_FONT_SIZE = 12; // 独立的按钮字体大小
 
+    private static final List<AppSettings.Setting<?>> FONT_SETTINGS = Arrays.asList(
+            AppSettings.SELECTED_FONT, AppSettings.TITLE_FONT_SIZE, AppSettings.CATEGORY_FONT_SIZE,
+            AppSettings.CATEGORY_DESC_FONT_SIZE, AppSettings.TOOL_DESC_FONT_SIZE, AppSettings.BUTTON_FONT_SIZE);
+
     /**
-     * 初始化字体设置（从配置文件加载）
+     * 初始化字体设置（从配置文件加载），之后设置变化时自动同步
      */
     public static void initializeFontSettings() {
+        AppSettings settings = DataManager.getInstance().getSettings();
         try {
-            DataManager dataManager = DataManager.getInstance();
-
-            String savedFont = dataManager.getAppConfig("selectedFont");
-            if (savedFont != null) {
-                SELECTED_FONT = savedFont;
-            }
-
-            String savedTitleSize = dataManager.getAppConfig("titleFontSize");
-            if (savedTitleSize != null) {
-                TITLE_FONT_SIZE = Double.parseDouble(savedTitleSize);
-            }
-
-            String savedCategorySize = dataManager.getAppConfig("categoryFontSize");
-            if (savedCategorySize != null) {
-                CATEGORY_FONT_SIZE = Double.parseDouble(savedCategorySize);
-            }
-
-            String savedCategoryDescSize = dataManager.getAppConfig("categoryDescFontSize");
-            if (savedCategoryDescSize != null) {
-                CATEGORY_DESC_FONT_SIZE = Double.parseDouble(savedCategoryDescSize);
-            }
-
-            String savedToolDescSize = dataManager.getAppConfig("toolDescFontSize");
-            if (savedToolDescSize != null) {
-                TOOL_DESC_FONT_SIZE = Double.parseDouble(savedToolDescSize);
-            }
-
-            String savedButtonSize = dataManager.getAppConfig("buttonFontSize");
-            if (savedButtonSize != null) {
-                BUTTON_FONT_SIZE = Double.parseDouble(savedButtonSize);
-            }
+            applyFontSettings(settings);
         } catch (Exception e) {
             System.err.println("加载字体设置失败，使用默认值: " + e.getMessage());
         }
+        settings.addListener(changedKeys -> {
+            if (isFontSettingChanged(changedKeys)) {
+                applyFontSettings(settings);
+            }
+        });
     }
 
     /**
-     * 更新全局字体设置
+     * 变化的键中是否包含字体设置
      */
-    public static void updateFontSettings(String font, double titleSize, double categorySize,
-                                        double categoryDescSize, double toolDescSize, double buttonSize) {
-        SELECTED_FONT = font;
-        TITLE_FONT_SIZE = titleSize;
-        CATEGORY_FONT_SIZE = categorySize;
-        CATEGORY_DESC_FONT_SIZE = categoryDescSize;
-        TOOL_DESC_FONT_SIZE = toolDescSize;
-        BUTTON_FONT_SIZE = buttonSize;
+    public static boolean isFontSettingChanged(Set<String> changedKeys) {
+        for (AppSettings.Setting<?> setting : FONT_SETTINGS) {
+            if (changedKeys.contains(setting.getKey())) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static void applyFontSettings(AppSettings settings) {
+        SELECTED_FONT = settings.get(AppSettings.SELECTED_FONT);
+        TITLE_FONT_SIZE = settings.get(AppSettings.TITLE_FONT_SIZE);
+        CATEGORY_FONT_SIZE = settings.get(AppSettings.CATEGORY_FONT_SIZE);
+        CATEGORY_DESC_FONT_SIZE = settings.get(AppSettings.CATEGORY_DESC_FONT_SIZE);
+        TOOL_DESC_FONT_SIZE = settings.get(AppSettings.TOOL_DESC_FONT_SIZE);
+        BUTTON_FONT_SIZE = settings.get(AppSettings.BUTTON_FONT_SIZE);
     }
 
     /**
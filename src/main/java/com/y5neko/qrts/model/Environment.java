@@ -2,13 +2,16 @@ package com.y5neko.qrts.model;
 
 import java.util.List;
 
-public class Environment {
+public class Environment implements Versioned {
     private String id;
     private String name;
     private String type; // java, python, go, gem等
     private String executablePath; // 可执行文件路径
     private String parameters; // 启动参数
     private String description;
+    private int warmProcesses; // 预先启动并保持等待的解释器进程数，0表示不使用
+    private boolean inProcess; // java 环境：jar 工具在本程序的JVM中运行
+    private long version; // 版本号，每次保存修改时加一
 
     public Environment() {}
 
@@ -21,6 +24,14 @@ public class Environment {
         this.description = description;
     }
 
+    // 复制构造，编辑已发布的环境时先复制一份
+    public Environment(Environment other) {
+        this(other.id, other.name, other.type, other.executablePath, other.parameters, other.description);
+        this.warmProcesses = other.warmProcesses;
+        this.inProcess = other.inProcess;
+        this.version = other.version;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -40,6 +51,15 @@ public class Environment {
     public String getDescription() { return description; }
     public void setDescription(String description) { this.description = description; }
 
+    public int getWarmProcesses() { return warmProcesses; }
+    public void setWarmProcesses(int warmProcesses) { this.warmProcesses = warmProcesses; }
+
+    public boolean isInProcess() { return inProcess; }
+    public void setInProcess(boolean inProcess) { this.inProcess = inProcess; }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
     @Override
     public String toString() {
         return name + " (" + type + ")";
@@ -0,0 +1,60 @@
+package com.y5neko.qrts.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动组：一键启动的一组工具，成员之间可以有启动顺序依赖
+ */
+public class LaunchGroup implements Versioned {
+    public static final int DEFAULT_MAX_PARALLEL = 4;
+
+    private String id;
+    private String name;
+    private String description;
+    private int maxParallel = DEFAULT_MAX_PARALLEL; // 同时处于启动中（尚未就绪）的成员数上限
+    private List<LaunchGroupMember> members = new ArrayList<>();
+    private long version; // 版本号，每次保存修改时加一
+
+    public LaunchGroup() {}
+
+    public LaunchGroup(String id, String name, String description) {
+        this.id = id;
+        this.name = name;
+        this.description = description;
+    }
+
+    // 复制构造，编辑已发布的启动组时先复制一份，成员也一并复制
+    public LaunchGroup(LaunchGroup other) {
+        this(other.id, other.name, other.description);
+        this.maxParallel = other.maxParallel;
+        for (LaunchGroupMember member : other.members) {
+            this.members.add(new LaunchGroupMember(member));
+        }
+        this.version = other.version;
+    }
+
+    // Getters and Setters
+    public String getId() { return id; }
+    public void setId(String id) { this.id = id; }
+
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+
+    public String getDescription() { return description; }
+    public void setDescription(String description) { this.description = description; }
+
+    public int getMaxParallel() { return maxParallel; }
+    public void setMaxParallel(int maxParallel) { this.maxParallel = maxParallel; }
+
+    public List<LaunchGroupMember> getMembers() { return members; }
+    public void setMembers(List<LaunchGroupMember> members) { this.members = members != null ? members : new ArrayList<>(); }
+
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
@@ -0,0 +1,42 @@
+package com.y5neko.qrts.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 启动组中的一个工具，以及它在组内的启动条件
+ */
+public class LaunchGroupMember {
+    public static final int DEFAULT_READY_TIMEOUT_SECONDS = 30;
+
+    private String toolId;
+    private List<String> dependsOn = new ArrayList<>(); // 需要先就绪的成员的工具ID
+    private String readyPattern; // 输出中出现匹配此正则的行时视为就绪，为空时进程启动后仍在运行即视为就绪
+    private int readyTimeoutSeconds = DEFAULT_READY_TIMEOUT_SECONDS;
+
+    public LaunchGroupMember() {}
+
+    public LaunchGroupMember(String toolId) {
+        this.toolId = toolId;
+    }
+
+    public LaunchGroupMember(LaunchGroupMember other) {
+        this.toolId = other.toolId;
+        this.dependsOn = new ArrayList<>(other.dependsOn);
+        this.readyPattern = other.readyPattern;
+        this.readyTimeoutSeconds = other.readyTimeoutSeconds;
+    }
+
+    // Getters and Setters
+    public String getToolId() { return toolId; }
+    public void setToolId(String toolId) { this.toolId = toolId; }
+
+    public List<String> getDependsOn() { return dependsOn; }
+    public void setDependsOn(List<String> dependsOn) { this.dependsOn = dependsOn != null ? dependsOn : new ArrayList<>(); }
+
+    public String getReadyPattern() { return readyPattern; }
+    public void setReadyPattern(String readyPattern) { this.readyPattern = readyPattern; }
+
+    public int getReadyTimeoutSeconds() { return readyTimeoutSeconds; }
+    public void setReadyTimeoutSeconds(int readyTimeoutSeconds) { this.readyTimeoutSeconds = readyTimeoutSeconds; }
+}
@@ -1,19 +1,15 @@
 package com.y5neko.qrts.model;
 
-import java.util.ArrayList;
-import java.util.List;
-
-public class ToolCategory {
+public class ToolCategory implements Versioned {
     private String id;
     private String name;
     private String description;
     private String iconPath;
     private int sortOrder;
-    private List<ToolItem> tools;
+    private long version; // 版本号，每次保存修改时加一
 
     public ToolCategory() {
         this.sortOrder = 0;
-        this.tools = new ArrayList<>();
     }
 
     public ToolCategory(String id, String name, String description, String iconPath) {
@@ -22,7 +18,13 @@ public class ToolCategory {
         this.description = description;
         this.iconPath = iconPath;
         this.sortOrder = 0;
-        this.tools = new ArrayList<>();
+    }
+
+    // 复制构造，编辑已发布的分类时先复制一份
+    public ToolCategory(ToolCategory other) {
+        this(other.id, other.name, other.description, other.iconPath);
+        this.sortOrder = other.sortOrder;
+        this.version = other.version;
     }
 
     // Getters and Setters
@@ -41,16 +43,8 @@ public class ToolCategory {
     public int getSortOrder() { return sortOrder; }
     public void setSortOrder(int sortOrder) { this.sortOrder = sortOrder; }
 
-    public List<ToolItem> getTools() { return tools; }
-    public void setTools(List<ToolItem> tools) { this.tools = tools; }
-
-    public void addTool(ToolItem tool) {
-        this.tools.add(tool);
-    }
-
-    public void removeTool(ToolItem tool) {
-        this.tools.remove(tool);
-    }
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
 
     @Override
     public String toString() {
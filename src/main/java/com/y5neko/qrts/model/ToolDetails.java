@@ -0,0 +1,26 @@
+package com.y5neko.qrts.model;
+
+/**
+ * 工具的详细字段，只在启动或编辑时需要，可以不常驻内存
+ */
+public class ToolDetails {
+    private final String description; // 完整描述，为null表示列表中的描述已经完整
+    private final String command;
+    private final String arguments;
+    private final String workingDirectory;
+
+    public ToolDetails(String description, String command, String arguments, String workingDirectory) {
+        this.description = description;
+        this.command = command;
+        this.arguments = arguments;
+        this.workingDirectory = workingDirectory;
+    }
+
+    public String getDescription() { return description; }
+
+    public String getCommand() { return command; }
+
+    public String getArguments() { return arguments; }
+
+    public String getWorkingDirectory() { return workingDirectory; }
+}
@@ -1,6 +1,8 @@
 package com.y5neko.qrts.model;
 
-public class ToolItem {
+import com.fasterxml.jackson.annotation.JsonIgnore;
+
+public class ToolItem implements Versioned {
     private String id;
     private String name;
     private String description;
@@ -11,6 +13,11 @@ public class ToolItem {
     private String workingDirectory; // 工作目录
     private String iconPath; // 图标路径
     private boolean hasGUI; // 是否为GUI工具，默认为false（命令行工具）
+    private long version; // 版本号，每次保存修改时加一
+
+    // 详细字段按需加载：不为null时 command/arguments/workingDirectory 不在对象中，description 只是列表显示用的摘要
+    private DetailLoader detailLoader;
+    private long detailKey;
 
     public ToolItem() {}
 
@@ -27,6 +34,27 @@ public class ToolItem {
         this.hasGUI = hasGUI;
     }
 
+    // 复制构造，编辑已发布的工具时先复制一份
+    public ToolItem(ToolItem other) {
+        this(other.id, other.name, other.description, other.categoryId, other.environmentId, other.command,
+                other.arguments, other.workingDirectory, other.iconPath, other.hasGUI);
+        this.version = other.version;
+        this.detailLoader = other.detailLoader;
+        this.detailKey = other.detailKey;
+    }
+
+    /**
+     * 只含列表字段的工具，详细字段在首次访问时通过 loader 读取
+     * @param summary 列表显示用的描述摘要
+     */
+    public static ToolItem deferred(String id, String name, String summary, String categoryId, String environmentId,
+                                    String iconPath, boolean hasGUI, DetailLoader loader, long detailKey) {
+        ToolItem tool = new ToolItem(id, name, summary, categoryId, environmentId, null, null, null, iconPath, hasGUI);
+        tool.detailLoader = loader;
+        tool.detailKey = detailKey;
+        return tool;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -34,8 +62,20 @@ public class ToolItem {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public String getDescription() { return description; }
-    public void setDescription(String description) { this.description = description; }
+    public String getDescription() {
+        if (detailLoader != null) {
+            String full = loadDetails().getDescription();
+            return full != null ? full : description;
+        }
+        return description;
+    }
+    public void setDescription(String description) { materializeDetails(); this.description = description; }
+
+    /**
+     * 列表显示用的描述，不触发详细字段的加载；过长的描述可能被截断，搜索等需要完整内容时使用 getDescription()
+     */
+    @JsonIgnore
+    public String getShortDescription() { return description; }
 
     public String getCategoryId() { return categoryId; }
     public void setCategoryId(String categoryId) { this.categoryId = categoryId; }
@@ -43,14 +83,14 @@ public class ToolItem {
     public String getEnvironmentId() { return environmentId; }
     public void setEnvironmentId(String environmentId) { this.environmentId = environmentId; }
 
-    public String getCommand() { return command; }
-    public void setCommand(String command) { this.command = command; }
+    public String getCommand() { return detailLoader != null ? loadDetails().getCommand() : command; }
+    public void setCommand(String command) { materializeDetails(); this.command = command; }
 
-    public String getArguments() { return arguments; }
-    public void setArguments(String arguments) { this.arguments = arguments; }
+    public String getArguments() { return detailLoader != null ? loadDetails().getArguments() : arguments; }
+    public void setArguments(String arguments) { materializeDetails(); this.arguments = arguments; }
 
-    public String getWorkingDirectory() { return workingDirectory; }
-    public void setWorkingDirectory(String workingDirectory) { this.workingDirectory = workingDirectory; }
+    public String getWorkingDirectory() { return detailLoader != null ? loadDetails().getWorkingDirectory() : workingDirectory; }
+    public void setWorkingDirectory(String workingDirectory) { materializeDetails(); this.workingDirectory = workingDirectory; }
 
     public String getIconPath() { return iconPath; }
     public void setIconPath(String iconPath) { this.iconPath = iconPath; }
@@ -58,8 +98,43 @@ public class ToolItem {
     public boolean isHasGUI() { return hasGUI; }
     public void setHasGUI(boolean hasGUI) { this.hasGUI = hasGUI; }
 
+    public long getVersion() { return version; }
+    public void setVersion(long version) { this.version = version; }
+
+    /**
+     * 详细字段是否尚未读入对象
+     */
+    @JsonIgnore
+    public boolean isDetailDeferred() { return detailLoader != null; }
+
+    private ToolDetails loadDetails() {
+        return detailLoader.load(detailKey);
+    }
+
+    // 修改任一详细字段前先把全部详细字段读入对象，之后不再依赖 loader
+    private void materializeDetails() {
+        if (detailLoader == null) {
+            return;
+        }
+        ToolDetails details = loadDetails();
+        if (details.getDescription() != null) {
+            description = details.getDescription();
+        }
+        command = details.getCommand();
+        arguments = details.getArguments();
+        workingDirectory = details.getWorkingDirectory();
+        detailLoader = null;
+    }
+
     @Override
     public String toString() {
         return name;
     }
-}
\ No newline at end of file
+
+    /**
+     * 详细字段的来源，实现需线程安全
+     */
+    public interface DetailLoader {
+        ToolDetails load(long detailKey);
+    }
+}
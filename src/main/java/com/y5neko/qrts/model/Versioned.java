@@ -0,0 +1,12 @@
+package com.y5neko.qrts.model;
+
+/**
+ * 带版本号的实体，每次保存修改时版本号加一，多个实例共享数据目录时用于检测并发修改
+ */
+public interface Versioned {
+    String getId();
+
+    long getVersion();
+
+    void setVersion(long version);
+}
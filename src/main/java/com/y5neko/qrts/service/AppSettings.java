@@ -0,0 +1,271 @@
+package com.y5neko.qrts.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 应用设置（app_config.json）的内存副本，首次访问时读取一次文件
+ * 通过 Setting 按类型读写；beginBatch()/commit() 把多项修改合并为一次写盘，提交后通知监听器
+ */
+public class AppSettings {
+    // 字体设置
+    public static final Setting<String> SELECTED_FONT = Setting.ofString("selectedFont", "Microsoft YaHei");
+    public static final Setting<Double> TITLE_FONT_SIZE = Setting.ofDouble("titleFontSize", 16);
+    public static final Setting<Double> CATEGORY_FONT_SIZE = Setting.ofDouble("categoryFontSize", 14);
+    public static final Setting<Double> CATEGORY_DESC_FONT_SIZE = Setting.ofDouble("categoryDescFontSize", 12);
+    public static final Setting<Double> TOOL_DESC_FONT_SIZE = Setting.ofDouble("toolDescFontSize", 10);
+    public static final Setting<Double> BUTTON_FONT_SIZE = Setting.ofDouble("buttonFontSize", 12);
+
+    // 工具数据的存储布局："single" 或 "sharded"
+    public static final Setting<String> TOOL_STORAGE_LAYOUT = Setting.ofString("toolStorageLayout", "single");
+
+    // 启动时打开的工作区
+    public static final Setting<String> ACTIVE_WORKSPACE = Setting.ofString("activeWorkspace", "default");
+
+    // GUI工具输出的处理方式："discard"、"log"（写入 data/logs）或 "drain"（后台读取）
+    public static final Setting<String> GUI_OUTPUT_MODE = Setting.ofString("guiOutputMode", "discard");
+
+    // 为 java -jar 工具生成并使用类数据共享（AppCDS）存档，存档位于 data/cds
+    public static final Setting<Boolean> JAVA_CDS_ARCHIVES = Setting.ofBoolean("javaCdsArchives", false);
+
+    private final Supplier<Map<String, String>> loader;
+    private final Runnable writeScheduler;
+    private final List<SettingsListener> listeners = new CopyOnWriteArrayList<>();
+    // 内存中的当前值，为null表示尚未读取文件
+    private Map<String, String> values;
+    // 上次与磁盘同步时的内容，用于区分本地修改和其他实例的修改
+    private Map<String, String> baseline;
+
+    /**
+     * @param loader 读取 app_config.json，文件不存在时返回空表
+     * @param writeScheduler 安排一次后台写盘，写盘时调用 mergeForWrite 生成内容
+     */
+    AppSettings(Supplier<Map<String, String>> loader, Runnable writeScheduler) {
+        this.loader = loader;
+        this.writeScheduler = writeScheduler;
+    }
+
+    public <T> T get(Setting<T> setting) {
+        String raw = getRaw(setting.getKey());
+        if (raw == null) {
+            return setting.getDefaultValue();
+        }
+        try {
+            return setting.parse(raw);
+        } catch (RuntimeException e) {
+            System.err.println("Failed to parse setting " + setting.getKey() + ": " + raw);
+            return setting.getDefaultValue();
+        }
+    }
+
+    public <T> void set(Setting<T> setting, T value) {
+        beginBatch().set(setting, value).commit();
+    }
+
+    /**
+     * 按原始字符串读取，用于没有定义 Setting 的键
+     */
+    public synchronized String getRaw(String key) {
+        ensureLoaded();
+        return values.get(key);
+    }
+
+    public void setRaw(String key, String value) {
+        beginBatch().setRaw(key, value).commit();
+    }
+
+    /**
+     * 开始一组修改，调用 commit() 后一起生效并只写一次文件
+     */
+    public Batch beginBatch() {
+        return new Batch();
+    }
+
+    public void addListener(SettingsListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(SettingsListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 丢弃内存中的值，下次访问时重新读取文件
+     */
+    synchronized void invalidate() {
+        values = null;
+        baseline = null;
+    }
+
+    /**
+     * 写盘前调用（持有数据目录锁）：在磁盘的最新内容上叠加本地尚未写出的修改，返回要写入的内容
+     */
+    Map<String, String> mergeForWrite(Map<String, String> disk) {
+        Set<String> changed;
+        Map<String, String> merged;
+        synchronized (this) {
+            ensureLoaded();
+            merged = merge(disk);
+            changed = replaceValues(merged);
+            baseline = new HashMap<>(merged);
+        }
+        notifyListeners(changed);
+        return merged;
+    }
+
+    /**
+     * 文件被外部程序或其他实例修改后调用，本地尚未写出的修改保留
+     */
+    void reload(Map<String, String> disk) {
+        Set<String> changed;
+        synchronized (this) {
+            if (values == null) {
+                // 尚未读取过，下次访问时直接读到新内容
+                return;
+            }
+            changed = replaceValues(merge(disk));
+            baseline = new HashMap<>(disk);
+        }
+        notifyListeners(changed);
+    }
+
+    private void ensureLoaded() {
+        if (values == null) {
+            values = new HashMap<>(loader.get());
+            baseline = new HashMap<>(values);
+        }
+    }
+
+    private Map<String, String> merge(Map<String, String> disk) {
+        Map<String, String> merged = new HashMap<>(disk);
+        Set<String> keys = new HashSet<>(values.keySet());
+        keys.addAll(baseline.keySet());
+        for (String key : keys) {
+            String local = values.get(key);
+            if (!Objects.equals(local, baseline.get(key))) {
+                if (local == null) {
+                    merged.remove(key);
+                } else {
+                    merged.put(key, local);
+                }
+            }
+        }
+        return merged;
+    }
+
+    private Set<String> replaceValues(Map<String, String> updated) {
+        Set<String> changed = new HashSet<>();
+        Set<String> keys = new HashSet<>(values.keySet());
+        keys.addAll(updated.keySet());
+        for (String key : keys) {
+            if (!Objects.equals(values.get(key), updated.get(key))) {
+                changed.add(key);
+            }
+        }
+        values = new HashMap<>(updated);
+        return changed;
+    }
+
+    private void notifyListeners(Set<String> changedKeys) {
+        if (changedKeys.isEmpty()) {
+            return;
+        }
+        Set<String> keys = Collections.unmodifiableSet(changedKeys);
+        for (SettingsListener listener : listeners) {
+            listener.settingsChanged(keys);
+        }
+    }
+
+    /**
+     * 一组待提交的修改，只在创建它的线程上使用
+     */
+    public class Batch {
+        private final Map<String, String> changes = new LinkedHashMap<>();
+
+        private Batch() {
+        }
+
+        public <T> Batch set(Setting<T> setting, T value) {
+            return setRaw(setting.getKey(), value == null ? null : setting.format(value));
+        }
+
+        public Batch setRaw(String key, String value) {
+            changes.put(key, value);
+            return this;
+        }
+
+        /**
+         * 应用全部修改，有实际变化时安排一次写盘并通知监听器
+         */
+        public void commit() {
+            Set<String> changed = new HashSet<>();
+            synchronized (AppSettings.this) {
+                ensureLoaded();
+                for (Map.Entry<String, String> change : changes.entrySet()) {
+                    String key = change.getKey();
+                    String old = change.getValue() == null ? values.remove(key) : values.put(key, change.getValue());
+                    if (!Objects.equals(old, change.getValue())) {
+                        changed.add(key);
+                    }
+                }
+            }
+            changes.clear();
+            if (!changed.isEmpty()) {
+                writeScheduler.run();
+                notifyListeners(changed);
+            }
+        }
+    }
+
+    /**
+     * 带类型和默认值的设置项，文件中统一保存为字符串
+     */
+    public static final class Setting<T> {
+        private final String key;
+        private final T defaultValue;
+        private final Function<String, T> parser;
+
+        private Setting(String key, T defaultValue, Function<String, T> parser) {
+            this.key = key;
+            this.defaultValue = defaultValue;
+            this.parser = parser;
+        }
+
+        public static Setting<String> ofString(String key, String defaultValue) {
+            return new Setting<>(key, defaultValue, Function.identity());
+        }
+
+        public static Setting<Double> ofDouble(String key, double defaultValue) {
+            return new Setting<>(key, defaultValue, Double::valueOf);
+        }
+
+        public static Setting<Boolean> ofBoolean(String key, boolean defaultValue) {
+            return new Setting<>(key, defaultValue, Boolean::valueOf);
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public T getDefaultValue() {
+            return defaultValue;
+        }
+
+        T parse(String raw) {
+            return parser.apply(raw);
+        }
+
+        String format(T value) {
+            return String.valueOf(value);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.y5neko.qrts.service;
+
+/**
+ * 工作区数据文件的一次备份，可通过 DataManager.restoreBackup 恢复
+ */
+public final class Backup {
+    private final String id;
+    private final long createdAt;
+    private final String reason;
+    private final int fileCount;
+
+    Backup(String id, long createdAt, String reason, int fileCount) {
+        this.id = id;
+        this.createdAt = createdAt;
+        this.reason = reason;
+        this.fileCount = fileCount;
+    }
+
+    public String getId() { return id; }
+
+    // 创建时间（毫秒时间戳）
+    public long getCreatedAt() { return createdAt; }
+
+    // 触发备份的操作，例如 edit、reinitialize、restore
+    public String getReason() { return reason; }
+
+    public int getFileCount() { return fileCount; }
+}
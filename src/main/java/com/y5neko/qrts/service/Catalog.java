@@ -0,0 +1,83 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.util.List;
+
+/**
+ * 环境、分类、工具和启动组的一致只读视图，由 DataManager 在每次修改后整体替换发布
+ * 读取方拿到的对象在其生命周期内不会变化，可在任意线程使用；其中的实体也不应被修改，需要编辑时先复制
+ */
+public final class Catalog {
+    static final Catalog EMPTY = new Catalog(null, null, null, null, null, null);
+
+    // 为null表示对应数据尚未加载
+    private final EntitySnapshot<Environment> environments;
+    private final EntitySnapshot<ToolCategory> categories;
+    private final EntitySnapshot<ToolItem> tools;
+    private final SecondaryIndex<ToolItem> toolsByCategory;
+    private final SecondaryIndex<ToolItem> toolsByEnvironment;
+    private final EntitySnapshot<LaunchGroup> launchGroups;
+
+    Catalog(EntitySnapshot<Environment> environments, EntitySnapshot<ToolCategory> categories,
+            EntitySnapshot<ToolItem> tools, SecondaryIndex<ToolItem> toolsByCategory,
+            SecondaryIndex<ToolItem> toolsByEnvironment, EntitySnapshot<LaunchGroup> launchGroups) {
+        this.environments = environments;
+        this.categories = categories;
+        this.tools = tools;
+        this.toolsByCategory = toolsByCategory;
+        this.toolsByEnvironment = toolsByEnvironment;
+        this.launchGroups = launchGroups;
+    }
+
+    boolean hasEnvironments() { return environments != null; }
+    boolean hasCategories() { return categories != null; }
+    boolean hasTools() { return tools != null; }
+    boolean hasLaunchGroups() { return launchGroups != null; }
+
+    public List<Environment> getEnvironments() {
+        return environments.findAll();
+    }
+
+    public Environment findEnvironmentById(String environmentId) {
+        return environments.findById(environmentId);
+    }
+
+    public List<ToolCategory> getCategories() {
+        return categories.findAll();
+    }
+
+    public ToolCategory findCategoryById(String categoryId) {
+        return categories.findById(categoryId);
+    }
+
+    public List<ToolItem> getTools() {
+        return tools.findAll();
+    }
+
+    public ToolItem findToolById(String toolId) {
+        return tools.findById(toolId);
+    }
+
+    /**
+     * categoryId为null时返回未分类的工具
+     */
+    public List<ToolItem> findToolsByCategory(String categoryId) {
+        return tools.find(toolsByCategory, categoryId);
+    }
+
+    public List<ToolItem> findToolsByEnvironment(String environmentId) {
+        return tools.find(toolsByEnvironment, environmentId);
+    }
+
+    public List<LaunchGroup> getLaunchGroups() {
+        return launchGroups.findAll();
+    }
+
+    public LaunchGroup findLaunchGroupById(String launchGroupId) {
+        return launchGroups.findById(launchGroupId);
+    }
+}
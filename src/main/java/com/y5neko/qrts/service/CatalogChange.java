@@ -0,0 +1,27 @@
+package com.y5neko.qrts.service;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 一次外部修改在某类实体上产生的差异，changed 中为修改后的实体
+ */
+public class CatalogChange<T> {
+    private final List<T> added;
+    private final List<T> removed;
+    private final List<T> changed;
+
+    public CatalogChange(List<T> added, List<T> removed, List<T> changed) {
+        this.added = Collections.unmodifiableList(added);
+        this.removed = Collections.unmodifiableList(removed);
+        this.changed = Collections.unmodifiableList(changed);
+    }
+
+    public List<T> getAdded() { return added; }
+    public List<T> getRemoved() { return removed; }
+    public List<T> getChanged() { return changed; }
+
+    public boolean isEmpty() {
+        return added.isEmpty() && removed.isEmpty() && changed.isEmpty();
+    }
+}
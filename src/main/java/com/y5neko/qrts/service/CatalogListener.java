@@ -0,0 +1,32 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.util.List;
+
+/**
+ * 数据目录中的文件被外部程序或其他实例修改、合并到内存后的通知
+ * 回调在后台持久化线程上执行，界面需要自行切换到 JavaFX 线程
+ */
+public interface CatalogListener {
+    default void environmentsChanged(CatalogChange<Environment> change) {}
+
+    default void categoriesChanged(CatalogChange<ToolCategory> change) {}
+
+    default void toolsChanged(CatalogChange<ToolItem> change) {}
+
+    default void launchGroupsChanged(CatalogChange<LaunchGroup> change) {}
+
+    /**
+     * 与其他实例并发修改了同一实体且无法合并，本地修改已被放弃
+     */
+    default void conflictsDetected(List<String> conflicts) {}
+
+    /**
+     * 切换到了另一个工作区或从备份恢复，之前读取的数据都已过期；在调用 switchWorkspace/restoreBackup 的线程上执行
+     */
+    default void workspaceChanged(String workspace) {}
+}
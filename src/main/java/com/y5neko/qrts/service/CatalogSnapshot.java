@@ -0,0 +1,329 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 环境、分类、工具三份数据的二进制快照（data/catalog.bin），用于加速冷启动
+ * JSON 文件仍是唯一可信的数据源：快照头部记录生成时各源文件的大小和修改时间，任一不符即视为过期并回退到 JSON。
+ *
+ * 文件布局（大端序）：
+ * <pre>
+ * int    魔数 "QRTC"
+ * int    格式版本
+ * int    源文件数 n，随后 n 组 (long 大小, long 修改时间)，文件不存在时为 -1
+ * long   工具快照（tools.json 或分片清单）的CRC32，用于恢复变更日志的基准
+ * int    字符串表长度 m，随后 m 个 (int 字节数, UTF-8 字节)
+ * 环境、分类、工具三个段，每段为 (int 段字节数, int 记录数, 记录...)，记录中的字符串字段均为字符串表下标，-1 表示null，
+ *        每条记录以 long 版本号结尾；工具记录只含列表字段，描述过长时只保存摘要，最后是 (int 偏移, int 长度) 指向详细字段记录
+ * 工具详细字段段 (int 段字节数, 记录...)，每条记录依次为完整描述（摘要已完整时为null）、命令、参数、工作目录，
+ *        字符串直接以 (int 字节数, UTF-8 字节) 保存，-1 表示null
+ * </pre>
+ * 工具的详细字段不随快照一起解析，而是把该段保留在内存中，在首次访问时按位置解析（见 ToolDetailFile）。
+ */
+public class CatalogSnapshot {
+    private static final int MAGIC = 0x51525443;
+    private static final int VERSION = 6;
+    private static final int NULL_STRING = -1;
+    // 工具列表中保存的描述摘要的最大长度
+    static final int SUMMARY_LENGTH = 80;
+
+    private final List<Environment> environments;
+    private final List<ToolCategory> categories;
+    private final List<ToolItem> tools;
+    private final long toolsChecksum;
+
+    public CatalogSnapshot(List<Environment> environments, List<ToolCategory> categories,
+                           List<ToolItem> tools, long toolsChecksum) {
+        this.environments = environments;
+        this.categories = categories;
+        this.tools = tools;
+        this.toolsChecksum = toolsChecksum;
+    }
+
+    public List<Environment> getEnvironments() { return environments; }
+    public List<ToolCategory> getCategories() { return categories; }
+    public List<ToolItem> getTools() { return tools; }
+    public long getToolsChecksum() { return toolsChecksum; }
+
+    /**
+     * 计算源文件指纹：每个文件依次为大小和修改时间
+     */
+    public static long[] fingerprint(List<Path> sources) {
+        long[] fingerprint = new long[sources.size() * 2];
+        for (int i = 0; i < sources.size(); i++) {
+            Path source = sources.get(i);
+            try {
+                fingerprint[i * 2] = Files.size(source);
+                fingerprint[i * 2 + 1] = Files.getLastModifiedTime(source).toMillis();
+            } catch (IOException e) {
+                fingerprint[i * 2] = -1;
+                fingerprint[i * 2 + 1] = -1;
+            }
+        }
+        return fingerprint;
+    }
+
+    /**
+     * 快照存在且指纹与当前源文件一致
+     */
+    public static boolean isCurrent(Path file, long[] fingerprint) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return matchesHeader(readFully(channel, 12 + fingerprint.length * 8), fingerprint);
+        } catch (IOException | BufferUnderflowException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 读取快照，文件缺失或过期时返回null，内容损坏时抛出IOException
+     * 先只读头部判断是否过期，一致时再读入整个文件；工具只解析列表字段，详细字段段复制一份留在内存中按需解析，
+     * 返回后不再持有文件，快照随时可以被替换或删除
+     */
+    public static CatalogSnapshot read(Path file, long[] fingerprint) throws IOException {
+        if (!Files.exists(file)) {
+            return null;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int headerLength = 12 + fingerprint.length * 8;
+            if (channel.size() < headerLength || !matchesHeader(readFully(channel, headerLength), fingerprint)) {
+                return null;
+            }
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("catalog snapshot is too large");
+            }
+            channel.position(0);
+            buffer = readFully(channel, (int) channel.size());
+        }
+        try {
+            buffer.position(12 + fingerprint.length * 8);
+            long toolsChecksum = buffer.getLong();
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            buffer.getInt();
+            List<Environment> environments = new ArrayList<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                Environment env = new Environment(string(buffer, strings), string(buffer, strings),
+                        string(buffer, strings), string(buffer, strings), string(buffer, strings),
+                        string(buffer, strings));
+                env.setWarmProcesses(buffer.getInt());
+                env.setInProcess(buffer.get() != 0);
+                env.setVersion(buffer.getLong());
+                environments.add(env);
+            }
+
+            buffer.getInt();
+            List<ToolCategory> categories = new ArrayList<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                ToolCategory category = new ToolCategory(string(buffer, strings), string(buffer, strings),
+                        string(buffer, strings), string(buffer, strings));
+                category.setSortOrder(buffer.getInt());
+                category.setVersion(buffer.getLong());
+                categories.add(category);
+            }
+
+            // 详细字段段紧跟在工具段之后
+            int toolSectionStart = buffer.position() + 4;
+            long detailBase = toolSectionStart + (long) buffer.getInt() + 4;
+            if (detailBase > buffer.limit()) {
+                throw new IOException("catalog snapshot is corrupted");
+            }
+            // 只保留详细字段段，文件其余部分解析完即可回收
+            ByteBuffer detailSection = ByteBuffer.allocate(buffer.limit() - (int) detailBase);
+            detailSection.put(buffer.array(), (int) detailBase, detailSection.capacity());
+            detailSection.flip();
+            ToolDetailFile details = new ToolDetailFile(file, detailSection);
+            List<ToolItem> tools = new ArrayList<>();
+            for (int count = buffer.getInt(); count > 0; count--) {
+                ToolItem tool = ToolItem.deferred(string(buffer, strings), string(buffer, strings),
+                        string(buffer, strings), string(buffer, strings), string(buffer, strings),
+                        string(buffer, strings), buffer.get() != 0, details,
+                        ToolDetailFile.key(buffer.getInt(), buffer.getInt()));
+                tool.setVersion(buffer.getLong());
+                tools.add(tool);
+            }
+            return new CatalogSnapshot(environments, categories, tools, toolsChecksum);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException e) {
+            throw new IOException("catalog snapshot is corrupted", e);
+        }
+    }
+
+    /**
+     * 编码为快照文件内容，fingerprint 应为编码时源文件的指纹
+     */
+    public byte[] encode(long[] fingerprint) throws IOException {
+        Map<String, Integer> stringTable = new LinkedHashMap<>();
+
+        ByteArrayOutputStream envSection = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(envSection);
+        out.writeInt(environments.size());
+        for (Environment env : environments) {
+            writeString(out, stringTable, env.getId());
+            writeString(out, stringTable, env.getName());
+            writeString(out, stringTable, env.getType());
+            writeString(out, stringTable, env.getExecutablePath());
+            writeString(out, stringTable, env.getParameters());
+            writeString(out, stringTable, env.getDescription());
+            out.writeInt(env.getWarmProcesses());
+            out.writeByte(env.isInProcess() ? 1 : 0);
+            out.writeLong(env.getVersion());
+        }
+
+        ByteArrayOutputStream categorySection = new ByteArrayOutputStream();
+        out = new DataOutputStream(categorySection);
+        out.writeInt(categories.size());
+        for (ToolCategory category : categories) {
+            writeString(out, stringTable, category.getId());
+            writeString(out, stringTable, category.getName());
+            writeString(out, stringTable, category.getDescription());
+            writeString(out, stringTable, category.getIconPath());
+            out.writeInt(category.getSortOrder());
+            out.writeLong(category.getVersion());
+        }
+
+        ByteArrayOutputStream toolSection = new ByteArrayOutputStream();
+        ByteArrayOutputStream detailSection = new ByteArrayOutputStream();
+        out = new DataOutputStream(toolSection);
+        DataOutputStream detailOut = new DataOutputStream(detailSection);
+        out.writeInt(tools.size());
+        for (ToolItem tool : tools) {
+            String description = tool.getDescription();
+            boolean truncated = description != null && description.length() > SUMMARY_LENGTH;
+            writeString(out, stringTable, tool.getId());
+            writeString(out, stringTable, tool.getName());
+            writeString(out, stringTable, truncated ? summarize(description) : description);
+            writeString(out, stringTable, tool.getCategoryId());
+            writeString(out, stringTable, tool.getEnvironmentId());
+            writeString(out, stringTable, tool.getIconPath());
+            out.writeByte(tool.isHasGUI() ? 1 : 0);
+
+            int offset = detailOut.size();
+            writeInlineString(detailOut, truncated ? description : null);
+            writeInlineString(detailOut, tool.getCommand());
+            writeInlineString(detailOut, tool.getArguments());
+            writeInlineString(detailOut, tool.getWorkingDirectory());
+            out.writeInt(offset);
+            out.writeInt(detailOut.size() - offset);
+            out.writeLong(tool.getVersion());
+        }
+
+        ByteArrayOutputStream result = new ByteArrayOutputStream(
+                envSection.size() + categorySection.size() + toolSection.size() + detailSection.size() + 64 * 1024);
+        out = new DataOutputStream(result);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(fingerprint.length / 2);
+        for (long value : fingerprint) {
+            out.writeLong(value);
+        }
+        out.writeLong(toolsChecksum);
+
+        out.writeInt(stringTable.size());
+        for (String value : stringTable.keySet()) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        for (ByteArrayOutputStream section : new ByteArrayOutputStream[] {envSection, categorySection, toolSection, detailSection}) {
+            out.writeInt(section.size());
+            section.writeTo(out);
+        }
+        out.flush();
+        return result.toByteArray();
+    }
+
+    /**
+     * 从通道的当前位置读满 length 个字节，文件不足时抛出BufferUnderflowException
+     */
+    private static ByteBuffer readFully(FileChannel channel, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) == -1) {
+                throw new BufferUnderflowException();
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    private static boolean matchesHeader(ByteBuffer buffer, long[] fingerprint) {
+        if (buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            return false;
+        }
+        if (buffer.getInt() != fingerprint.length / 2) {
+            return false;
+        }
+        for (long value : fingerprint) {
+            if (buffer.getLong() != value) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String string(ByteBuffer buffer, String[] strings) {
+        int index = buffer.getInt();
+        return index == NULL_STRING ? null : strings[index];
+    }
+
+    /**
+     * 列表显示用的摘要，不在代理对中间截断
+     */
+    private static String summarize(String description) {
+        int end = SUMMARY_LENGTH;
+        if (Character.isHighSurrogate(description.charAt(end - 1))) {
+            end--;
+        }
+        return description.substring(0, end) + "…";
+    }
+
+    private static void writeInlineString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static void writeString(DataOutputStream out, Map<String, Integer> stringTable, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(NULL_STRING);
+            return;
+        }
+        Integer index = stringTable.get(value);
+        if (index == null) {
+            index = stringTable.size();
+            stringTable.put(value, index);
+        }
+        out.writeInt(index);
+    }
+}
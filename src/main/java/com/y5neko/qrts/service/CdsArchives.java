@@ -0,0 +1,347 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * 为 "java -jar" 工具维护类数据共享（AppCDS）存档，缩短 JVM 加载工具类的时间
+ * 存档按 jar 内容的哈希、jar 路径和 JDK 区分，保存在 data/cds 中：没有存档时本次运行加上
+ * -XX:ArchiveClassesAtExit，由 JVM 在工具退出时生成；之后的运行加上 -XX:SharedArchiveFile 使用存档。
+ * jar 或 JDK 变化后对应新的存档，在下一次运行时重新生成，旧存档长期不用或数量过多时删除。
+ * 需要 JDK 13 及以上；存档不可用时 JVM 忽略它照常启动
+ */
+final class CdsArchives {
+    // -XX:ArchiveClassesAtExit 从 JDK 13 开始支持
+    private static final int MIN_JAVA_VERSION = 13;
+    private static final int MAX_ARCHIVES = 32;
+    private static final long UNUSED_ARCHIVE_MS = 30L * 24 * 60 * 60 * 1000;
+    // 生成失败（如工具被强制结束，JVM 没有机会写出存档）后的重试次数
+    private static final int MAX_ATTEMPTS = 3;
+    private static final String ARCHIVE_SUFFIX = ".jsa";
+    private static final List<String> CDS_OPTIONS = Arrays.asList(
+            "-Xshare", "-XX:SharedArchiveFile", "-XX:ArchiveClassesAtExit", "-XX:+AutoCreateSharedArchive");
+
+    /**
+     * 加上 CDS 选项后的命令行
+     */
+    static final class Launch {
+        final List<String> argv;
+        // 本次运行生成的存档，不生成时为null
+        final Path generating;
+
+        Launch(List<String> argv, Path generating) {
+            this.argv = argv;
+            this.generating = generating;
+        }
+    }
+
+    private static final class JarHash {
+        final long size;
+        final long modified;
+        final String hash;
+
+        JarHash(long size, long modified, String hash) {
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+        }
+    }
+
+    /**
+     * JDK 的安装目录和 release 文件中的版本
+     */
+    private static final class JavaHome {
+        final String path;
+        final String version;
+        final int feature;
+
+        JavaHome(String path, String version, int feature) {
+            this.path = path;
+            this.version = version;
+            this.feature = feature;
+        }
+    }
+
+    private static final JavaHome UNKNOWN_JAVA = new JavaHome("", "", 0);
+
+    private final Path directory;
+    private final ExecutorService worker;
+    // jar 的绝对路径 -> 内容哈希
+    private final Map<String, JarHash> jarHashes = new ConcurrentHashMap<>();
+    private final Set<String> hashing = ConcurrentHashMap.newKeySet();
+    // java 可执行文件 -> 所在的 JDK
+    private final Map<String, JavaHome> javaHomes = new ConcurrentHashMap<>();
+    // 正在生成的存档 -> 生成它的进程（进程启动前为null）
+    private final Map<Path, Process> generating = new HashMap<>();
+    private final Map<Path, Integer> attempts = new HashMap<>();
+
+    CdsArchives(Path directory) {
+        this.directory = directory;
+        worker = Executors.newSingleThreadExecutor(r -> {
+            Thread thread = new Thread(r, "qrts-cds");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 为计划中的 java -jar 工具加上 CDS 选项；启动后须调用 started
+     * @param workingDirectory 用于解析相对的 jar 路径
+     * @return 不适用（非 java -jar、已有 CDS 选项、JDK 过旧、jar 的哈希尚未算出或存档正在生成）时 argv 不变
+     */
+    Launch prepare(LaunchPlan plan, File workingDirectory) {
+        List<String> argv = plan.getArgv();
+        Launch unchanged = new Launch(argv, null);
+        Environment environment = plan.getEnvironment();
+        if (!"java".equalsIgnoreCase(environment.getType())) {
+            return unchanged;
+        }
+        int toolStart = WarmProcessPool.toolStart("java", argv);
+        if (toolStart < 0 || !argv.get(toolStart).equals("-jar")) {
+            return unchanged;
+        }
+        for (String option : argv.subList(1, toolStart)) {
+            for (String cdsOption : CDS_OPTIONS) {
+                if (option.startsWith(cdsOption)) {
+                    return unchanged;
+                }
+            }
+        }
+        JavaHome javaHome = javaHome(argv.get(0));
+        if (javaHome.feature < MIN_JAVA_VERSION) {
+            return unchanged;
+        }
+        File jar = new File(argv.get(toolStart + 1));
+        if (!jar.isAbsolute() && workingDirectory != null) {
+            jar = new File(workingDirectory, jar.getPath());
+        }
+        jar = jar.getAbsoluteFile();
+        String jarHash = jarHash(jar);
+        if (jarHash == null) {
+            return unchanged;
+        }
+
+        // JVM 按路径、大小和修改时间校验存档中的类路径，不一致时静默地不使用存档，因此这些也是键的一部分
+        Path archive = directory.resolve(sha256(jarHash + "\n" + jar.getPath() + "\n" + jar.length() + "\n"
+                + jar.lastModified() + "\n" + javaHome.path + "\n" + javaHome.version).substring(0, 32)
+                + ARCHIVE_SUFFIX).toAbsolutePath();
+        String option;
+        Path generated = null;
+        synchronized (this) {
+            if (generating.containsKey(archive)) {
+                Process process = generating.get(archive);
+                if (process == null || process.isAlive()) {
+                    // 生成中，本次照常启动
+                    return unchanged;
+                }
+                generating.remove(archive);
+                if (Files.isRegularFile(archive)) {
+                    worker.execute(this::prune);
+                }
+            }
+            if (Files.isRegularFile(archive)) {
+                option = "-XX:SharedArchiveFile=" + archive;
+                worker.execute(() -> touch(archive));
+            } else {
+                int attempt = attempts.getOrDefault(archive, 0);
+                if (attempt >= MAX_ATTEMPTS) {
+                    return unchanged;
+                }
+                try {
+                    Files.createDirectories(directory);
+                } catch (IOException e) {
+                    System.err.println("Failed to create CDS directory: " + e.getMessage());
+                    return unchanged;
+                }
+                attempts.put(archive, attempt + 1);
+                generating.put(archive, null);
+                option = "-XX:ArchiveClassesAtExit=" + archive;
+                generated = archive;
+            }
+        }
+
+        List<String> withOption = new ArrayList<>(argv.size() + 1);
+        withOption.add(argv.get(0));
+        withOption.add(option);
+        withOption.addAll(argv.subList(1, argv.size()));
+        return new Launch(withOption, generated);
+    }
+
+    /**
+     * 记录生成存档的进程，进程结束前不再为同一个存档启动生成
+     * @param process 启动失败时传入null
+     */
+    synchronized void started(Launch launch, Process process) {
+        if (launch.generating == null) {
+            return;
+        }
+        if (process == null) {
+            generating.remove(launch.generating);
+        } else {
+            generating.put(launch.generating, process);
+        }
+    }
+
+    /**
+     * jar 的内容哈希，大小和修改时间不变时使用缓存；尚未算出时在后台计算并返回null
+     */
+    private String jarHash(File jar) {
+        String key = jar.getPath();
+        long size = jar.length();
+        long modified = jar.lastModified();
+        if (modified == 0) {
+            return null;
+        }
+        JarHash cached = jarHashes.get(key);
+        if (cached != null && cached.size == size && cached.modified == modified) {
+            return cached.hash;
+        }
+        if (hashing.add(key)) {
+            worker.execute(() -> {
+                try {
+                    jarHashes.put(key, new JarHash(size, modified, hashFile(jar.toPath())));
+                } catch (IOException e) {
+                    System.err.println("Failed to hash jar " + jar + ": " + e.getMessage());
+                } finally {
+                    hashing.remove(key);
+                }
+            });
+        }
+        return null;
+    }
+
+    private JavaHome javaHome(String executable) {
+        String path = ExecutableResolver.getInstance().resolve(executable).getPath();
+        if (path == null) {
+            return UNKNOWN_JAVA;
+        }
+        return javaHomes.computeIfAbsent(path, CdsArchives::readJavaHome);
+    }
+
+    /**
+     * 从 &lt;JDK&gt;/release 读取版本；java 通常是指向 JDK 中 bin/java 的链接
+     */
+    private static JavaHome readJavaHome(String executable) {
+        try {
+            Path home = Paths.get(executable).toRealPath().getParent().getParent();
+            Path release = home.resolve("release");
+            if (!Files.isRegularFile(release)) {
+                return UNKNOWN_JAVA;
+            }
+            try (BufferedReader reader = Files.newBufferedReader(release, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("JAVA_VERSION=")) {
+                        String version = line.substring("JAVA_VERSION=".length()).replace("\"", "").trim();
+                        return new JavaHome(home.toString(), version, featureVersion(version));
+                    }
+                }
+            }
+        } catch (IOException | RuntimeException e) {
+            // 无法确定版本时不使用CDS
+        }
+        return UNKNOWN_JAVA;
+    }
+
+    // "1.8.0_392" -> 8，"17.0.9" -> 17
+    private static int featureVersion(String version) {
+        String[] parts = version.split("[._+-]");
+        try {
+            int first = Integer.parseInt(parts[0]);
+            return first == 1 && parts.length > 1 ? Integer.parseInt(parts[1]) : first;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    // 修改时间表示最近一次使用，用于清理
+    private static void touch(Path archive) {
+        try {
+            Files.setLastModifiedTime(archive, FileTime.fromMillis(System.currentTimeMillis()));
+        } catch (IOException e) {
+            // 只影响清理顺序
+        }
+    }
+
+    /**
+     * 删除长期未使用的存档，并只保留最近使用的 MAX_ARCHIVES 个
+     */
+    private void prune() {
+        List<Path> archives = new ArrayList<>();
+        Map<Path, Long> used = new HashMap<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + ARCHIVE_SUFFIX)) {
+            for (Path entry : entries) {
+                archives.add(entry);
+                used.put(entry, Files.getLastModifiedTime(entry).toMillis());
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list CDS archives: " + e.getMessage());
+            return;
+        }
+        archives.sort((a, b) -> Long.compare(used.get(b), used.get(a)));
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < archives.size(); i++) {
+            Path archive = archives.get(i);
+            if (i >= MAX_ARCHIVES || now - used.get(archive) > UNUSED_ARCHIVE_MS) {
+                try {
+                    Files.deleteIfExists(archive);
+                } catch (IOException e) {
+                    System.err.println("Failed to delete CDS archive " + archive + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    private static String hashFile(Path file) throws IOException {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            byte[] buffer = new byte[64 * 1024];
+            try (InputStream in = Files.newInputStream(file)) {
+                int read;
+                while ((read = in.read(buffer)) > 0) {
+                    digest.update(buffer, 0, read);
+                }
+            }
+            return hex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String sha256(String text) {
+        try {
+            return hex(MessageDigest.getInstance("SHA-256").digest(text.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String hex(byte[] digest) {
+        StringBuilder hex = new StringBuilder(digest.length * 2);
+        for (byte b : digest) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
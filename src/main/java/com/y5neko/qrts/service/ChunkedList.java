@@ -0,0 +1,152 @@
+package com.y5neko.qrts.service;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * 按ID维护的有序列表，内容分块存放
+ * 生成只读副本时只复制上次之后有改动的块，单条修改的代价与总数量无关
+ */
+final class ChunkedList<T> {
+    private static final int CHUNK_SIZE = 64;
+
+    private final List<Chunk<T>> chunks = new ArrayList<>();
+    private final Map<String, Chunk<T>> chunkById = new HashMap<>();
+    private List<T> published = Collections.emptyList();
+    private boolean changed = false;
+
+    /**
+     * 已存在的ID原位替换，新ID追加到末尾
+     */
+    void put(String id, T value) {
+        Chunk<T> chunk = chunkById.get(id);
+        if (chunk != null) {
+            chunk.values.set(chunk.ids.indexOf(id), value);
+        } else {
+            chunk = chunks.isEmpty() ? null : chunks.get(chunks.size() - 1);
+            if (chunk == null || chunk.ids.size() >= CHUNK_SIZE) {
+                chunk = new Chunk<>();
+                chunks.add(chunk);
+            }
+            chunk.ids.add(id);
+            chunk.values.add(value);
+            chunkById.put(id, chunk);
+        }
+        chunk.frozen = null;
+        changed = true;
+    }
+
+    void remove(String id) {
+        Chunk<T> chunk = chunkById.remove(id);
+        if (chunk == null) {
+            return;
+        }
+        int index = chunk.ids.indexOf(id);
+        chunk.ids.remove(index);
+        chunk.values.remove(index);
+        chunk.frozen = null;
+        if (chunk.ids.isEmpty()) {
+            chunks.remove(chunk);
+        }
+        changed = true;
+    }
+
+    void clear() {
+        chunks.clear();
+        chunkById.clear();
+        published = Collections.emptyList();
+        changed = false;
+    }
+
+    int size() {
+        return chunkById.size();
+    }
+
+    /**
+     * 当前内容的可修改副本
+     */
+    List<T> copy() {
+        List<T> result = new ArrayList<>(chunkById.size());
+        for (Chunk<T> chunk : chunks) {
+            result.addAll(chunk.values);
+        }
+        return result;
+    }
+
+    /**
+     * 当前内容的只读副本，没有修改时重复返回同一个对象
+     */
+    List<T> snapshot() {
+        if (!changed) {
+            return published;
+        }
+        Object[][] arrays = new Object[chunks.size()][];
+        int[] offsets = new int[chunks.size() + 1];
+        for (int i = 0; i < chunks.size(); i++) {
+            Chunk<T> chunk = chunks.get(i);
+            if (chunk.frozen == null) {
+                chunk.frozen = chunk.values.toArray();
+            }
+            arrays[i] = chunk.frozen;
+            offsets[i + 1] = offsets[i] + chunk.frozen.length;
+        }
+        published = new FrozenList<>(arrays, offsets);
+        changed = false;
+        return published;
+    }
+
+    private static final class Chunk<T> {
+        final List<String> ids = new ArrayList<>(CHUNK_SIZE);
+        final List<T> values = new ArrayList<>(CHUNK_SIZE);
+        // 最近一次发布的内容，块被修改后置为null
+        Object[] frozen;
+    }
+
+    /**
+     * 由各块冻结数组拼接而成的只读列表
+     */
+    private static final class FrozenList<T> extends AbstractList<T> implements RandomAccess {
+        private final Object[][] arrays;
+        // offsets[i] 为第i块第一个元素的下标，最后一项为总数
+        private final int[] offsets;
+
+        FrozenList(Object[][] arrays, int[] offsets) {
+            this.arrays = arrays;
+            this.offsets = offsets;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public T get(int index) {
+            if (index < 0 || index >= size()) {
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            }
+            // 块不会为空，各块起点严格递增
+            int chunk = Arrays.binarySearch(offsets, 0, arrays.length, index);
+            if (chunk < 0) {
+                chunk = -chunk - 2;
+            }
+            return (T) arrays[chunk][index - offsets[chunk]];
+        }
+
+        @Override
+        public int size() {
+            return offsets[offsets.length - 1];
+        }
+
+        @Override
+        public Object[] toArray() {
+            Object[] result = new Object[size()];
+            for (int i = 0; i < arrays.length; i++) {
+                System.arraycopy(arrays[i], 0, result, offsets[i], arrays[i].length);
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.y5neko.qrts.service;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 数据目录的跨进程排他锁（基于 FileChannel.lock），多个实例共享同一数据目录时用于串行化“读取-合并-写入”
+ * 同一进程内只应在持久化线程上获取，否则会抛出 OverlappingFileLockException
+ */
+public class DataDirectoryLock implements AutoCloseable {
+    private static final String LOCK_FILE = ".lock";
+
+    private final FileChannel channel;
+    private final FileLock lock;
+
+    private DataDirectoryLock(FileChannel channel, FileLock lock) {
+        this.channel = channel;
+        this.lock = lock;
+    }
+
+    /**
+     * 阻塞直到获得锁
+     */
+    public static DataDirectoryLock acquire(Path directory) throws IOException {
+        if (!Files.exists(directory)) {
+            Files.createDirectories(directory);
+        }
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            return new DataDirectoryLock(channel, channel.lock());
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            lock.release();
+        } finally {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,119 @@
+package com.y5neko.qrts.service;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * 监听数据目录中指定文件的变化
+ * 同一批修改（例如脚本连续写入多个文件）产生的事件会在静默一段时间后合并为一次回调
+ */
+public class DataDirectoryWatcher {
+    private static final long DEBOUNCE_MS = 300;
+
+    private final Path directory;
+    private final Set<String> fileNames;
+    private final Consumer<Set<String>> onChange;
+    private final ScheduledExecutorService scheduler;
+    private final Set<String> pending = new LinkedHashSet<>();
+    private ScheduledFuture<?> scheduledCallback;
+    private WatchService watchService;
+
+    public DataDirectoryWatcher(Path directory, Set<String> fileNames, Consumer<Set<String>> onChange) {
+        this.directory = directory;
+        this.fileNames = new HashSet<>(fileNames);
+        this.onChange = onChange;
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "qrts-data-watcher-debounce");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public synchronized void start() throws IOException {
+        if (watchService != null) {
+            return;
+        }
+        watchService = FileSystems.getDefault().newWatchService();
+        directory.register(watchService, StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+
+        Thread thread = new Thread(() -> watchLoop(watchService), "qrts-data-watcher");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public synchronized void stop() {
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException ignored) {
+            }
+            watchService = null;
+        }
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * 标记文件有变化，在防抖窗口结束后回调；也用于回调方处理不了时稍后重试
+     */
+    public synchronized void fileChanged(String fileName) {
+        pending.add(fileName);
+        if (scheduledCallback != null) {
+            scheduledCallback.cancel(false);
+        }
+        scheduledCallback = scheduler.schedule(this::firePending, DEBOUNCE_MS, TimeUnit.MILLISECONDS);
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        // 事件丢失时无法确定改了哪个文件，全部重新检查
+                        for (String fileName : fileNames) {
+                            fileChanged(fileName);
+                        }
+                        continue;
+                    }
+                    String fileName = ((Path) event.context()).getFileName().toString();
+                    if (fileNames.contains(fileName)) {
+                        fileChanged(fileName);
+                    }
+                }
+                if (!key.reset()) {
+                    System.err.println("Data directory is no longer accessible, stopping watcher");
+                    break;
+                }
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            // 停止监听
+        }
+    }
+
+    private void firePending() {
+        Set<String> changed;
+        synchronized (this) {
+            changed = new LinkedHashSet<>(pending);
+            pending.clear();
+            scheduledCallback = null;
+        }
+        if (!changed.isEmpty()) {
+            onChange.accept(changed);
+        }
+    }
+}
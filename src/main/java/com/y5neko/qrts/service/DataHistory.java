@@ -0,0 +1,329 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * 工作区数据文件的内容寻址备份（.history/）
+ * objects/ 下按 SHA-256 保存压缩后的文件内容，内容相同的文件只存一份；snapshots/ 下每次备份一个清单，记录各文件对应的哈希。
+ * 除 list 外的方法都应在持久化线程上、持有数据目录锁时调用。
+ */
+final class DataHistory {
+    static final String HISTORY_DIR = ".history";
+    private static final String OBJECTS_DIR = "objects";
+    private static final String SNAPSHOTS_DIR = "snapshots";
+    private static final String MANIFEST_SUFFIX = ".json";
+    // 保留最近的备份数，更早的在保留天数内每天只保留最后一份
+    private static final int KEEP_RECENT = 50;
+    private static final int KEEP_DAILY_DAYS = 30;
+    // 上次清理后又新增这么多份备份时再清理一次
+    private static final int PRUNE_INTERVAL = 10;
+
+    private final Path dataDirectory;
+    private final Path root;
+    private final ObjectMapper objectMapper;
+    // 文件大小和修改时间未变时复用上次的哈希，避免每次备份都重新读取大文件：相对路径 -> 哈希
+    private final Map<String, String> hashCache = new HashMap<>();
+    private final Map<String, long[]> hashedStamps = new HashMap<>();
+    // 最近一份备份的内容，没有变化时不再生成新的清单
+    private Map<String, String> latestFiles;
+    private int backupsSincePrune = 0;
+
+    DataHistory(Path dataDirectory, ObjectMapper objectMapper) {
+        this.dataDirectory = dataDirectory;
+        this.root = dataDirectory.resolve(HISTORY_DIR);
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * 备份给出的文件（不存在的跳过）
+     * @param onlyIfChanged 为true时内容与最近一份备份相同则不生成新备份，返回null
+     */
+    synchronized Backup backup(List<Path> files, String reason, boolean onlyIfChanged) throws IOException {
+        Map<String, String> entries = new TreeMap<>();
+        for (Path file : files) {
+            if (!Files.isRegularFile(file)) {
+                continue;
+            }
+            String name = relativeName(file);
+            entries.put(name, store(name, file));
+        }
+        if (onlyIfChanged && entries.equals(latestFiles())) {
+            return null;
+        }
+
+        long createdAt = System.currentTimeMillis();
+        Path manifest = manifestFile(createdAt);
+        while (Files.exists(manifest)) {
+            manifest = manifestFile(++createdAt);
+        }
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("createdAt", createdAt);
+        node.put("reason", reason);
+        ObjectNode fileNodes = node.putObject("files");
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            fileNodes.put(entry.getKey(), entry.getValue());
+        }
+        PersistenceWriter.writeAtomically(manifest, objectMapper.writeValueAsBytes(node));
+        latestFiles = entries;
+        backupsSincePrune++;
+        return new Backup(String.valueOf(createdAt), createdAt, reason, entries.size());
+    }
+
+    /**
+     * 所有备份，最新的在前
+     */
+    List<Backup> list() {
+        List<Backup> backups = new ArrayList<>();
+        for (Path manifest : manifests()) {
+            try {
+                JsonNode node = objectMapper.readTree(manifest.toFile());
+                backups.add(new Backup(idOf(manifest), node.path("createdAt").asLong(), node.path("reason").asText(),
+                        node.path("files").size()));
+            } catch (IOException e) {
+                System.err.println("Failed to read backup " + manifest.getFileName() + ": " + e.getMessage());
+            }
+        }
+        return backups;
+    }
+
+    /**
+     * 把数据文件恢复为指定备份的内容：备份中没有的现有文件被删除
+     * 先校验全部对象再开始写入，对象缺失或损坏时不修改任何文件
+     * @param currentFiles 当前的数据文件
+     */
+    synchronized void restore(String backupId, List<Path> currentFiles) throws IOException {
+        Map<String, String> entries = readManifest(manifestFile(parseId(backupId)));
+        Map<String, byte[]> contents = new TreeMap<>();
+        for (Map.Entry<String, String> entry : entries.entrySet()) {
+            byte[] content = readObject(entry.getValue());
+            if (!entry.getValue().equals(sha256(content))) {
+                throw new IOException("backup object " + entry.getValue() + " is corrupted");
+            }
+            contents.put(entry.getKey(), content);
+        }
+
+        for (Path file : currentFiles) {
+            if (!entries.containsKey(relativeName(file))) {
+                Files.deleteIfExists(file);
+            }
+        }
+        for (Map.Entry<String, byte[]> entry : contents.entrySet()) {
+            Path target = dataDirectory.resolve(entry.getKey());
+            Files.createDirectories(target.toAbsolutePath().getParent());
+            PersistenceWriter.writeAtomically(target, entry.getValue());
+        }
+        hashCache.clear();
+        hashedStamps.clear();
+    }
+
+    boolean needsPruning() {
+        return backupsSincePrune >= PRUNE_INTERVAL;
+    }
+
+    /**
+     * 按保留策略删除旧备份，再删除不再被任何备份引用的对象
+     * @return 删除的备份数
+     */
+    synchronized int prune() throws IOException {
+        backupsSincePrune = 0;
+        List<Path> manifests = manifests();
+        LocalDate oldestDay = LocalDate.now().minusDays(KEEP_DAILY_DAYS);
+        Set<LocalDate> keptDays = new HashSet<>();
+        Set<String> referenced = new HashSet<>();
+        int removed = 0;
+        for (int i = 0; i < manifests.size(); i++) {
+            Path manifest = manifests.get(i);
+            LocalDate day = Instant.ofEpochMilli(parseId(idOf(manifest))).atZone(ZoneId.systemDefault()).toLocalDate();
+            // 列表最新的在前，每天遇到的第一份就是当天最后一份
+            boolean lastOfDay = keptDays.add(day);
+            boolean keep = i < KEEP_RECENT || (lastOfDay && !day.isBefore(oldestDay));
+            if (!keep) {
+                Files.deleteIfExists(manifest);
+                removed++;
+                continue;
+            }
+            try {
+                referenced.addAll(readManifest(manifest).values());
+            } catch (IOException e) {
+                // 无法确定引用了哪些对象，这一轮不删除对象
+                System.err.println("Failed to read backup " + manifest.getFileName() + ": " + e.getMessage());
+                return removed;
+            }
+        }
+
+        Path objects = root.resolve(OBJECTS_DIR);
+        if (!Files.isDirectory(objects)) {
+            return removed;
+        }
+        try (DirectoryStream<Path> buckets = Files.newDirectoryStream(objects)) {
+            for (Path bucket : buckets) {
+                try (DirectoryStream<Path> entries = Files.newDirectoryStream(bucket)) {
+                    for (Path object : entries) {
+                        if (!referenced.contains(bucket.getFileName().toString() + object.getFileName())) {
+                            Files.deleteIfExists(object);
+                        }
+                    }
+                }
+            }
+        }
+        hashCache.values().retainAll(referenced);
+        hashedStamps.keySet().retainAll(hashCache.keySet());
+        return removed;
+    }
+
+    private String store(String name, Path file) throws IOException {
+        long[] stamp = CatalogSnapshot.fingerprint(Collections.singletonList(file));
+        String hash = hashCache.get(name);
+        if (hash != null && Arrays.equals(stamp, hashedStamps.get(name)) && Files.exists(objectFile(hash))) {
+            return hash;
+        }
+        byte[] content = Files.readAllBytes(file);
+        hash = sha256(content);
+        Path object = objectFile(hash);
+        if (!Files.exists(object)) {
+            Files.createDirectories(object.getParent());
+            PersistenceWriter.writeAtomically(object, compress(content));
+        }
+        hashCache.put(name, hash);
+        hashedStamps.put(name, stamp);
+        return hash;
+    }
+
+    private Map<String, String> latestFiles() {
+        if (latestFiles == null) {
+            latestFiles = new TreeMap<>();
+            List<Path> manifests = manifests();
+            if (!manifests.isEmpty()) {
+                try {
+                    latestFiles = readManifest(manifests.get(0));
+                } catch (IOException e) {
+                    System.err.println("Failed to read backup " + manifests.get(0).getFileName() + ": " + e.getMessage());
+                }
+            }
+        }
+        return latestFiles;
+    }
+
+    private Map<String, String> readManifest(Path manifest) throws IOException {
+        if (!Files.exists(manifest)) {
+            throw new IllegalArgumentException("备份不存在: " + idOf(manifest));
+        }
+        Map<String, String> entries = new TreeMap<>();
+        Iterator<Map.Entry<String, JsonNode>> fields = objectMapper.readTree(manifest.toFile()).path("files").fields();
+        while (fields.hasNext()) {
+            Map.Entry<String, JsonNode> field = fields.next();
+            entries.put(field.getKey(), field.getValue().asText());
+        }
+        return entries;
+    }
+
+    /**
+     * 所有备份清单，最新的在前
+     */
+    private List<Path> manifests() {
+        List<Path> manifests = new ArrayList<>();
+        Path directory = root.resolve(SNAPSHOTS_DIR);
+        if (!Files.isDirectory(directory)) {
+            return manifests;
+        }
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*" + MANIFEST_SUFFIX)) {
+            for (Path entry : entries) {
+                manifests.add(entry);
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to list backups: " + e.getMessage());
+        }
+        manifests.sort((a, b) -> Long.compare(parseId(idOf(b)), parseId(idOf(a))));
+        return manifests;
+    }
+
+    private Path manifestFile(long createdAt) {
+        return root.resolve(SNAPSHOTS_DIR).resolve(createdAt + MANIFEST_SUFFIX);
+    }
+
+    private Path objectFile(String hash) {
+        return root.resolve(OBJECTS_DIR).resolve(hash.substring(0, 2)).resolve(hash.substring(2));
+    }
+
+    private String relativeName(Path file) {
+        return dataDirectory.relativize(file).toString().replace('\\', '/');
+    }
+
+    private static String idOf(Path manifest) {
+        String name = manifest.getFileName().toString();
+        return name.substring(0, name.length() - MANIFEST_SUFFIX.length());
+    }
+
+    // 备份ID是创建时间，只接受数字，避免拼出数据目录以外的路径
+    private static long parseId(String backupId) {
+        try {
+            return Long.parseLong(backupId);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("备份不存在: " + backupId);
+        }
+    }
+
+    private byte[] readObject(String hash) throws IOException {
+        Path object = objectFile(hash);
+        if (!Files.exists(object)) {
+            throw new IOException("backup object " + hash + " is missing");
+        }
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(object))) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        }
+    }
+
+    private static byte[] compress(byte[] content) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(content.length / 4 + 64);
+        try (OutputStream out = new GZIPOutputStream(bytes)) {
+            out.write(content);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static String sha256(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
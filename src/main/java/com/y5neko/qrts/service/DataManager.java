@@ -1,42 +1,75 @@
 package com.y5neko.qrts.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
 import com.y5neko.qrts.model.ToolCategory;
 import com.y5neko.qrts.model.ToolItem;
 
 import java.io.File;
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
+
+/**
+ * 数据访问入口：管理多个工作区，读写都转发给当前工作区
+ * 默认工作区使用 data/，其他工作区使用 data/workspaces/&lt;名称&gt;/；应用设置和持久化线程所有工作区共享
+ */
 public class DataManager {
     private static final String DATA_DIR = "data";
-    private static final String ENVIRONMENTS_FILE = "environments.json";
-    private static final String CATEGORIES_FILE = "categories.json";
-    private static final String TOOLS_FILE = "tools.json";
+    private static final String WORKSPACES_DIR = "workspaces";
     private static final String APP_CONFIG_FILE = "app_config.json";
+    private static final String LOGS_DIR = "logs";
+    private static final String CDS_DIR = "cds";
+    public static final String DEFAULT_WORKSPACE = "default";
+    // 除当前工作区外保持已加载的最近使用工作区数，切回时不需要重新加载
+    private static final int WARM_WORKSPACES = 2;
+    private static final String INVALID_NAME_CHARS = "<>:\"/\\|?*";
 
     private static DataManager instance;
-    private ObjectMapper objectMapper;
+    private final PersistenceWriter persistenceWriter = new PersistenceWriter("qrts-persistence");
+    private final AppSettings appSettings = new AppSettings(this::loadAppConfig, this::scheduleAppConfigWrite);
+    private final List<CatalogListener> catalogListeners = new CopyOnWriteArrayList<>();
 
-    // 缓存数据以提高性能
-    private List<Environment> cachedEnvironments;
-    private List<ToolCategory> cachedCategories;
-    private List<ToolItem> cachedTools;
-    private boolean environmentsLoaded = false;
-    private boolean categoriesLoaded = false;
-    private boolean toolsLoaded = false;
+    // 当前工作区，首次访问时按设置打开
+    private volatile Workspace active;
+    // 最近用过的其他工作区，按访问顺序排列，最久未用的在前
+    private final LinkedHashMap<String, Workspace> warmWorkspaces = new LinkedHashMap<>(16, 0.75f, true);
+    private boolean watching = false;
+    private DataDirectoryWatcher configWatcher;
 
     private DataManager() {
-        objectMapper = new ObjectMapper();
         ensureDataDirectoryExists();
+
+        // 退出前把尚未落盘的修改写完，并在需要时重新生成二进制快照
+        Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown, "qrts-persistence-shutdown"));
+    }
+
+    private void shutdown() {
+        persistenceWriter.awaitFlush(5, TimeUnit.SECONDS);
+        for (Workspace workspace : loadedWorkspaces()) {
+            try {
+                persistenceWriter.submit(workspace::writeSnapshotNow).get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                System.err.println("Failed to write catalog snapshot on shutdown: " + e.getMessage());
+            }
+        }
+        persistenceWriter.shutdown();
     }
 
     public static synchronized DataManager getInstance() {
@@ -59,21 +92,63 @@ public class DataManager {
 
     // 清除缓存，强制重新加载
     public void clearCache() {
-        environmentsLoaded = false;
-        categoriesLoaded = false;
-        toolsLoaded = false;
-        cachedEnvironments = null;
-        cachedCategories = null;
-        cachedTools = null;
+        // 先让排队中的写入落盘，否则丢弃缓存后会丢失这些修改
+        // 注意不能持有锁等待：后台线程生成文件内容时需要获取同一把锁
+        persistenceWriter.awaitFlush(5, TimeUnit.SECONDS);
+        synchronized (this) {
+            if (active != null) {
+                active.invalidate();
+            }
+            for (Workspace workspace : warmWorkspaces.values()) {
+                workspace.stopWatching();
+            }
+            warmWorkspaces.clear();
+            appSettings.invalidate();
+        }
     }
 
-    // 重新初始化所有配置文件
+    /**
+     * 立即写出所有待保存的数据，返回的Future在写入完成后结束
+     */
+    public CompletableFuture<Void> flush() {
+        return persistenceWriter.flush();
+    }
+
+    /**
+     * 阻塞等待所有待保存的数据落盘，超时返回false
+     */
+    public boolean awaitPendingWrites(long timeoutMillis) {
+        return persistenceWriter.awaitFlush(timeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 在后台持久化线程上异步写出应用设置，窗口期内的多次提交只写一次
+     * 写入时持有数据目录锁，并在磁盘的最新内容上叠加本地修改，不会覆盖其他实例写入的键
+     */
+    @SuppressWarnings("try")
+    private void scheduleAppConfigWrite() {
+        Path target = Paths.get(DATA_DIR, APP_CONFIG_FILE);
+        persistenceWriter.markDirty(target, () -> {
+            try (DataDirectoryLock lock = DataDirectoryLock.acquire(Paths.get(DATA_DIR))) {
+                Map<String, String> content = appSettings.mergeForWrite(loadAppConfig());
+                PersistenceWriter.writeAtomically(target, JsonCodecs.STRING_MAP_WRITER.writeValueAsBytes(content));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    // 重新初始化当前工作区的所有配置文件
     public void reinitialize() {
+        // 先等待排队中的写入完成，避免删除后又被后台线程写回
+        persistenceWriter.awaitFlush(5, TimeUnit.SECONDS);
+        Workspace workspace = activeWorkspace();
         try {
-            // 删除现有配置文件
-            Files.deleteIfExists(Paths.get(DATA_DIR, ENVIRONMENTS_FILE));
-            Files.deleteIfExists(Paths.get(DATA_DIR, CATEGORIES_FILE));
-            Files.deleteIfExists(Paths.get(DATA_DIR, TOOLS_FILE));
+            // 删除前先备份，可以从备份恢复撤销；删除与其他写入一样在持久化线程上持有数据目录锁进行
+            runOnPersistenceThread(() -> {
+                workspace.backup("reinitialize", false);
+                workspace.deleteDataFiles();
+            });
 
             // 清除缓存
             clearCache();
@@ -84,279 +159,442 @@ public class DataManager {
         }
     }
 
-    // 环境管理
-    public List<Environment> loadEnvironments() {
-        File file = new File(DATA_DIR, ENVIRONMENTS_FILE);
-        if (!file.exists()) {
-            return createAndSaveDefaultEnvironments();
+    // 备份与恢复
+    /**
+     * 当前工作区的所有备份，最新的在前；每次修改落盘后自动备份，内容未变的文件不重复保存
+     */
+    public List<Backup> listBackups() {
+        return activeWorkspace().listBackups();
+    }
+
+    /**
+     * 把当前工作区恢复为指定备份的内容，恢复前的内容也会先备份一次
+     * @throws IllegalArgumentException 备份不存在
+     */
+    public void restoreBackup(String backupId) throws IOException {
+        persistenceWriter.awaitFlush(5, TimeUnit.SECONDS);
+        Workspace workspace = activeWorkspace();
+        runOnPersistenceThread(() -> workspace.restoreBackup(backupId));
+        System.out.println("已从备份恢复: " + backupId);
+        for (CatalogListener listener : catalogListeners) {
+            listener.workspaceChanged(workspace.getName());
         }
+    }
 
+    /**
+     * 在持久化线程上执行需要持有数据目录锁的操作并等待完成，异常原样抛给调用方
+     */
+    private void runOnPersistenceThread(IOAction action) throws IOException {
         try {
-            return objectMapper.readValue(file, new TypeReference<List<Environment>>() {});
-        } catch (IOException e) {
-            System.err.println("Failed to load environments: " + e.getMessage());
-            return createAndSaveDefaultEnvironments();
+            persistenceWriter.submit(() -> {
+                try {
+                    action.run();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }).get(30, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof UncheckedIOException) {
+                throw ((UncheckedIOException) cause).getCause();
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IOException(cause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("interrupted");
+        } catch (TimeoutException e) {
+            throw new IOException("timed out waiting for persistence thread");
         }
     }
 
-    public void saveEnvironments(List<Environment> environments) {
-        try {
-            objectMapper.writeValue(new File(DATA_DIR, ENVIRONMENTS_FILE), environments);
-        } catch (IOException e) {
-            System.err.println("Failed to save environments: " + e.getMessage());
+    private interface IOAction {
+        void run() throws IOException;
+    }
+
+    // 工作区管理
+    /**
+     * 所有工作区名称，默认工作区排在最前
+     */
+    public List<String> listWorkspaces() {
+        List<String> names = new ArrayList<>();
+        Path root = Paths.get(DATA_DIR, WORKSPACES_DIR);
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path entry : entries) {
+                    names.add(entry.getFileName().toString());
+                }
+            } catch (IOException e) {
+                System.err.println("Failed to list workspaces: " + e.getMessage());
+            }
         }
+        Collections.sort(names);
+        names.add(0, DEFAULT_WORKSPACE);
+        return names;
     }
 
-    private List<Environment> createAndSaveDefaultEnvironments() {
-        List<Environment> environments = new ArrayList<>();
-
-        // 默认Java环境
-        environments.add(new Environment(
-            "env-" + System.currentTimeMillis() + "-1",
-            "Java 8 Default",
-            "java",
-            System.getProperty("java.home") + "/bin/java",
-            "-Xms512m -Xmx1024m",
-            "系统默认Java环境，用于运行Java应用程序"
-        ));
-
-        // 默认Python环境
-        environments.add(new Environment(
-            "env-" + System.currentTimeMillis() + "-2",
-            "Python 3 Default",
-            "python",
-            "python3",
-            "",
-            "系统默认Python环境，用于运行Python脚本"
-        ));
-
-        // Node.js环境
-        environments.add(new Environment(
-            "env-" + System.currentTimeMillis() + "-3",
-            "Node.js Default",
-            "node",
-            "node",
-            "",
-            "Node.js运行环境，用于运行JavaScript代码"
-        ));
-
-        saveEnvironments(environments);
-        return environments;
-    }
-
-    // 工具分类管理
-    public List<ToolCategory> loadCategories() {
-        File file = new File(DATA_DIR, CATEGORIES_FILE);
-        if (!file.exists()) {
-            return createAndSaveDefaultCategories();
+    public String getActiveWorkspace() {
+        return activeWorkspace().getName();
+    }
+
+    /**
+     * 新建一个空工作区，首次切换过去时生成默认数据
+     * @throws IllegalArgumentException 名称不合法或已存在
+     */
+    public void createWorkspace(String name) throws IOException {
+        Path directory = workspaceDirectory(name);
+        if (DEFAULT_WORKSPACE.equals(name) || Files.exists(directory)) {
+            throw new IllegalArgumentException("工作区已存在: " + name);
         }
+        Files.createDirectories(directory);
+        System.out.println("已创建工作区: " + name);
+    }
 
-        try {
-            return objectMapper.readValue(file, new TypeReference<List<ToolCategory>>() {});
-        } catch (IOException e) {
-            System.err.println("Failed to load categories: " + e.getMessage());
-            return createAndSaveDefaultCategories();
+    /**
+     * 切换当前工作区并通知监听器；之前的工作区保持已加载，超出数量时最久未用的被释放
+     * @throws IllegalArgumentException 工作区不存在
+     */
+    public void switchWorkspace(String name) {
+        synchronized (this) {
+            Workspace previous = activeWorkspace();
+            if (previous.getName().equals(name)) {
+                return;
+            }
+            Path directory = workspaceDirectory(name);
+            if (!Files.isDirectory(directory)) {
+                throw new IllegalArgumentException("工作区不存在: " + name);
+            }
+            Workspace next = warmWorkspaces.remove(name);
+            if (next == null) {
+                next = openWorkspace(name, directory);
+            }
+            warmWorkspaces.put(previous.getName(), previous);
+            evictColdWorkspaces();
+            active = next;
+        }
+        appSettings.set(AppSettings.ACTIVE_WORKSPACE, name);
+        System.out.println("已切换到工作区: " + name);
+        for (CatalogListener listener : catalogListeners) {
+            listener.workspaceChanged(name);
         }
     }
 
-    public void saveCategories(List<ToolCategory> categories) {
-        try {
-            objectMapper.writeValue(new File(DATA_DIR, CATEGORIES_FILE), categories);
-        } catch (IOException e) {
-            System.err.println("Failed to save categories: " + e.getMessage());
+    private Workspace activeWorkspace() {
+        Workspace current = active;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (active == null) {
+                String name = appSettings.get(AppSettings.ACTIVE_WORKSPACE);
+                Path directory = null;
+                try {
+                    directory = workspaceDirectory(name);
+                } catch (IllegalArgumentException e) {
+                    System.err.println("Failed to open workspace " + name + ": " + e.getMessage());
+                }
+                if (directory == null || !Files.isDirectory(directory)) {
+                    // 设置中的工作区已被删除，回到默认工作区
+                    name = DEFAULT_WORKSPACE;
+                    directory = Paths.get(DATA_DIR);
+                }
+                active = openWorkspace(name, directory);
+            }
+            return active;
         }
     }
 
-    private List<ToolCategory> createAndSaveDefaultCategories() {
-        List<ToolCategory> categories = new ArrayList<>();
-
-        ToolCategory devTools = new ToolCategory(
-            "cat-" + System.currentTimeMillis() + "-1",
-            "开发工具",
-            "Java、Python、Node.js等开发相关工具",
-            null
-        );
-        devTools.setSortOrder(1);
-        categories.add(devTools);
-
-        ToolCategory sysTools = new ToolCategory(
-            "cat-" + System.currentTimeMillis() + "-2",
-            "系统工具",
-            "系统管理和维护工具",
-            null
-        );
-        sysTools.setSortOrder(2);
-        categories.add(sysTools);
-
-        ToolCategory netTools = new ToolCategory(
-            "cat-" + System.currentTimeMillis() + "-3",
-            "网络工具",
-            "网络调试和测试工具",
-            null
-        );
-        netTools.setSortOrder(3);
-        categories.add(netTools);
-
-        ToolCategory dbTools = new ToolCategory(
-            "cat-" + System.currentTimeMillis() + "-4",
-            "数据库工具",
-            "数据库管理和操作工具",
-            null
-        );
-        dbTools.setSortOrder(4);
-        categories.add(dbTools);
-
-        saveCategories(categories);
-        return categories;
+    private Workspace openWorkspace(String name, Path directory) {
+        Forwarder forwarder = new Forwarder();
+        Workspace workspace = new Workspace(name, directory, persistenceWriter, appSettings, forwarder);
+        forwarder.source = workspace;
+        if (watching) {
+            workspace.startWatching();
+        }
+        return workspace;
     }
 
-    // 工具管理
-    public List<ToolItem> loadTools() {
-        File file = new File(DATA_DIR, TOOLS_FILE);
-        if (!file.exists()) {
-            return createAndSaveDefaultTools();
+    /**
+     * 释放超出数量的最久未用工作区：停止监听，排队中的写入仍会正常完成，之后对象随之回收
+     */
+    private synchronized void evictColdWorkspaces() {
+        Iterator<Workspace> iterator = warmWorkspaces.values().iterator();
+        while (warmWorkspaces.size() > WARM_WORKSPACES && iterator.hasNext()) {
+            Workspace evicted = iterator.next();
+            iterator.remove();
+            evicted.stopWatching();
+            // 趁数据还在内存中留下快照，下次切回时可以直接读取
+            persistenceWriter.submit(evicted::writeSnapshotNow);
         }
+    }
 
-        try {
-            return objectMapper.readValue(file, new TypeReference<List<ToolItem>>() {});
-        } catch (IOException e) {
-            System.err.println("Failed to load tools: " + e.getMessage());
-            return createAndSaveDefaultTools();
+    private synchronized List<Workspace> loadedWorkspaces() {
+        List<Workspace> workspaces = new ArrayList<>(warmWorkspaces.values());
+        if (active != null) {
+            workspaces.add(active);
+        }
+        return workspaces;
+    }
+
+    private static Path workspaceDirectory(String name) {
+        if (DEFAULT_WORKSPACE.equals(name)) {
+            return Paths.get(DATA_DIR);
+        }
+        if (name == null || name.trim().isEmpty() || name.startsWith(".")) {
+            throw new IllegalArgumentException("工作区名称不合法: " + name);
+        }
+        for (char c : name.toCharArray()) {
+            if (c < ' ' || INVALID_NAME_CHARS.indexOf(c) >= 0) {
+                throw new IllegalArgumentException("工作区名称不能包含字符: " + c);
+            }
+        }
+        return Paths.get(DATA_DIR, WORKSPACES_DIR, name);
+    }
+
+    /**
+     * 只把当前工作区的变化转发给界面，已切走的工作区在后台合并的修改不打扰界面
+     */
+    private final class Forwarder implements CatalogListener {
+        private Workspace source;
+
+        @Override
+        public void environmentsChanged(CatalogChange<Environment> change) {
+            if (source == active) {
+                for (CatalogListener listener : catalogListeners) {
+                    listener.environmentsChanged(change);
+                }
+            }
+        }
+
+        @Override
+        public void categoriesChanged(CatalogChange<ToolCategory> change) {
+            if (source == active) {
+                for (CatalogListener listener : catalogListeners) {
+                    listener.categoriesChanged(change);
+                }
+            }
+        }
+
+        @Override
+        public void toolsChanged(CatalogChange<ToolItem> change) {
+            if (source == active) {
+                for (CatalogListener listener : catalogListeners) {
+                    listener.toolsChanged(change);
+                }
+            }
+        }
+
+        @Override
+        public void launchGroupsChanged(CatalogChange<LaunchGroup> change) {
+            if (source == active) {
+                for (CatalogListener listener : catalogListeners) {
+                    listener.launchGroupsChanged(change);
+                }
+            }
+        }
+
+        @Override
+        public void conflictsDetected(List<String> conflicts) {
+            if (source == active) {
+                for (CatalogListener listener : catalogListeners) {
+                    listener.conflictsDetected(conflicts);
+                }
+            }
         }
     }
 
+    // 只读视图与写入路径
+    /**
+     * 当前工作区发布的环境、分类、工具视图，必要时先加载；之后的读取不需要任何锁
+     * 视图不会随后续修改变化，需要最新数据时重新获取
+     */
+    public Catalog getCatalog() {
+        return activeWorkspace().getCatalog();
+    }
+
+    // 环境管理
+    /**
+     * 返回的列表可自由修改，其中的环境对象与其他线程共享，不应修改，编辑时先复制
+     */
+    public List<Environment> loadEnvironments() {
+        return activeWorkspace().loadEnvironments();
+    }
+
+    public Environment findEnvironmentById(String environmentId) {
+        return activeWorkspace().findEnvironmentById(environmentId);
+    }
+
+    public void saveEnvironments(List<Environment> environments) {
+        activeWorkspace().saveEnvironments(environments);
+    }
+
+    // 分类管理
+    /**
+     * 返回的列表可自由修改，其中的分类对象与其他线程共享，不应修改，编辑时先复制
+     */
+    public List<ToolCategory> loadCategories() {
+        return activeWorkspace().loadCategories();
+    }
+
+    public ToolCategory findCategoryById(String categoryId) {
+        return activeWorkspace().findCategoryById(categoryId);
+    }
+
+    public void saveCategories(List<ToolCategory> categories) {
+        activeWorkspace().saveCategories(categories);
+    }
+
+    // 启动组管理
+    /**
+     * 返回的列表可自由修改，其中的启动组对象与其他线程共享，不应修改，编辑时先复制
+     */
+    public List<LaunchGroup> loadLaunchGroups() {
+        return activeWorkspace().loadLaunchGroups();
+    }
+
+    public LaunchGroup findLaunchGroupById(String launchGroupId) {
+        return activeWorkspace().findLaunchGroupById(launchGroupId);
+    }
+
+    public void saveLaunchGroups(List<LaunchGroup> launchGroups) {
+        activeWorkspace().saveLaunchGroups(launchGroups);
+    }
+
+    // 工具管理
+    /**
+     * 返回的列表可自由修改，其中的工具对象与其他线程共享，不应修改，编辑时先复制
+     */
+    public List<ToolItem> loadTools() {
+        return activeWorkspace().loadTools();
+    }
+
+    public ToolItem findToolById(String toolId) {
+        return activeWorkspace().findToolById(toolId);
+    }
+
+    /**
+     * 流式加载工具：边解析边分批写入仓库并回调，界面可以在大文件解析完成前开始渲染
+     * 应在后台线程调用，回调也在该线程上执行
+     * @return true 表示已回调的批次之后数据又发生了变化（日志重放或回退到整体加载），调用方应整体重新渲染
+     */
+    public boolean streamTools(int batchSize, Consumer<List<ToolItem>> batchListener) {
+        return activeWorkspace().streamTools(batchSize, batchListener);
+    }
+
+    public List<ToolItem> findToolsByCategory(String categoryId) {
+        return activeWorkspace().findToolsByCategory(categoryId);
+    }
+
+    public List<ToolItem> findToolsByEnvironment(String environmentId) {
+        return activeWorkspace().findToolsByEnvironment(environmentId);
+    }
+
     public void saveTools(List<ToolItem> tools) {
+        activeWorkspace().saveTools(tools);
+    }
+
+    public void addTool(ToolItem tool) {
+        activeWorkspace().addTool(tool);
+    }
+
+    public void updateTool(ToolItem tool) {
+        activeWorkspace().updateTool(tool);
+    }
+
+    public void deleteTool(String toolId) {
+        activeWorkspace().deleteTool(toolId);
+    }
+
+    // 外部修改监听
+    /**
+     * 开始监听数据目录，外部程序或共享同一目录的其他实例修改数据后自动合并并通知监听器
+     * 当前和保持加载的工作区各自监听自己的目录，应用设置单独监听
+     */
+    public synchronized void startWatching() {
+        if (watching) {
+            return;
+        }
+        watching = true;
+        activeWorkspace().startWatching();
+        for (Workspace workspace : warmWorkspaces.values()) {
+            workspace.startWatching();
+        }
+        configWatcher = new DataDirectoryWatcher(Paths.get(DATA_DIR), Collections.singleton(APP_CONFIG_FILE),
+                fileNames -> persistenceWriter.submit(() -> {
+                    try {
+                        appSettings.reload(readAppConfig());
+                    } catch (IOException e) {
+                        // 外部程序可能还没写完，等下一次变化事件
+                        System.err.println("Failed to reload app config: " + e.getMessage());
+                    }
+                }));
         try {
-            objectMapper.writeValue(new File(DATA_DIR, TOOLS_FILE), tools);
+            configWatcher.start();
         } catch (IOException e) {
-            System.err.println("Failed to save tools: " + e.getMessage());
+            System.err.println("Failed to watch data directory: " + e.getMessage());
         }
     }
 
-    private List<ToolItem> createAndSaveDefaultTools() {
-        List<ToolItem> tools = new ArrayList<>();
-        List<ToolCategory> categories = loadCategories();
-        List<Environment> environments = loadEnvironments();
+    public void addCatalogListener(CatalogListener listener) {
+        catalogListeners.add(listener);
+    }
 
-        // 示例Java工具 - CLI工具
-        ToolItem mavenTool = new ToolItem();
-        mavenTool.setId("tool-" + System.currentTimeMillis() + "-1");
-        mavenTool.setName("Maven构建");
-        mavenTool.setDescription("Apache Maven项目构建工具");
-        mavenTool.setCategoryId(categories.get(0).getId()); // 开发工具分类
-        if (environments.size() > 0) {
-            mavenTool.setEnvironmentId(environments.get(0).getId()); // Java环境
-        }
-        mavenTool.setCommand("mvn");
-        mavenTool.setArguments("clean install");
-        mavenTool.setWorkingDirectory("");
-        mavenTool.setHasGUI(false); // 命令行工具
-        tools.add(mavenTool);
-
-        // 示例Python工具 - CLI工具
-        ToolItem pipTool = new ToolItem();
-        pipTool.setId("tool-" + System.currentTimeMillis() + "-2");
-        pipTool.setName("Pip包管理");
-        pipTool.setDescription("Python包管理工具");
-        pipTool.setCategoryId(categories.get(0).getId()); // 开发工具分类
-        if (environments.size() > 1) {
-            pipTool.setEnvironmentId(environments.get(1).getId()); // Python环境
-        }
-        pipTool.setCommand("pip3");
-        pipTool.setArguments("list");
-        pipTool.setWorkingDirectory("");
-        pipTool.setHasGUI(false); // 命令行工具
-        tools.add(pipTool);
-
-        // 示例系统工具 - CLI工具
-        ToolItem topTool = new ToolItem();
-        topTool.setId("tool-" + System.currentTimeMillis() + "-3");
-        topTool.setName("进程监控");
-        topTool.setDescription("系统进程监控工具");
-        topTool.setCategoryId(categories.get(1).getId()); // 系统工具分类
-        topTool.setCommand("top");
-        topTool.setArguments("");
-        topTool.setWorkingDirectory("");
-        topTool.setHasGUI(false); // 命令行工具
-        tools.add(topTool);
-
-        // 示例网络工具 - CLI工具
-        ToolItem pingTool = new ToolItem();
-        pingTool.setId("tool-" + System.currentTimeMillis() + "-4");
-        pingTool.setName("网络连通性测试");
-        pingTool.setDescription("测试网络连接状态");
-        pingTool.setCategoryId(categories.get(2).getId()); // 网络工具分类
-        pingTool.setCommand("ping");
-        pingTool.setArguments("www.baidu.com");
-        pingTool.setWorkingDirectory("");
-        pingTool.setHasGUI(false); // 命令行工具
-        tools.add(pingTool);
-
-        // 示例数据库工具 - CLI工具
-        ToolItem mysqlTool = new ToolItem();
-        mysqlTool.setId("tool-" + System.currentTimeMillis() + "-5");
-        mysqlTool.setName("MySQL客户端");
-        mysqlTool.setDescription("MySQL数据库客户端工具");
-        mysqlTool.setCategoryId(categories.get(3).getId()); // 数据库工具分类
-        mysqlTool.setCommand("mysql");
-        mysqlTool.setArguments("-u root -p");
-        mysqlTool.setWorkingDirectory("");
-        mysqlTool.setHasGUI(false); // 命令行工具
-        tools.add(mysqlTool);
-
-        // 示例GUI工具 - GUI工具
-        ToolItem notepadTool = new ToolItem();
-        notepadTool.setId("tool-" + System.currentTimeMillis() + "-6");
-        notepadTool.setName("记事本");
-        notepadTool.setDescription("系统记事本工具");
-        notepadTool.setCategoryId(categories.get(1).getId()); // 系统工具分类
-        notepadTool.setCommand("notepad");
-        notepadTool.setArguments("");
-        notepadTool.setWorkingDirectory("");
-        notepadTool.setHasGUI(true); // GUI工具
-        tools.add(notepadTool);
-
-        saveTools(tools);
-        return tools;
+    public void removeCatalogListener(CatalogListener listener) {
+        catalogListeners.remove(listener);
     }
 
     // 应用配置管理
-    private Map<String, String> loadAppConfig() {
+    /**
+     * 应用设置，首次访问时读取 app_config.json，之后的读取都在内存中完成
+     */
+    public AppSettings getSettings() {
+        return appSettings;
+    }
+
+    /**
+     * GUI工具输出日志所在的目录（data/logs），所有工作区共用
+     */
+    public Path getLogDirectory() {
+        return Paths.get(DATA_DIR, LOGS_DIR);
+    }
+
+    /**
+     * Java 工具的类数据共享存档所在的目录（data/cds），所有工作区共用
+     */
+    public Path getCdsDirectory() {
+        return Paths.get(DATA_DIR, CDS_DIR);
+    }
+
+    private Map<String, String> readAppConfig() throws IOException {
         File file = new File(DATA_DIR, APP_CONFIG_FILE);
         if (!file.exists()) {
             return new HashMap<>();
         }
+        return JsonCodecs.STRING_MAP_READER.readValue(file);
+    }
 
+    private Map<String, String> loadAppConfig() {
         try {
-            return objectMapper.readValue(file, new TypeReference<Map<String, String>>() {});
+            return readAppConfig();
         } catch (IOException e) {
             System.err.println("Failed to load app config: " + e.getMessage());
             return new HashMap<>();
         }
     }
 
-    private void saveAppConfig(Map<String, String> config) {
-        try {
-            objectMapper.writeValue(new File(DATA_DIR, APP_CONFIG_FILE), config);
-        } catch (IOException e) {
-            System.err.println("Failed to save app config: " + e.getMessage());
-        }
-    }
-
     /**
      * 获取应用配置值
      */
     public String getAppConfig(String key) {
-        Map<String, String> config = loadAppConfig();
-        return config.get(key);
+        return appSettings.getRaw(key);
     }
 
     /**
-     * 设置应用配置值
+     * 设置应用配置值，一次修改多项时使用 getSettings().beginBatch()
      */
     public void setAppConfig(String key, String value) {
-        Map<String, String> config = loadAppConfig();
-        config.put(key, value);
-        saveAppConfig(config);
+        appSettings.setRaw(key, value);
     }
-}
\ No newline at end of file
+}
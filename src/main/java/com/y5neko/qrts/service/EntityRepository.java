@@ -0,0 +1,178 @@
+package com.y5neko.qrts.service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+
+/**
+ * 单一实体类型的内存仓库，按ID建立哈希索引，并保持文件中的原始顺序
+ * 自身不做同步，由 DataManager 在对象锁内修改；其他线程通过 snapshot() 发布的只读副本读取
+ */
+public class EntityRepository<T> {
+    private final Function<T, String> idExtractor;
+    // 写入前把实体中重复出现的字段替换为池内实例，为null表示不做处理
+    private final BiConsumer<T, StringPool> interner;
+    private final StringPool stringPool = new StringPool();
+    // 主索引与原始顺序分开保存，都支持只复制改动部分的只读副本
+    private final SegmentedMap<T> byId = new SegmentedMap<>();
+    private final ChunkedList<T> ordered = new ChunkedList<>();
+    private final List<SecondaryIndex<T>> indexes = new ArrayList<>();
+    private boolean loaded = false;
+    // 最近一次生成的只读副本，修改后置为null，下次需要时重新生成
+    private EntitySnapshot<T> snapshot;
+
+    public EntityRepository(Function<T, String> idExtractor) {
+        this(idExtractor, null);
+    }
+
+    /**
+     * @param interner 在 put 时就地规范化实体的字符串字段，只应替换为相等的字符串
+     */
+    EntityRepository(Function<T, String> idExtractor, BiConsumer<T, StringPool> interner) {
+        this.idExtractor = idExtractor;
+        this.interner = interner;
+    }
+
+    /**
+     * 注册一个二级索引，之后的所有写操作都会增量维护它
+     */
+    public SecondaryIndex<T> addIndex(Function<T, String> keyExtractor) {
+        SecondaryIndex<T> index = new SecondaryIndex<>(keyExtractor);
+        for (T entity : ordered.copy()) {
+            index.put(idExtractor.apply(entity), entity);
+        }
+        indexes.add(index);
+        return index;
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    /**
+     * 用给定列表整体替换仓库内容，二级索引只调整发生变化的条目
+     */
+    public void replaceAll(List<T> entities) {
+        if (ordered.size() > 0) {
+            Set<String> newIds = new HashSet<>();
+            if (entities != null) {
+                for (T entity : entities) {
+                    newIds.add(idExtractor.apply(entity));
+                }
+            }
+            for (T entity : ordered.copy()) {
+                String id = idExtractor.apply(entity);
+                if (!newIds.contains(id)) {
+                    for (SecondaryIndex<T> index : indexes) {
+                        index.remove(id);
+                    }
+                }
+            }
+        }
+
+        // 按新列表顺序重建主索引，字符串池也随之重建，不再保留已删除实体的取值
+        byId.clear();
+        ordered.clear();
+        stringPool.clear();
+        if (entities != null) {
+            for (T entity : entities) {
+                put(entity);
+            }
+        }
+        loaded = true;
+        snapshot = null;
+    }
+
+    /**
+     * 分批加载完成后调用，此前通过 put 写入的内容即为完整数据
+     */
+    public void markLoaded() {
+        loaded = true;
+        snapshot = null;
+    }
+
+    /**
+     * 新增或替换单个实体
+     */
+    public void put(T entity) {
+        if (interner != null) {
+            interner.accept(entity, stringPool);
+        }
+        String id = idExtractor.apply(entity);
+        byId.put(id, entity);
+        ordered.put(id, entity);
+        for (SecondaryIndex<T> index : indexes) {
+            index.put(id, entity);
+        }
+        snapshot = null;
+    }
+
+    /**
+     * 删除单个实体，返回被删除的实体（不存在时返回null）
+     */
+    public T remove(String id) {
+        T removed = byId.remove(id);
+        if (removed != null) {
+            ordered.remove(id);
+            for (SecondaryIndex<T> index : indexes) {
+                index.remove(id);
+            }
+            snapshot = null;
+        }
+        return removed;
+    }
+
+    public T findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        return byId.get(id);
+    }
+
+    /**
+     * 返回全部实体的副本列表，调用方可自由排序或增删
+     */
+    public List<T> findAll() {
+        return ordered.copy();
+    }
+
+    public int size() {
+        return ordered.size();
+    }
+
+    /**
+     * 丢弃内存数据，下次访问时重新从磁盘加载
+     */
+    public void invalidate() {
+        byId.clear();
+        ordered.clear();
+        stringPool.clear();
+        for (SecondaryIndex<T> index : indexes) {
+            index.clear();
+        }
+        loaded = false;
+        snapshot = null;
+    }
+
+    /**
+     * 当前内容的只读副本，尚未加载时返回null；没有修改时重复返回同一个对象
+     */
+    public EntitySnapshot<T> snapshot() {
+        if (!loaded) {
+            return null;
+        }
+        if (snapshot == null) {
+            Map<SecondaryIndex<T>, Map<String, List<T>>> indexSnapshots = new HashMap<>();
+            for (SecondaryIndex<T> index : indexes) {
+                indexSnapshots.put(index, index.snapshot());
+            }
+            snapshot = new EntitySnapshot<>(byId.snapshot(), ordered.snapshot(), indexSnapshots);
+        }
+        return snapshot;
+    }
+}
@@ -0,0 +1,47 @@
+package com.y5neko.qrts.service;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * EntityRepository 在某一时刻的只读副本，发布后不再改变，任意线程都可以无锁读取
+ */
+public final class EntitySnapshot<T> {
+    private final Map<String, T> byId;
+    private final List<T> all;
+    private final Map<SecondaryIndex<T>, Map<String, List<T>>> indexes;
+
+    EntitySnapshot(Map<String, T> byId, List<T> all, Map<SecondaryIndex<T>, Map<String, List<T>>> indexes) {
+        this.byId = byId;
+        this.all = all;
+        this.indexes = indexes;
+    }
+
+    public T findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        return byId.get(id);
+    }
+
+    /**
+     * 全部实体，保持文件中的原始顺序，返回的列表不可修改
+     */
+    public List<T> findAll() {
+        return all;
+    }
+
+    /**
+     * 按二级索引查询，返回的列表不可修改
+     */
+    public List<T> find(SecondaryIndex<T> index, String key) {
+        Map<String, List<T>> buckets = indexes.get(index);
+        List<T> result = buckets == null ? null : buckets.get(key);
+        return result == null ? Collections.emptyList() : result;
+    }
+
+    public int size() {
+        return all.size();
+    }
+}
@@ -0,0 +1,232 @@
+package com.y5neko.qrts.service;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 可执行文件的查找与检查，结果按命令字符串缓存
+ * 不含路径分隔符的命令（如 python3、node）在 PATH 中查找；PATH 中任一目录的修改时间变化后这类结果全部作废。
+ * 缓存的结果在短时间内直接返回，之后用一次 stat 比较修改时间和文件标识（inode），没有变化则继续使用
+ */
+public class ExecutableResolver {
+    // 在此间隔内重复查询直接返回缓存结果，不访问文件系统
+    private static final long REVALIDATE_INTERVAL_MS = 1000;
+
+    private static ExecutableResolver instance;
+
+    public enum Status { OK, NOT_FOUND, NOT_FILE, NOT_EXECUTABLE }
+
+    /**
+     * 一次查找的结果
+     */
+    public static final class Resolution {
+        private final Status status;
+        private final String path;
+        private final long modified;
+        private final Object fileKey;
+        private volatile long checkedAt;
+
+        private Resolution(Status status, String path, long modified, Object fileKey) {
+            this.status = status;
+            this.path = path;
+            this.modified = modified;
+            this.fileKey = fileKey;
+        }
+
+        public Status getStatus() { return status; }
+
+        // 找到的文件的完整路径，未找到时为null
+        public String getPath() { return path; }
+
+        public boolean isExecutable() { return status == Status.OK; }
+    }
+
+    private final List<Path> pathDirectories;
+    // 依次尝试的扩展名，Windows 上来自 PATHEXT
+    private final List<String> extensions;
+    private final Map<String, Resolution> cache = new ConcurrentHashMap<>();
+    private volatile long[] pathStamp;
+    private volatile long pathCheckedAt;
+
+    private ExecutableResolver() {
+        pathDirectories = parsePath(System.getenv("PATH"));
+        extensions = File.separatorChar == '\\' ? parsePathExt(System.getenv("PATHEXT")) : Collections.singletonList("");
+        pathStamp = pathStamp();
+        pathCheckedAt = System.currentTimeMillis();
+    }
+
+    public static synchronized ExecutableResolver getInstance() {
+        if (instance == null) {
+            instance = new ExecutableResolver();
+        }
+        return instance;
+    }
+
+    /**
+     * 查找命令对应的文件：含路径的按路径检查，不含路径的在 PATH 中查找
+     */
+    public Resolution resolve(String command) {
+        String key = command.trim();
+        long now = System.currentTimeMillis();
+        boolean bare = isBareName(key);
+        if (bare) {
+            checkPathDirectories(now);
+        }
+        Resolution cached = cache.get(key);
+        if (cached != null && (now - cached.checkedAt < REVALIDATE_INTERVAL_MS || isUnchanged(cached, bare))) {
+            cached.checkedAt = now;
+            return cached;
+        }
+        Resolution fresh = bare ? searchPath(key) : probe(key);
+        fresh.checkedAt = now;
+        cache.put(key, fresh);
+        return fresh;
+    }
+
+    /**
+     * 丢弃所有缓存结果，例如用户修改了环境配置后希望立即重新检查
+     */
+    public void invalidate() {
+        cache.clear();
+    }
+
+    private boolean isUnchanged(Resolution cached, boolean bare) {
+        switch (cached.status) {
+            case NOT_FOUND:
+                // PATH 查找的负结果由目录修改时间负责作废；指定路径的重新 stat 一次
+                return bare || cached.path == null || !Files.exists(Paths.get(cached.path));
+            case NOT_EXECUTABLE:
+                // 权限变化不改变修改时间，重新完整检查
+                return false;
+            default:
+                try {
+                    BasicFileAttributes attributes = Files.readAttributes(Paths.get(cached.path), BasicFileAttributes.class);
+                    return attributes.lastModifiedTime().toMillis() == cached.modified
+                            && Objects.equals(attributes.fileKey(), cached.fileKey);
+                } catch (IOException e) {
+                    return false;
+                }
+        }
+    }
+
+    /**
+     * PATH 中的目录有文件增删时修改时间会变，此时作废所有 PATH 查找结果
+     */
+    private void checkPathDirectories(long now) {
+        if (now - pathCheckedAt < REVALIDATE_INTERVAL_MS) {
+            return;
+        }
+        pathCheckedAt = now;
+        long[] stamp = pathStamp();
+        if (!Arrays.equals(stamp, pathStamp)) {
+            pathStamp = stamp;
+            cache.keySet().removeIf(ExecutableResolver::isBareName);
+        }
+    }
+
+    private long[] pathStamp() {
+        long[] stamp = new long[pathDirectories.size()];
+        for (int i = 0; i < stamp.length; i++) {
+            try {
+                stamp[i] = Files.getLastModifiedTime(pathDirectories.get(i)).toMillis();
+            } catch (IOException e) {
+                stamp[i] = -1;
+            }
+        }
+        return stamp;
+    }
+
+    private Resolution searchPath(String name) {
+        List<String> candidates = new ArrayList<>();
+        if (extensions.size() == 1 || name.indexOf('.') >= 0) {
+            candidates.add(name);
+        }
+        if (extensions.size() > 1) {
+            for (String extension : extensions) {
+                candidates.add(name + extension);
+            }
+        }
+        for (Path directory : pathDirectories) {
+            for (String candidate : candidates) {
+                Resolution resolution = probe(directory.resolve(candidate).toString());
+                if (resolution.status == Status.OK) {
+                    return resolution;
+                }
+            }
+        }
+        return new Resolution(Status.NOT_FOUND, null, 0, null);
+    }
+
+    /**
+     * 一次 stat 取得类型、修改时间和文件标识，再检查执行权限
+     */
+    private static Resolution probe(String file) {
+        Path path;
+        try {
+            path = Paths.get(file).toAbsolutePath();
+        } catch (InvalidPathException e) {
+            return new Resolution(Status.NOT_FOUND, null, 0, null);
+        }
+        BasicFileAttributes attributes;
+        try {
+            attributes = Files.readAttributes(path, BasicFileAttributes.class);
+        } catch (IOException e) {
+            return new Resolution(Status.NOT_FOUND, path.toString(), 0, null);
+        }
+        Status status;
+        if (!attributes.isRegularFile()) {
+            status = Status.NOT_FILE;
+        } else {
+            status = Files.isExecutable(path) ? Status.OK : Status.NOT_EXECUTABLE;
+        }
+        return new Resolution(status, path.toString(), attributes.lastModifiedTime().toMillis(), attributes.fileKey());
+    }
+
+    private static boolean isBareName(String command) {
+        return command.indexOf('/') < 0 && command.indexOf('\\') < 0 && !new File(command).isAbsolute();
+    }
+
+    private static List<Path> parsePath(String path) {
+        List<Path> directories = new ArrayList<>();
+        if (path == null) {
+            return directories;
+        }
+        for (String entry : path.split(File.pathSeparator)) {
+            // Windows 的 PATH 允许用引号括起含分号的目录
+            String directory = entry.replace("\"", "").trim();
+            if (directory.isEmpty()) {
+                continue;
+            }
+            try {
+                directories.add(Paths.get(directory));
+            } catch (InvalidPathException e) {
+                System.err.println("Ignoring invalid PATH entry: " + directory);
+            }
+        }
+        return directories;
+    }
+
+    private static List<String> parsePathExt(String pathExt) {
+        List<String> extensions = new ArrayList<>();
+        String value = pathExt != null ? pathExt : ".COM;.EXE;.BAT;.CMD";
+        for (String extension : value.split(";")) {
+            if (!extension.trim().isEmpty()) {
+                extensions.add(extension.trim().toLowerCase(Locale.ROOT));
+            }
+        }
+        return extensions;
+    }
+}
@@ -0,0 +1,13 @@
+package com.y5neko.qrts.service;
+
+/**
+ * 批量运行中目标状态变化的通知，在批量运行的工作线程上执行，界面需要自行切换到 JavaFX 线程
+ */
+public interface FanOutListener {
+    void targetChanged(FanOutRun.TargetStatus status);
+
+    /**
+     * 全部目标都已结束或被取消
+     */
+    default void finished(FanOutRun run) {}
+}
@@ -0,0 +1,381 @@
+package com.y5neko.qrts.service;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一次批量运行：同一个工具按目标列表逐个替换 {target} 占位符后在有界的线程池上并发运行
+ * 每个目标的输出由操作系统直接写入各自的文件，结束后写入汇总文件 summary.tsv。
+ * 并发数限制同时运行的进程数，速率限制每秒最多启动的进程数（0 表示不限制）
+ */
+public final class FanOutRun {
+    public static final String SUMMARY_FILE = "summary.tsv";
+    private static final int MAX_FILE_NAME_TARGET = 80;
+
+    public enum TargetState { WAITING, RUNNING, SUCCEEDED, FAILED, CANCELLED }
+
+    /**
+     * 一个目标的当前状态
+     */
+    public static final class TargetStatus {
+        private final int index;
+        private final String target;
+        private final TargetState state;
+        private final Integer exitCode;
+        private final long elapsedMillis;
+        private final Path outputFile;
+        private final String message;
+
+        TargetStatus(int index, String target, TargetState state, Integer exitCode, long elapsedMillis, Path outputFile, String message) {
+            this.index = index;
+            this.target = target;
+            this.state = state;
+            this.exitCode = exitCode;
+            this.elapsedMillis = elapsedMillis;
+            this.outputFile = outputFile;
+            this.message = message;
+        }
+
+        // 在目标列表中的位置，从0开始
+        public int getIndex() { return index; }
+
+        public String getTarget() { return target; }
+
+        public TargetState getState() { return state; }
+
+        // 进程正常退出时的退出码，其他情况为null
+        public Integer getExitCode() { return exitCode; }
+
+        // 运行耗时，尚未开始时为0
+        public long getElapsedMillis() { return elapsedMillis; }
+
+        public Path getOutputFile() { return outputFile; }
+
+        // 失败或取消的原因，其他状态为null
+        public String getMessage() { return message; }
+    }
+
+    private static final class Target {
+        final int index;
+        final String target;
+        final Path outputFile;
+        TargetState state = TargetState.WAITING;
+        Integer exitCode;
+        long startedAt;
+        long elapsedMillis;
+        String message;
+        Process process;
+
+        Target(int index, String target, Path outputFile) {
+            this.index = index;
+            this.target = target;
+            this.outputFile = outputFile;
+        }
+    }
+
+    private final String toolName;
+    private final LaunchPlan plan;
+    private final ToolLauncher toolLauncher;
+    private final Path outputDirectory;
+    private final int concurrency;
+    private final long startIntervalNanos;
+    private final int timeoutSeconds;
+    private final FanOutListener listener;
+    private final List<Target> targets = new ArrayList<>();
+    private ExecutorService executor;
+    // 下一个进程最早的启动时间，用于速率限制
+    private long nextStartNanos;
+    private int remaining;
+    private int succeeded;
+    private int failed;
+    private boolean cancelled;
+    private long startTime;
+    private long endTime;
+
+    FanOutRun(LaunchPlan plan, List<String> targets, ToolLauncher toolLauncher, Path outputDirectory,
+              int concurrency, double ratePerSecond, int timeoutSeconds, FanOutListener listener) {
+        this.toolName = plan.getTool().getName();
+        this.plan = plan;
+        this.toolLauncher = toolLauncher;
+        this.outputDirectory = outputDirectory;
+        this.concurrency = Math.max(1, Math.min(concurrency, Math.max(1, targets.size())));
+        this.startIntervalNanos = ratePerSecond > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / ratePerSecond) : 0;
+        this.timeoutSeconds = timeoutSeconds;
+        this.listener = listener;
+        for (int i = 0; i < targets.size(); i++) {
+            String target = targets.get(i);
+            this.targets.add(new Target(i, target, outputDirectory.resolve(outputFileName(i, target))));
+        }
+    }
+
+    /**
+     * 解析目标列表：每行一个目标，忽略空行和 # 开头的注释行，重复的目标只保留第一个
+     */
+    public static List<String> parseTargets(String text) {
+        Set<String> targets = new LinkedHashSet<>();
+        if (text != null) {
+            for (String line : text.split("\\r?\\n")) {
+                String target = line.trim();
+                if (!target.isEmpty() && !target.startsWith("#")) {
+                    targets.add(target);
+                }
+            }
+        }
+        return new ArrayList<>(targets);
+    }
+
+    private static String outputFileName(int index, String target) {
+        String name = target.replaceAll("[^A-Za-z0-9._-]", "_");
+        if (name.length() > MAX_FILE_NAME_TARGET) {
+            name = name.substring(0, MAX_FILE_NAME_TARGET);
+        }
+        return String.format("%04d-%s.log", index + 1, name);
+    }
+
+    public String getToolName() {
+        return toolName;
+    }
+
+    // 各目标的输出文件和 summary.tsv 所在的目录
+    public Path getOutputDirectory() {
+        return outputDirectory;
+    }
+
+    /**
+     * 各目标的当前状态，按目标列表的顺序
+     */
+    public synchronized List<TargetStatus> getStatuses() {
+        List<TargetStatus> statuses = new ArrayList<>(targets.size());
+        for (Target target : targets) {
+            statuses.add(status(target));
+        }
+        return statuses;
+    }
+
+    public int getTargetCount() {
+        return targets.size();
+    }
+
+    public synchronized int getCompletedCount() {
+        return targets.size() - remaining;
+    }
+
+    public synchronized int getSucceededCount() {
+        return succeeded;
+    }
+
+    public synchronized int getFailedCount() {
+        return failed;
+    }
+
+    public synchronized boolean isFinished() {
+        return remaining == 0;
+    }
+
+    /**
+     * 从开始到全部目标结束的耗时，尚未结束时为到目前为止的耗时
+     */
+    public synchronized long getElapsedMillis() {
+        return (remaining == 0 ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    /**
+     * 不再启动尚未开始的目标，并结束正在运行的进程
+     */
+    public void cancel() {
+        List<Target> waiting = new ArrayList<>();
+        List<Process> running = new ArrayList<>();
+        synchronized (this) {
+            if (cancelled || remaining == 0) {
+                return;
+            }
+            cancelled = true;
+            for (Target target : targets) {
+                if (target.state == TargetState.WAITING) {
+                    waiting.add(target);
+                } else if (target.state == TargetState.RUNNING && target.process != null) {
+                    running.add(target.process);
+                }
+            }
+        }
+        for (Target target : waiting) {
+            complete(target, TargetState.CANCELLED, null, "已取消");
+        }
+        for (Process process : running) {
+            process.destroyForcibly();
+        }
+        executor.shutdownNow();
+    }
+
+    void start() {
+        executor = Executors.newFixedThreadPool(concurrency, r -> {
+            Thread thread = new Thread(r, "qrts-fan-out");
+            thread.setDaemon(true);
+            return thread;
+        });
+        synchronized (this) {
+            startTime = System.currentTimeMillis();
+            nextStartNanos = System.nanoTime();
+            remaining = targets.size();
+            if (remaining == 0) {
+                finish();
+                return;
+            }
+            for (Target target : targets) {
+                executor.execute(() -> run(target));
+            }
+        }
+    }
+
+    /**
+     * 在工作线程上执行：按速率限制等待后运行一个目标直到进程退出
+     */
+    private void run(Target target) {
+        Process process;
+        try {
+            awaitStartSlot();
+            synchronized (this) {
+                if (cancelled || target.state != TargetState.WAITING) {
+                    return;
+                }
+                target.state = TargetState.RUNNING;
+                target.startedAt = System.currentTimeMillis();
+            }
+            LaunchPlan targetPlan = plan.forTarget(target.target);
+            File workDir = targetPlan.getWorkingDirectory();
+            if (workDir != null && !workDir.isDirectory()) {
+                workDir = null;
+            }
+            process = toolLauncher.startProcess(targetPlan, workDir, ProcessBuilder.Redirect.to(target.outputFile.toFile()));
+        } catch (InterruptedException e) {
+            complete(target, TargetState.CANCELLED, null, "已取消");
+            return;
+        } catch (IOException e) {
+            complete(target, TargetState.FAILED, null, "启动失败: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            // 启动期间被取消时 cancel 看不到这个进程，由这里结束
+            if (cancelled) {
+                process.destroyForcibly();
+            } else {
+                target.process = process;
+                fire(target);
+            }
+        }
+
+        try {
+            boolean exited;
+            if (timeoutSeconds > 0) {
+                exited = process.waitFor(timeoutSeconds, TimeUnit.SECONDS);
+            } else {
+                process.waitFor();
+                exited = true;
+            }
+            if (!exited) {
+                process.destroyForcibly();
+                complete(target, TargetState.FAILED, null, "运行超时（" + timeoutSeconds + " 秒）");
+            } else if (isCancelled()) {
+                complete(target, TargetState.CANCELLED, null, "已取消");
+            } else {
+                int exitCode = process.exitValue();
+                complete(target, exitCode == 0 ? TargetState.SUCCEEDED : TargetState.FAILED, exitCode,
+                        exitCode == 0 ? null : "退出码 " + exitCode);
+            }
+        } catch (InterruptedException e) {
+            process.destroyForcibly();
+            complete(target, TargetState.CANCELLED, null, "已取消");
+        }
+    }
+
+    /**
+     * 速率限制：相邻两个进程的启动时间至少间隔 1/rate 秒
+     */
+    private void awaitStartSlot() throws InterruptedException {
+        if (startIntervalNanos == 0) {
+            return;
+        }
+        long slot;
+        synchronized (this) {
+            slot = Math.max(System.nanoTime(), nextStartNanos);
+            nextStartNanos = slot + startIntervalNanos;
+        }
+        long delay = slot - System.nanoTime();
+        if (delay > 0) {
+            TimeUnit.NANOSECONDS.sleep(delay);
+        }
+    }
+
+    private synchronized boolean isCancelled() {
+        return cancelled;
+    }
+
+    private synchronized void complete(Target target, TargetState state, Integer exitCode, String message) {
+        if (target.state != TargetState.WAITING && target.state != TargetState.RUNNING) {
+            return;
+        }
+        target.state = state;
+        target.exitCode = exitCode;
+        target.message = message;
+        target.process = null;
+        if (target.startedAt != 0) {
+            target.elapsedMillis = System.currentTimeMillis() - target.startedAt;
+        }
+        if (state == TargetState.SUCCEEDED) {
+            succeeded++;
+        } else if (state == TargetState.FAILED) {
+            failed++;
+        }
+        remaining--;
+        fire(target);
+        if (remaining == 0) {
+            finish();
+        }
+    }
+
+    private void finish() {
+        endTime = System.currentTimeMillis();
+        executor.shutdown();
+        writeSummary();
+        if (listener != null) {
+            listener.finished(this);
+        }
+    }
+
+    /**
+     * 汇总文件：每行一个目标，依次为目标、状态、退出码、耗时(ms)、输出文件名
+     */
+    private void writeSummary() {
+        try (BufferedWriter writer = Files.newBufferedWriter(outputDirectory.resolve(SUMMARY_FILE), StandardCharsets.UTF_8)) {
+            writer.write("target\tstate\texit\tms\toutput\n");
+            for (Target target : targets) {
+                writer.write(target.target.replace('\t', ' ') + "\t" + target.state + "\t" + (target.exitCode != null ? target.exitCode : "")
+                        + "\t" + target.elapsedMillis + "\t" + target.outputFile.getFileName() + "\n");
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to write fan-out summary: " + e.getMessage());
+        }
+    }
+
+    private void fire(Target target) {
+        if (listener != null) {
+            listener.targetChanged(status(target));
+        }
+    }
+
+    private static TargetStatus status(Target target) {
+        return new TargetStatus(target.index, target.target, target.state, target.exitCode, target.elapsedMillis,
+                target.outputFile, target.message);
+    }
+}
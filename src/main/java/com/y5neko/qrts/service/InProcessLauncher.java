@@ -0,0 +1,427 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.PrintStream;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.Permission;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * 在本程序的 JVM 中运行 jar 工具（Environment.inProcess），省去启动新 JVM 的时间和内存
+ * 每次运行使用新的类加载器，运行结束后关闭，两次运行之间不共享工具的类和静态状态。
+ * System.out/err/in 按线程转发到各次运行自己的流，System.exit 通过 SecurityManager 拦截并作为该次运行的退出码。
+ * 只支持没有 JVM 选项的 "-jar 文件" 和 "-cp 类路径 主类"；JVM 不允许安装 SecurityManager 时不可用
+ */
+final class InProcessLauncher {
+    // 本启动器创建的主线程所属的运行
+    private static final ThreadLocal<InProcessProcess> CONTEXT = new ThreadLocal<>();
+
+    /**
+     * 一次运行的线程组，工具自己创建的线程默认也在组内，据此找到所属的运行
+     */
+    private static final class RunThreadGroup extends ThreadGroup {
+        final InProcessProcess process;
+
+        RunThreadGroup(InProcessProcess process) {
+            super("qrts-inprocess");
+            this.process = process;
+        }
+    }
+
+    /**
+     * System.exit 被拦截时抛出，使工具的调用栈退出
+     */
+    private static final class ExitTrappedException extends SecurityException {
+        private static final long serialVersionUID = 1L;
+
+        ExitTrappedException(int status) {
+            super("System.exit(" + status + ") intercepted");
+        }
+    }
+
+    /**
+     * 只拦截工具线程的 System.exit，其他检查全部放行
+     */
+    @SuppressWarnings("removal")
+    private static final class ExitTrap extends SecurityManager {
+        @Override
+        public void checkPermission(Permission perm) {
+        }
+
+        @Override
+        public void checkPermission(Permission perm, Object context) {
+        }
+
+        @Override
+        public void checkExit(int status) {
+            InProcessProcess owner = currentRun();
+            if (owner != null) {
+                owner.finish(status);
+                throw new ExitTrappedException(status);
+            }
+        }
+    }
+
+    /**
+     * 一次运行的类加载器，以及 -jar 时从清单中读到的主类
+     */
+    private static final class ToolLoader {
+        final URLClassLoader loader;
+        final String mainClass;
+
+        ToolLoader(URLClassLoader loader, String mainClass) {
+            this.loader = loader;
+            this.mainClass = mainClass;
+        }
+    }
+
+    // null表示尚未尝试安装，之后为是否可用
+    private Boolean available;
+
+    /**
+     * 在本 JVM 中运行计划中的工具
+     * @param workingDirectory 用于解析相对的 jar 路径和类路径；工具内的相对路径仍按本程序的工作目录解析
+     * @return 环境未启用、参数形式不支持或无法拦截 System.exit 时返回null
+     */
+    Process start(LaunchPlan plan, File workingDirectory) throws IOException {
+        Environment environment = plan.getEnvironment();
+        if (!environment.isInProcess() || !"java".equalsIgnoreCase(environment.getType())) {
+            return null;
+        }
+        List<String> argv = plan.getArgv();
+        // JVM 选项无法作用于已经运行的 JVM，有选项时照常启动新进程
+        if (WarmProcessPool.toolStart("java", argv) != 1) {
+            return null;
+        }
+        String classPath;
+        String mainClass;
+        int rest;
+        if (argv.get(1).equals("-jar")) {
+            classPath = argv.get(2);
+            mainClass = null;
+            rest = 3;
+        } else if (WarmJavaMain.CLASS_PATH_OPTIONS.contains(argv.get(1))) {
+            classPath = argv.get(2);
+            mainClass = argv.get(3);
+            rest = 4;
+        } else {
+            return null;
+        }
+        if (!installHooks()) {
+            return null;
+        }
+
+        List<File> entries = new ArrayList<>();
+        for (String entry : classPath.split(File.pathSeparator)) {
+            File file = new File(entry.isEmpty() ? "." : entry);
+            entries.add(file.isAbsolute() || workingDirectory == null ? file : new File(workingDirectory, entry));
+        }
+        ToolLoader toolLoader = createLoader(entries, mainClass == null);
+        String[] args = argv.subList(rest, argv.size()).toArray(new String[0]);
+        String main = mainClass != null ? mainClass : toolLoader.mainClass;
+
+        InProcessProcess process = new InProcessProcess();
+        ThreadGroup group = new RunThreadGroup(process);
+        process.setThreads(group);
+        Thread thread = new Thread(group, () -> run(process, toolLoader, main, args), "qrts-inprocess-main");
+        thread.setContextClassLoader(toolLoader.loader);
+        thread.start();
+        return process;
+    }
+
+    private static void run(InProcessProcess process, ToolLoader toolLoader, String mainClass, String[] args) {
+        CONTEXT.set(process);
+        int exitCode = 0;
+        try {
+            Method main = Class.forName(mainClass, true, toolLoader.loader).getMethod("main", String[].class);
+            main.invoke(null, (Object) args);
+            // 与 JVM 一样，等工具启动的非守护线程结束后才算结束
+            waitForToolThreads(Thread.currentThread().getThreadGroup());
+        } catch (InvocationTargetException e) {
+            if (!(e.getCause() instanceof ExitTrappedException)) {
+                e.getCause().printStackTrace();
+                exitCode = 1;
+            }
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // 在类初始化中调用 System.exit 也会到这里，此时退出码已经记录，下面的 finish 不再生效
+            System.err.println("Error: could not run main class " + mainClass + ": " + e);
+            exitCode = 1;
+        } finally {
+            process.finish(exitCode);
+            CONTEXT.remove();
+            closeQuietly(toolLoader.loader);
+        }
+    }
+
+    /**
+     * 当前线程所属的运行：本启动器创建的主线程直接记录，工具创建的线程按所在的线程组查找；不属于任何运行时为null
+     */
+    private static InProcessProcess currentRun() {
+        InProcessProcess owner = CONTEXT.get();
+        if (owner != null) {
+            return owner;
+        }
+        for (ThreadGroup group = Thread.currentThread().getThreadGroup(); group != null; group = group.getParent()) {
+            if (group instanceof RunThreadGroup) {
+                return ((RunThreadGroup) group).process;
+            }
+        }
+        return null;
+    }
+
+    private static void waitForToolThreads(ThreadGroup group) {
+        Thread current = Thread.currentThread();
+        while (true) {
+            Thread[] threads = new Thread[group.activeCount() + 8];
+            int count = group.enumerate(threads);
+            Thread pending = null;
+            for (int i = 0; i < count && pending == null; i++) {
+                if (threads[i] != current && !threads[i].isDaemon()) {
+                    pending = threads[i];
+                }
+            }
+            if (pending == null) {
+                return;
+            }
+            try {
+                pending.join();
+            } catch (InterruptedException e) {
+                // 运行已结束（System.exit 或 destroy），不再等待
+                return;
+            }
+        }
+    }
+
+    private static ToolLoader createLoader(List<File> entries, boolean jar) throws IOException {
+        List<URL> urls = new ArrayList<>();
+        for (File entry : entries) {
+            urls.add(entry.getAbsoluteFile().toURI().toURL());
+        }
+        String mainClass = null;
+        if (jar) {
+            File file = entries.get(0).getAbsoluteFile();
+            try (JarFile jarFile = new JarFile(file)) {
+                Manifest manifest = jarFile.getManifest();
+                Attributes attributes = manifest != null ? manifest.getMainAttributes() : new Attributes();
+                mainClass = attributes.getValue(Attributes.Name.MAIN_CLASS);
+                if (mainClass == null) {
+                    throw new IOException("no main manifest attribute, in " + file);
+                }
+                String manifestClassPath = attributes.getValue(Attributes.Name.CLASS_PATH);
+                if (manifestClassPath != null) {
+                    URL base = file.getParentFile().toURI().toURL();
+                    for (String entry : manifestClassPath.trim().split("\\s+")) {
+                        if (!entry.isEmpty()) {
+                            urls.add(new URL(base, entry));
+                        }
+                    }
+                }
+            }
+        }
+        // 父加载器是平台（扩展）类加载器，本程序的类对工具不可见
+        URLClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent());
+        return new ToolLoader(loader, mainClass);
+    }
+
+    private static void closeQuietly(URLClassLoader loader) {
+        try {
+            loader.close();
+        } catch (IOException e) {
+            System.err.println("Failed to close class loader: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 首次使用时安装按线程转发的标准流和 System.exit 拦截；已有其他 SecurityManager 或 JVM 禁止安装时不可用
+     */
+    private synchronized boolean installHooks() {
+        if (available != null) {
+            return available;
+        }
+        if (!installExitTrap()) {
+            available = false;
+            return false;
+        }
+        System.setOut(new ForwardingPrintStream(System.out, false));
+        System.setErr(new ForwardingPrintStream(System.err, true));
+        System.setIn(new ForwardingInput(System.in));
+        available = true;
+        return true;
+    }
+
+    /**
+     * SecurityManager 已标记为待移除，对它的调用只集中在这里和 ExitTrap
+     */
+    @SuppressWarnings("removal")
+    private static boolean installExitTrap() {
+        if (System.getSecurityManager() != null) {
+            return false;
+        }
+        try {
+            System.setSecurityManager(new ExitTrap());
+            return true;
+        } catch (UnsupportedOperationException | SecurityException e) {
+            System.err.println("In-process launch unavailable: " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 工具线程的输出交给该次运行自己的 PrintStream，其他线程写入原来的流
+     * 在 PrintStream 这一层分派：每个方法整体转交给目标流，锁的是目标流，工具写满管道等待时不会挡住其他线程的输出
+     */
+    private static final class ForwardingPrintStream extends PrintStream {
+        private final PrintStream fallback;
+        private final boolean error;
+
+        ForwardingPrintStream(PrintStream fallback, boolean error) {
+            super(fallback, true);
+            this.fallback = fallback;
+            this.error = error;
+        }
+
+        private PrintStream target() {
+            InProcessProcess owner = currentRun();
+            if (owner == null) {
+                return fallback;
+            }
+            return error ? owner.toolErr() : owner.toolOut();
+        }
+
+        @Override
+        public void flush() { target().flush(); }
+
+        @Override
+        public void close() { target().close(); }
+
+        @Override
+        public boolean checkError() { return target().checkError(); }
+
+        @Override
+        public void write(int b) { target().write(b); }
+
+        @Override
+        public void write(byte[] buf, int off, int len) { target().write(buf, off, len); }
+
+        @Override
+        public void write(byte[] buf) throws IOException { target().write(buf); }
+
+        @Override
+        public void print(boolean b) { target().print(b); }
+
+        @Override
+        public void print(char c) { target().print(c); }
+
+        @Override
+        public void print(int i) { target().print(i); }
+
+        @Override
+        public void print(long l) { target().print(l); }
+
+        @Override
+        public void print(float f) { target().print(f); }
+
+        @Override
+        public void print(double d) { target().print(d); }
+
+        @Override
+        public void print(char[] s) { target().print(s); }
+
+        @Override
+        public void print(String s) { target().print(s); }
+
+        @Override
+        public void print(Object obj) { target().print(obj); }
+
+        @Override
+        public void println() { target().println(); }
+
+        @Override
+        public void println(boolean x) { target().println(x); }
+
+        @Override
+        public void println(char x) { target().println(x); }
+
+        @Override
+        public void println(int x) { target().println(x); }
+
+        @Override
+        public void println(long x) { target().println(x); }
+
+        @Override
+        public void println(float x) { target().println(x); }
+
+        @Override
+        public void println(double x) { target().println(x); }
+
+        @Override
+        public void println(char[] x) { target().println(x); }
+
+        @Override
+        public void println(String x) { target().println(x); }
+
+        @Override
+        public void println(Object x) { target().println(x); }
+
+        @Override
+        public PrintStream printf(String format, Object... args) { target().printf(format, args); return this; }
+
+        @Override
+        public PrintStream printf(Locale l, String format, Object... args) { target().printf(l, format, args); return this; }
+
+        @Override
+        public PrintStream format(String format, Object... args) { target().format(format, args); return this; }
+
+        @Override
+        public PrintStream format(Locale l, String format, Object... args) { target().format(l, format, args); return this; }
+
+        @Override
+        public PrintStream append(CharSequence csq) { target().append(csq); return this; }
+
+        @Override
+        public PrintStream append(CharSequence csq, int start, int end) { target().append(csq, start, end); return this; }
+
+        @Override
+        public PrintStream append(char c) { target().append(c); return this; }
+    }
+
+    private static final class ForwardingInput extends InputStream {
+        private final InputStream fallback;
+
+        ForwardingInput(InputStream fallback) {
+            this.fallback = fallback;
+        }
+
+        private InputStream source() {
+            InProcessProcess owner = currentRun();
+            return owner != null ? owner.toolInput() : fallback;
+        }
+
+        @Override
+        public int read() throws IOException {
+            return source().read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            return source().read(b, off, len);
+        }
+
+        @Override
+        public int available() throws IOException {
+            return source().available();
+        }
+    }
+}
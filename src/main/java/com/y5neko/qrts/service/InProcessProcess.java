@@ -0,0 +1,228 @@
+package com.y5neko.qrts.service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在本程序的 JVM 中运行的工具，以 Process 的形式交给虚拟终端和进程监控使用
+ * 标准输出和错误输出合并到 getInputStream；结束时只能中断工具的线程，不理会中断的线程会继续运行
+ */
+final class InProcessProcess extends Process {
+    // 与 SIGTERM 结束的进程一致
+    private static final int DESTROYED_EXIT_CODE = 143;
+    private static final int PIPE_BUFFER = 64 * 1024;
+
+    private final Pipe output = new Pipe();
+    private final Pipe input = new Pipe();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    // 每次运行自己的 System.out/System.err：写满管道而等待时只锁住这次运行的流，不影响本程序其他线程的输出
+    private final PrintStream toolOut = new PrintStream(output.sink, true);
+    private final PrintStream toolErr = new PrintStream(output.sink, true);
+    private volatile ThreadGroup threads;
+    private volatile int exitCode;
+
+    void setThreads(ThreadGroup threads) {
+        this.threads = threads;
+    }
+
+    // 工具一侧：System.out 和 System.err，都写入输出管道
+    PrintStream toolOut() {
+        return toolOut;
+    }
+
+    PrintStream toolErr() {
+        return toolErr;
+    }
+
+    // 工具一侧：System.in 从这里读取
+    InputStream toolInput() {
+        return input.source;
+    }
+
+    /**
+     * 工具结束：main 返回、调用了 System.exit 或被 destroy，只有第一次调用生效
+     * 中断工具的全部线程：System.exit 只让调用它的线程退出，其他线程（包括吞掉了拦截异常的 main）需要中断才会结束
+     */
+    void finish(int code) {
+        synchronized (finished) {
+            if (finished.getCount() == 0) {
+                return;
+            }
+            exitCode = code;
+            finished.countDown();
+        }
+        output.closeWriter();
+        input.closeReader();
+        ThreadGroup group = threads;
+        if (group != null) {
+            group.interrupt();
+        }
+    }
+
+    @Override
+    public OutputStream getOutputStream() {
+        return input.sink;
+    }
+
+    @Override
+    public InputStream getInputStream() {
+        return output.source;
+    }
+
+    @Override
+    public InputStream getErrorStream() {
+        // 错误输出已合并到标准输出
+        return new InputStream() {
+            @Override
+            public int read() {
+                return -1;
+            }
+        };
+    }
+
+    @Override
+    public int waitFor() throws InterruptedException {
+        finished.await();
+        return exitCode;
+    }
+
+    @Override
+    public boolean waitFor(long timeout, TimeUnit unit) throws InterruptedException {
+        return finished.await(timeout, unit);
+    }
+
+    @Override
+    public int exitValue() {
+        if (finished.getCount() != 0) {
+            throw new IllegalThreadStateException("process hasn't exited");
+        }
+        return exitCode;
+    }
+
+    @Override
+    public boolean isAlive() {
+        return finished.getCount() != 0;
+    }
+
+    @Override
+    public void destroy() {
+        finish(DESTROYED_EXIT_CODE);
+    }
+
+    /**
+     * 有界的字节管道，写满时写入方等待；任一端关闭后另一端得到结束或异常，不会一直阻塞
+     */
+    private static final class Pipe {
+        private final byte[] buffer = new byte[PIPE_BUFFER];
+        private int head;
+        private int count;
+        private boolean writerClosed;
+        private boolean readerClosed;
+
+        final InputStream source = new InputStream() {
+            @Override
+            public int read() throws IOException {
+                byte[] single = new byte[1];
+                return Pipe.this.read(single, 0, 1) < 0 ? -1 : single[0] & 0xFF;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                return Pipe.this.read(b, off, len);
+            }
+
+            @Override
+            public int available() {
+                return Pipe.this.available();
+            }
+
+            @Override
+            public void close() {
+                closeReader();
+            }
+        };
+
+        final OutputStream sink = new OutputStream() {
+            @Override
+            public void write(int b) throws IOException {
+                Pipe.this.write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                Pipe.this.write(b, off, len);
+            }
+
+            @Override
+            public void close() {
+                closeWriter();
+            }
+        };
+
+        synchronized void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (readerClosed || writerClosed) {
+                    throw new IOException("Pipe closed");
+                }
+                if (count == buffer.length) {
+                    await();
+                    continue;
+                }
+                int tail = (head + count) % buffer.length;
+                int n = Math.min(len, Math.min(buffer.length - count, buffer.length - tail));
+                System.arraycopy(b, off, buffer, tail, n);
+                count += n;
+                off += n;
+                len -= n;
+                notifyAll();
+            }
+        }
+
+        synchronized int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            while (count == 0) {
+                if (writerClosed || readerClosed) {
+                    return -1;
+                }
+                await();
+            }
+            int n = Math.min(len, Math.min(count, buffer.length - head));
+            System.arraycopy(buffer, head, b, off, n);
+            head = (head + n) % buffer.length;
+            count -= n;
+            notifyAll();
+            return n;
+        }
+
+        synchronized int available() {
+            return count;
+        }
+
+        synchronized void closeWriter() {
+            writerClosed = true;
+            notifyAll();
+        }
+
+        synchronized void closeReader() {
+            readerClosed = true;
+            count = 0;
+            notifyAll();
+        }
+
+        private void await() throws InterruptedIOException {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException();
+            }
+        }
+    }
+}
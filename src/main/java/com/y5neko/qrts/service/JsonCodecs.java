@@ -0,0 +1,82 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 全部持久化共用的 ObjectMapper 以及按类型预先创建的 ObjectReader/ObjectWriter
+ * 模型类使用 ModelCodecs 中的手写编解码器；读写器线程安全，创建一次后到处复用
+ */
+public final class JsonCodecs {
+    private static final ObjectMapper MAPPER = new ObjectMapper().registerModule(new ModelCodecs());
+
+    public static final ObjectReader TOOL_READER = MAPPER.readerFor(ToolItem.class);
+    public static final ObjectReader TOOL_LIST_READER = MAPPER.readerFor(new TypeReference<List<ToolItem>>() {});
+    public static final ObjectWriter TOOL_LIST_WRITER = MAPPER.writerFor(new TypeReference<List<ToolItem>>() {});
+    public static final ObjectReader ENVIRONMENT_LIST_READER = MAPPER.readerFor(new TypeReference<List<Environment>>() {});
+    public static final ObjectWriter ENVIRONMENT_LIST_WRITER = MAPPER.writerFor(new TypeReference<List<Environment>>() {});
+    public static final ObjectReader CATEGORY_LIST_READER = MAPPER.readerFor(new TypeReference<List<ToolCategory>>() {});
+    public static final ObjectWriter CATEGORY_LIST_WRITER = MAPPER.writerFor(new TypeReference<List<ToolCategory>>() {});
+    public static final ObjectReader LAUNCH_GROUP_LIST_READER = MAPPER.readerFor(new TypeReference<List<LaunchGroup>>() {});
+    public static final ObjectWriter LAUNCH_GROUP_LIST_WRITER = MAPPER.writerFor(new TypeReference<List<LaunchGroup>>() {});
+
+    // app_config.json
+    public static final ObjectReader STRING_MAP_READER = MAPPER.readerFor(new TypeReference<Map<String, String>>() {});
+    public static final ObjectWriter STRING_MAP_WRITER = MAPPER.writerFor(new TypeReference<Map<String, String>>() {});
+    // 分类折叠状态
+    public static final ObjectReader BOOLEAN_MAP_READER = MAPPER.readerFor(new TypeReference<Map<String, Boolean>>() {});
+    public static final ObjectWriter BOOLEAN_MAP_WRITER = MAPPER.writerFor(new TypeReference<Map<String, Boolean>>() {});
+    // 工具分片清单
+    public static final ObjectReader CHECKSUM_MAP_READER = MAPPER.readerFor(new TypeReference<TreeMap<String, Long>>() {});
+    public static final ObjectWriter CHECKSUM_MAP_WRITER = MAPPER.writerFor(new TypeReference<Map<String, Long>>() {});
+
+    private static final Map<Class<?>, ObjectReader> LIST_READERS = new HashMap<>();
+    private static final Map<Class<?>, ObjectWriter> LIST_WRITERS = new HashMap<>();
+
+    static {
+        LIST_READERS.put(ToolItem.class, TOOL_LIST_READER);
+        LIST_READERS.put(Environment.class, ENVIRONMENT_LIST_READER);
+        LIST_READERS.put(ToolCategory.class, CATEGORY_LIST_READER);
+        LIST_READERS.put(LaunchGroup.class, LAUNCH_GROUP_LIST_READER);
+        LIST_WRITERS.put(ToolItem.class, TOOL_LIST_WRITER);
+        LIST_WRITERS.put(Environment.class, ENVIRONMENT_LIST_WRITER);
+        LIST_WRITERS.put(ToolCategory.class, CATEGORY_LIST_WRITER);
+        LIST_WRITERS.put(LaunchGroup.class, LAUNCH_GROUP_LIST_WRITER);
+    }
+
+    private JsonCodecs() {}
+
+    /**
+     * 共享的 ObjectMapper，用于树模型等没有专用读写器的场合，不要修改其配置
+     */
+    public static ObjectMapper mapper() {
+        return MAPPER;
+    }
+
+    public static ObjectReader listReader(Class<?> type) {
+        ObjectReader reader = LIST_READERS.get(type);
+        if (reader == null) {
+            throw new IllegalArgumentException("No list reader for " + type.getName());
+        }
+        return reader;
+    }
+
+    public static ObjectWriter listWriter(Class<?> type) {
+        ObjectWriter writer = LIST_WRITERS.get(type);
+        if (writer == null) {
+            throw new IllegalArgumentException("No list writer for " + type.getName());
+        }
+        return writer;
+    }
+}
@@ -0,0 +1,13 @@
+package com.y5neko.qrts.service;
+
+/**
+ * 启动组中成员状态变化的通知，在启动组的工作线程上执行，界面需要自行切换到 JavaFX 线程
+ */
+public interface LaunchGroupListener {
+    void memberChanged(LaunchGroupRun.MemberStatus status);
+
+    /**
+     * 全部成员都已就绪、失败或被跳过
+     */
+    default void finished(LaunchGroupRun run) {}
+}
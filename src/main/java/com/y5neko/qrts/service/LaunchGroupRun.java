@@ -0,0 +1,464 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.LaunchGroupMember;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * 一次启动组的运行：按依赖关系并发启动成员
+ * 依赖都已就绪的成员立即交给有界的线程池启动，线程在成员就绪（或失败）前一直占用，
+ * 因此 maxParallel 限制的是同时处于启动中的成员数。成员失败时，直接或间接依赖它的成员被跳过。
+ * 启动的进程登记到 ProcessSupervisor，与逐个启动的工具一样显示在状态栏中
+ */
+public final class LaunchGroupRun {
+    // 没有就绪输出的成员：进程启动后仍在运行这么久即视为就绪
+    private static final long READY_SETTLE_MS = 500;
+    // 有就绪输出的成员退出后，再等待这么久以读完最后的输出
+    private static final long EXIT_OUTPUT_GRACE_MS = 500;
+    private static final long READY_POLL_MS = 50;
+
+    public enum MemberState { WAITING, STARTING, READY, FAILED, SKIPPED }
+
+    /**
+     * 一个成员的当前状态
+     */
+    public static final class MemberStatus {
+        private final String toolId;
+        private final String toolName;
+        private final MemberState state;
+        private final String message;
+
+        MemberStatus(String toolId, String toolName, MemberState state, String message) {
+            this.toolId = toolId;
+            this.toolName = toolName;
+            this.state = state;
+            this.message = message;
+        }
+
+        public String getToolId() { return toolId; }
+
+        public String getToolName() { return toolName; }
+
+        public MemberState getState() { return state; }
+
+        // 失败或跳过的原因，其他状态为null
+        public String getMessage() { return message; }
+    }
+
+    private static final class Node {
+        final LaunchGroupMember member;
+        final ToolItem tool;
+        final List<Node> dependents = new ArrayList<>();
+        int pendingDependencies;
+        MemberState state = MemberState.WAITING;
+        String message;
+
+        Node(LaunchGroupMember member, ToolItem tool) {
+            this.member = member;
+            this.tool = tool;
+        }
+
+        String name() {
+            return tool != null ? tool.getName() : member.getToolId();
+        }
+    }
+
+    private final LaunchGroup group;
+    private final ToolLauncher toolLauncher;
+    private final DataManager dataManager;
+    private final ProcessSupervisor processSupervisor;
+    private final LaunchGroupListener listener;
+    // 工具ID -> 成员，按组内顺序
+    private final Map<String, Node> nodes = new LinkedHashMap<>();
+    private ExecutorService executor;
+    private int remaining;
+    private boolean cancelled;
+    private long startTime;
+    private long endTime;
+
+    LaunchGroupRun(LaunchGroup group, ToolLauncher toolLauncher, DataManager dataManager,
+                   ProcessSupervisor processSupervisor, LaunchGroupListener listener) {
+        this.group = new LaunchGroup(group);
+        this.toolLauncher = toolLauncher;
+        this.dataManager = dataManager;
+        this.processSupervisor = processSupervisor;
+        this.listener = listener;
+    }
+
+    public LaunchGroup getGroup() {
+        return group;
+    }
+
+    /**
+     * 各成员的当前状态，按组内顺序
+     */
+    public synchronized List<MemberStatus> getStatuses() {
+        List<MemberStatus> statuses = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            statuses.add(status(node));
+        }
+        return statuses;
+    }
+
+    public synchronized boolean isFinished() {
+        return remaining == 0;
+    }
+
+    /**
+     * 从开始到全部成员结束的耗时，尚未结束时为到目前为止的耗时
+     */
+    public synchronized long getElapsedMillis() {
+        return (remaining == 0 ? endTime : System.currentTimeMillis()) - startTime;
+    }
+
+    /**
+     * 不再启动尚未开始的成员，正在等待就绪的成员标记为失败；已启动的进程不受影响
+     */
+    public void cancel() {
+        List<Node> waiting = new ArrayList<>();
+        synchronized (this) {
+            if (cancelled || remaining == 0) {
+                return;
+            }
+            cancelled = true;
+            for (Node node : nodes.values()) {
+                if (node.state == MemberState.WAITING) {
+                    waiting.add(node);
+                }
+            }
+        }
+        for (Node node : waiting) {
+            complete(node, MemberState.SKIPPED, "已取消");
+        }
+        // 中断等待就绪的线程
+        executor.shutdownNow();
+    }
+
+    void start() {
+        for (LaunchGroupMember member : group.getMembers()) {
+            if (member.getToolId() != null && !nodes.containsKey(member.getToolId())) {
+                nodes.put(member.getToolId(), new Node(member, dataManager.findToolById(member.getToolId())));
+            }
+        }
+        for (Node node : nodes.values()) {
+            for (String dependency : node.member.getDependsOn()) {
+                Node required = nodes.get(dependency);
+                // 不在组内的依赖忽略
+                if (required != null && required != node && !required.dependents.contains(node)) {
+                    required.dependents.add(node);
+                    node.pendingDependencies++;
+                }
+            }
+        }
+
+        int threads = Math.max(1, Math.min(group.getMaxParallel(), nodes.size()));
+        executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "qrts-launch-group");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        List<Node> cyclic = findCycles();
+        synchronized (this) {
+            startTime = System.currentTimeMillis();
+            remaining = nodes.size();
+            for (Node node : nodes.values()) {
+                fire(node);
+            }
+            if (remaining == 0) {
+                finish();
+                return;
+            }
+            // 处于循环中的成员永远不会满足条件；先全部标为失败再跳过依赖它们的成员，循环中的成员不会被显示为跳过
+            for (Node node : cyclic) {
+                settle(node, MemberState.FAILED, "依赖关系存在循环");
+            }
+            for (Node node : cyclic) {
+                skipDependents(node);
+            }
+            for (Node node : nodes.values()) {
+                if (node.state == MemberState.WAITING && node.tool == null) {
+                    complete(node, MemberState.FAILED, "工具不存在");
+                }
+            }
+            for (Node node : nodes.values()) {
+                if (node.state == MemberState.WAITING && node.pendingDependencies == 0) {
+                    submit(node);
+                }
+            }
+        }
+    }
+
+    /**
+     * 处于依赖循环中的成员：拓扑排序无法到达、并且沿依赖关系能回到自身；只是依赖了循环的成员不在其中
+     */
+    private List<Node> findCycles() {
+        Map<Node, Integer> pending = new HashMap<>();
+        Deque<Node> ready = new ArrayDeque<>();
+        for (Node node : nodes.values()) {
+            pending.put(node, node.pendingDependencies);
+            if (node.pendingDependencies == 0) {
+                ready.add(node);
+            }
+        }
+        while (!ready.isEmpty()) {
+            Node node = ready.poll();
+            pending.remove(node);
+            for (Node dependent : node.dependents) {
+                int left = pending.get(dependent) - 1;
+                pending.put(dependent, left);
+                if (left == 0) {
+                    ready.add(dependent);
+                }
+            }
+        }
+        List<Node> cyclic = new ArrayList<>();
+        for (Node node : nodes.values()) {
+            if (pending.containsKey(node) && reaches(node, node, pending.keySet())) {
+                cyclic.add(node);
+            }
+        }
+        return cyclic;
+    }
+
+    /**
+     * 在 candidates 范围内，从 from 的后续成员出发能否到达 target
+     */
+    private static boolean reaches(Node from, Node target, Set<Node> candidates) {
+        Set<Node> visited = new HashSet<>();
+        Deque<Node> stack = new ArrayDeque<>(from.dependents);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            if (node == target) {
+                return true;
+            }
+            if (candidates.contains(node) && visited.add(node)) {
+                stack.addAll(node.dependents);
+            }
+        }
+        return false;
+    }
+
+    // 调用时持有 this 的锁
+    private void submit(Node node) {
+        if (cancelled) {
+            complete(node, MemberState.SKIPPED, "已取消");
+            return;
+        }
+        executor.execute(() -> launch(node));
+    }
+
+    /**
+     * 在工作线程上执行：启动一个成员并等待它就绪
+     */
+    private void launch(Node node) {
+        synchronized (this) {
+            if (node.state != MemberState.WAITING) {
+                return;
+            }
+            node.state = MemberState.STARTING;
+            fire(node);
+        }
+
+        String validationError = toolLauncher.validateToolDetailed(node.tool);
+        if (validationError != null) {
+            complete(node, MemberState.FAILED, validationError);
+            return;
+        }
+
+        ReadinessProbe probe;
+        try {
+            probe = new ReadinessProbe(node.member.getReadyPattern());
+        } catch (PatternSyntaxException e) {
+            complete(node, MemberState.FAILED, "就绪输出的正则表达式无效: " + e.getDescription());
+            return;
+        }
+        ProcessSupervisor.SupervisedProcess session = null;
+        try {
+            // 命令行工具在虚拟终端中运行，终端关闭时结束登记
+            session = node.tool.isHasGUI() ? null : processSupervisor.registerSession(node.tool.getName());
+            ProcessSupervisor.SupervisedProcess cliSession = session;
+            Runnable closeCallback = cliSession == null ? null : () -> processSupervisor.markExited(cliSession);
+            Process process = toolLauncher.launchTool(node.tool, closeCallback, probe);
+            if (process != null) {
+                processSupervisor.register(node.tool.getName(), process);
+            }
+        } catch (IOException | IllegalArgumentException e) {
+            if (session != null) {
+                processSupervisor.remove(session);
+            }
+            complete(node, MemberState.FAILED, "启动失败: " + e.getMessage());
+            return;
+        }
+
+        String failure;
+        try {
+            failure = probe.await(node.member.getReadyTimeoutSeconds() * 1000L);
+        } catch (InterruptedException e) {
+            failure = "已取消";
+        }
+        if (failure == null) {
+            complete(node, MemberState.READY, null);
+        } else {
+            complete(node, MemberState.FAILED, failure);
+        }
+    }
+
+    /**
+     * 成员结束（就绪、失败或跳过），就绪时启动依赖已全部满足的成员，否则跳过依赖它的成员
+     */
+    private synchronized void complete(Node node, MemberState state, String message) {
+        if (!settle(node, state, message)) {
+            return;
+        }
+        if (state == MemberState.READY) {
+            for (Node dependent : node.dependents) {
+                if (dependent.state == MemberState.WAITING && --dependent.pendingDependencies == 0) {
+                    submit(dependent);
+                }
+            }
+        } else {
+            skipDependents(node);
+        }
+    }
+
+    /**
+     * 记录成员的最终状态，已经结束的成员不变；最后一个成员结束时结束整次运行，调用时持有 this 的锁
+     * @return 状态是否被记录
+     */
+    private boolean settle(Node node, MemberState state, String message) {
+        if (node.state == MemberState.READY || node.state == MemberState.FAILED || node.state == MemberState.SKIPPED) {
+            return false;
+        }
+        node.state = state;
+        node.message = message;
+        remaining--;
+        fire(node);
+        if (remaining == 0) {
+            finish();
+        }
+        return true;
+    }
+
+    // 调用时持有 this 的锁
+    private void skipDependents(Node node) {
+        for (Node dependent : node.dependents) {
+            if (dependent.state == MemberState.WAITING) {
+                complete(dependent, MemberState.SKIPPED, "依赖的 " + node.name() + " 未就绪");
+            }
+        }
+    }
+
+    private void finish() {
+        endTime = System.currentTimeMillis();
+        executor.shutdown();
+        if (listener != null) {
+            listener.finished(this);
+        }
+    }
+
+    private void fire(Node node) {
+        if (listener != null) {
+            listener.memberChanged(status(node));
+        }
+    }
+
+    private static MemberStatus status(Node node) {
+        return new MemberStatus(node.member.getToolId(), node.name(), node.state, node.message);
+    }
+
+    /**
+     * 判断成员是否就绪：有就绪输出时等待匹配的行，否则等待进程启动后稳定运行
+     */
+    private static final class ReadinessProbe implements LaunchObserver {
+        private final Pattern pattern;
+        private Process process;
+        private long startedAt;
+        private long exitedAt;
+        private boolean matched;
+        private String failure;
+
+        ReadinessProbe(String readyPattern) {
+            pattern = readyPattern == null || readyPattern.trim().isEmpty() ? null : Pattern.compile(readyPattern);
+        }
+
+        @Override
+        public synchronized void started(Process process) {
+            this.process = process;
+            startedAt = System.currentTimeMillis();
+            notifyAll();
+        }
+
+        @Override
+        public synchronized void outputLine(String line) {
+            if (pattern != null && !matched && pattern.matcher(line).find()) {
+                matched = true;
+                notifyAll();
+            }
+        }
+
+        @Override
+        public synchronized void failed(String message) {
+            if (failure == null) {
+                failure = message;
+                notifyAll();
+            }
+        }
+
+        @Override
+        public synchronized boolean wantsOutput() {
+            return pattern != null && !matched;
+        }
+
+        /**
+         * @return 就绪时返回null，否则为失败原因
+         */
+        synchronized String await(long timeoutMs) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + timeoutMs;
+            while (true) {
+                if (matched) {
+                    return null;
+                }
+                if (failure != null) {
+                    return failure;
+                }
+                long now = System.currentTimeMillis();
+                if (process != null) {
+                    if (!process.isAlive()) {
+                        int exitCode = process.exitValue();
+                        if (pattern == null) {
+                            return exitCode == 0 ? null : "进程已退出，退出码 " + exitCode;
+                        }
+                        if (exitedAt == 0) {
+                            exitedAt = now;
+                        } else if (now - exitedAt >= EXIT_OUTPUT_GRACE_MS) {
+                            return "进程已退出（退出码 " + exitCode + "），没有出现就绪输出";
+                        }
+                    } else if (pattern == null && now - startedAt >= READY_SETTLE_MS) {
+                        return null;
+                    }
+                }
+                if (now >= deadline) {
+                    return "等待就绪超时（" + timeoutMs / 1000 + " 秒）";
+                }
+                wait(Math.min(READY_POLL_MS, deadline - now));
+            }
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.y5neko.qrts.service;
+
+/**
+ * 观察一次工具启动：进程已启动、输出的每一行，或启动失败
+ * 回调在启动工具或读取输出的线程上执行，实现方需要自行同步，且不应阻塞
+ */
+public interface LaunchObserver {
+    void started(Process process);
+
+    void outputLine(String line);
+
+    void failed(String message);
+
+    /**
+     * 是否需要输出；为false时 GUI 工具的输出按设置处理，不会调用 outputLine
+     */
+    default boolean wantsOutput() {
+        return true;
+    }
+}
@@ -0,0 +1,155 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 预先解析好的启动方式：完整的命令行参数、工作目录和运行环境，创建后不再变化
+ * 由 ToolLauncher 按工具缓存，工具或其环境被修改（对象被替换）后重新生成
+ */
+public final class LaunchPlan {
+    // 批量运行时替换为每个目标的占位符
+    public static final String TARGET_PLACEHOLDER = "{target}";
+
+    private final ToolItem tool;
+    private final Environment environment;
+    private final List<String> argv;
+    private final File workingDirectory;
+
+    private LaunchPlan(ToolItem tool, Environment environment, List<String> argv, File workingDirectory) {
+        this.tool = tool;
+        this.environment = environment;
+        this.argv = argv;
+        this.workingDirectory = workingDirectory;
+    }
+
+    /**
+     * 命令行依次为：环境可执行文件、环境参数、工具命令、工具参数
+     * 工具命令是一个整体（路径中可以有空格），参数按空白拆分并支持引号
+     */
+    static LaunchPlan compile(ToolItem tool, Environment environment) {
+        List<String> argv = new ArrayList<>();
+        argv.add(environment.getExecutablePath());
+        argv.addAll(tokenize(environment.getParameters()));
+        if (tool.getCommand() != null && !tool.getCommand().trim().isEmpty()) {
+            argv.add(tool.getCommand());
+        }
+        argv.addAll(tokenize(tool.getArguments()));
+
+        File workingDirectory = null;
+        if (tool.getWorkingDirectory() != null && !tool.getWorkingDirectory().trim().isEmpty()) {
+            workingDirectory = new File(tool.getWorkingDirectory());
+        }
+        return new LaunchPlan(tool, environment, Collections.unmodifiableList(argv), workingDirectory);
+    }
+
+    /**
+     * 按空白拆分参数：双引号或单引号括起的部分保留空白，双引号内的 \" 表示引号本身，
+     * 其他反斜杠原样保留（Windows 路径）；未闭合的引号延续到末尾
+     */
+    public static List<String> tokenize(String parameters) {
+        List<String> tokens = new ArrayList<>();
+        if (parameters == null) {
+            return tokens;
+        }
+        StringBuilder current = new StringBuilder();
+        // 当前参数是否已开始：用于保留 "" 这样的空参数
+        boolean inToken = false;
+        char quote = 0;
+        for (int i = 0; i < parameters.length(); i++) {
+            char c = parameters.charAt(i);
+            if (quote != 0) {
+                if (c == quote) {
+                    quote = 0;
+                } else if (c == '\\' && quote == '"' && i + 1 < parameters.length() && parameters.charAt(i + 1) == '"') {
+                    current.append('"');
+                    i++;
+                } else {
+                    current.append(c);
+                }
+            } else if (c == '"' || c == '\'') {
+                quote = c;
+                inToken = true;
+            } else if (Character.isWhitespace(c)) {
+                if (inToken) {
+                    tokens.add(current.toString());
+                    current.setLength(0);
+                    inToken = false;
+                }
+            } else {
+                current.append(c);
+                inToken = true;
+            }
+        }
+        if (inToken) {
+            tokens.add(current.toString());
+        }
+        return tokens;
+    }
+
+    /**
+     * 工具的命令、参数或工作目录中是否有 {target} 占位符，有则按目标批量运行
+     */
+    public static boolean usesTarget(ToolItem tool) {
+        return contains(tool.getCommand()) || contains(tool.getArguments()) || contains(tool.getWorkingDirectory());
+    }
+
+    private static boolean contains(String value) {
+        return value != null && value.contains(TARGET_PLACEHOLDER);
+    }
+
+    /**
+     * 把占位符替换为 target 后的计划。替换在拆分参数之后进行，目标中的空白和引号不会产生新的参数
+     */
+    LaunchPlan forTarget(String target) {
+        List<String> targetArgv = new ArrayList<>(argv.size());
+        for (String arg : argv) {
+            targetArgv.add(arg.replace(TARGET_PLACEHOLDER, target));
+        }
+        File targetDirectory = workingDirectory == null ? null
+                : new File(workingDirectory.getPath().replace(TARGET_PLACEHOLDER, target));
+        return new LaunchPlan(tool, environment, Collections.unmodifiableList(targetArgv), targetDirectory);
+    }
+
+    /**
+     * 是否由这两个对象生成；仓库中的对象发布后不再修改，修改时整体替换，所以比较引用即可
+     */
+    boolean isCompiledFrom(ToolItem tool, Environment environment) {
+        return this.tool == tool && this.environment == environment;
+    }
+
+    public ToolItem getTool() { return tool; }
+
+    public Environment getEnvironment() { return environment; }
+
+    // 不可修改的完整命令行
+    public List<String> getArgv() { return argv; }
+
+    public String getExecutablePath() { return argv.get(0); }
+
+    // 未配置时为null
+    public File getWorkingDirectory() { return workingDirectory; }
+
+    /**
+     * 用于显示的命令行，含空白的参数加上引号
+     */
+    public String toCommandLine() {
+        StringBuilder line = new StringBuilder();
+        for (String arg : argv) {
+            if (line.length() > 0) {
+                line.append(' ');
+            }
+            if (arg.isEmpty() || arg.chars().anyMatch(Character::isWhitespace)) {
+                line.append('"').append(arg.replace("\"", "\\\"")).append('"');
+            } else {
+                line.append(arg);
+            }
+        }
+        return line.toString();
+    }
+}
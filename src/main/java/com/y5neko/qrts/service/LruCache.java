@@ -0,0 +1,40 @@
+package com.y5neko.qrts.service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 容量固定的LRU缓存，超出容量时淘汰最久未访问的条目；线程安全
+ */
+final class LruCache<K, V> {
+    private final LinkedHashMap<K, V> entries;
+
+    LruCache(int capacity) {
+        this.entries = new LinkedHashMap<K, V>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    synchronized V get(K key) {
+        return entries.get(key);
+    }
+
+    synchronized void put(K key, V value) {
+        entries.put(key, value);
+    }
+
+    synchronized V remove(K key) {
+        return entries.remove(key);
+    }
+
+    synchronized int size() {
+        return entries.size();
+    }
+
+    synchronized void clear() {
+        entries.clear();
+    }
+}
@@ -0,0 +1,421 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.deser.std.StdDeserializer;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.LaunchGroupMember;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模型类的手写流式编解码器，注册到 ObjectMapper 后替代基于反射的 Bean 序列化
+ * 字段名和顺序与原来 Jackson 默认的输出一致，已有的数据文件无需转换；读取时忽略未知字段（如旧版分类中内嵌的 tools 列表）。
+ * 模型类增加字段时需要同步修改这里。
+ */
+public class ModelCodecs extends SimpleModule {
+    private static final long serialVersionUID = 1L;
+
+    // 预先编码的字段名，写出时不必每次转义和编码
+    private static final SerializableString ID = new SerializedString("id");
+    private static final SerializableString NAME = new SerializedString("name");
+    private static final SerializableString DESCRIPTION = new SerializedString("description");
+    private static final SerializableString CATEGORY_ID = new SerializedString("categoryId");
+    private static final SerializableString ENVIRONMENT_ID = new SerializedString("environmentId");
+    private static final SerializableString COMMAND = new SerializedString("command");
+    private static final SerializableString ARGUMENTS = new SerializedString("arguments");
+    private static final SerializableString WORKING_DIRECTORY = new SerializedString("workingDirectory");
+    private static final SerializableString ICON_PATH = new SerializedString("iconPath");
+    private static final SerializableString HAS_GUI = new SerializedString("hasGUI");
+    private static final SerializableString VERSION = new SerializedString("version");
+    private static final SerializableString TYPE = new SerializedString("type");
+    private static final SerializableString EXECUTABLE_PATH = new SerializedString("executablePath");
+    private static final SerializableString PARAMETERS = new SerializedString("parameters");
+    private static final SerializableString WARM_PROCESSES = new SerializedString("warmProcesses");
+    private static final SerializableString IN_PROCESS = new SerializedString("inProcess");
+    private static final SerializableString SORT_ORDER = new SerializedString("sortOrder");
+    private static final SerializableString MAX_PARALLEL = new SerializedString("maxParallel");
+    private static final SerializableString MEMBERS = new SerializedString("members");
+    private static final SerializableString TOOL_ID = new SerializedString("toolId");
+    private static final SerializableString DEPENDS_ON = new SerializedString("dependsOn");
+    private static final SerializableString READY_PATTERN = new SerializedString("readyPattern");
+    private static final SerializableString READY_TIMEOUT_SECONDS = new SerializedString("readyTimeoutSeconds");
+
+    public ModelCodecs() {
+        super("qrts-model-codecs");
+        addSerializer(ToolItem.class, new ToolItemSerializer());
+        addDeserializer(ToolItem.class, new ToolItemDeserializer());
+        addSerializer(Environment.class, new EnvironmentSerializer());
+        addDeserializer(Environment.class, new EnvironmentDeserializer());
+        addSerializer(ToolCategory.class, new ToolCategorySerializer());
+        addDeserializer(ToolCategory.class, new ToolCategoryDeserializer());
+        addSerializer(LaunchGroup.class, new LaunchGroupSerializer());
+        addDeserializer(LaunchGroup.class, new LaunchGroupDeserializer());
+    }
+
+    // 工具
+    static class ToolItemSerializer extends StdSerializer<ToolItem> {
+        private static final long serialVersionUID = 1L;
+
+        ToolItemSerializer() {
+            super(ToolItem.class);
+        }
+
+        @Override
+        public void serialize(ToolItem tool, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            gen.writeString(tool.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(tool.getName());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(tool.getDescription());
+            gen.writeFieldName(CATEGORY_ID);
+            gen.writeString(tool.getCategoryId());
+            gen.writeFieldName(ENVIRONMENT_ID);
+            gen.writeString(tool.getEnvironmentId());
+            gen.writeFieldName(COMMAND);
+            gen.writeString(tool.getCommand());
+            gen.writeFieldName(ARGUMENTS);
+            gen.writeString(tool.getArguments());
+            gen.writeFieldName(WORKING_DIRECTORY);
+            gen.writeString(tool.getWorkingDirectory());
+            gen.writeFieldName(ICON_PATH);
+            gen.writeString(tool.getIconPath());
+            gen.writeFieldName(HAS_GUI);
+            gen.writeBoolean(tool.isHasGUI());
+            gen.writeFieldName(VERSION);
+            gen.writeNumber(tool.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    static class ToolItemDeserializer extends ModelDeserializer<ToolItem> {
+        private static final long serialVersionUID = 1L;
+
+        ToolItemDeserializer() {
+            super(ToolItem.class);
+        }
+
+        @Override
+        protected ToolItem create() {
+            return new ToolItem();
+        }
+
+        @Override
+        protected boolean readField(ToolItem tool, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "id": tool.setId(readString(p, ctxt)); return true;
+                case "name": tool.setName(readString(p, ctxt)); return true;
+                case "description": tool.setDescription(readString(p, ctxt)); return true;
+                case "categoryId": tool.setCategoryId(readString(p, ctxt)); return true;
+                case "environmentId": tool.setEnvironmentId(readString(p, ctxt)); return true;
+                case "command": tool.setCommand(readString(p, ctxt)); return true;
+                case "arguments": tool.setArguments(readString(p, ctxt)); return true;
+                case "workingDirectory": tool.setWorkingDirectory(readString(p, ctxt)); return true;
+                case "iconPath": tool.setIconPath(readString(p, ctxt)); return true;
+                case "hasGUI": tool.setHasGUI(_parseBooleanPrimitive(p, ctxt)); return true;
+                case "version": tool.setVersion(_parseLongPrimitive(p, ctxt)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    // 环境
+    static class EnvironmentSerializer extends StdSerializer<Environment> {
+        private static final long serialVersionUID = 1L;
+
+        EnvironmentSerializer() {
+            super(Environment.class);
+        }
+
+        @Override
+        public void serialize(Environment env, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            gen.writeString(env.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(env.getName());
+            gen.writeFieldName(TYPE);
+            gen.writeString(env.getType());
+            gen.writeFieldName(EXECUTABLE_PATH);
+            gen.writeString(env.getExecutablePath());
+            gen.writeFieldName(PARAMETERS);
+            gen.writeString(env.getParameters());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(env.getDescription());
+            gen.writeFieldName(WARM_PROCESSES);
+            gen.writeNumber(env.getWarmProcesses());
+            gen.writeFieldName(IN_PROCESS);
+            gen.writeBoolean(env.isInProcess());
+            gen.writeFieldName(VERSION);
+            gen.writeNumber(env.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    static class EnvironmentDeserializer extends ModelDeserializer<Environment> {
+        private static final long serialVersionUID = 1L;
+
+        EnvironmentDeserializer() {
+            super(Environment.class);
+        }
+
+        @Override
+        protected Environment create() {
+            return new Environment();
+        }
+
+        @Override
+        protected boolean readField(Environment env, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "id": env.setId(readString(p, ctxt)); return true;
+                case "name": env.setName(readString(p, ctxt)); return true;
+                case "type": env.setType(readString(p, ctxt)); return true;
+                case "executablePath": env.setExecutablePath(readString(p, ctxt)); return true;
+                case "parameters": env.setParameters(readString(p, ctxt)); return true;
+                case "description": env.setDescription(readString(p, ctxt)); return true;
+                case "warmProcesses": env.setWarmProcesses(_parseIntPrimitive(p, ctxt)); return true;
+                case "inProcess": env.setInProcess(_parseBooleanPrimitive(p, ctxt)); return true;
+                case "version": env.setVersion(_parseLongPrimitive(p, ctxt)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    // 分类
+    static class ToolCategorySerializer extends StdSerializer<ToolCategory> {
+        private static final long serialVersionUID = 1L;
+
+        ToolCategorySerializer() {
+            super(ToolCategory.class);
+        }
+
+        @Override
+        public void serialize(ToolCategory category, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            gen.writeString(category.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(category.getName());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(category.getDescription());
+            gen.writeFieldName(ICON_PATH);
+            gen.writeString(category.getIconPath());
+            gen.writeFieldName(SORT_ORDER);
+            gen.writeNumber(category.getSortOrder());
+            gen.writeFieldName(VERSION);
+            gen.writeNumber(category.getVersion());
+            gen.writeEndObject();
+        }
+    }
+
+    static class ToolCategoryDeserializer extends ModelDeserializer<ToolCategory> {
+        private static final long serialVersionUID = 1L;
+
+        ToolCategoryDeserializer() {
+            super(ToolCategory.class);
+        }
+
+        @Override
+        protected ToolCategory create() {
+            return new ToolCategory();
+        }
+
+        @Override
+        protected boolean readField(ToolCategory category, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "id": category.setId(readString(p, ctxt)); return true;
+                case "name": category.setName(readString(p, ctxt)); return true;
+                case "description": category.setDescription(readString(p, ctxt)); return true;
+                case "iconPath": category.setIconPath(readString(p, ctxt)); return true;
+                case "sortOrder": category.setSortOrder(_parseIntPrimitive(p, ctxt)); return true;
+                case "version": category.setVersion(_parseLongPrimitive(p, ctxt)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    // 启动组，成员内嵌在组中
+    static class LaunchGroupSerializer extends StdSerializer<LaunchGroup> {
+        private static final long serialVersionUID = 1L;
+
+        LaunchGroupSerializer() {
+            super(LaunchGroup.class);
+        }
+
+        @Override
+        public void serialize(LaunchGroup group, JsonGenerator gen, SerializerProvider provider) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(ID);
+            gen.writeString(group.getId());
+            gen.writeFieldName(NAME);
+            gen.writeString(group.getName());
+            gen.writeFieldName(DESCRIPTION);
+            gen.writeString(group.getDescription());
+            gen.writeFieldName(MAX_PARALLEL);
+            gen.writeNumber(group.getMaxParallel());
+            gen.writeFieldName(MEMBERS);
+            gen.writeStartArray();
+            for (LaunchGroupMember member : group.getMembers()) {
+                writeMember(member, gen);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(VERSION);
+            gen.writeNumber(group.getVersion());
+            gen.writeEndObject();
+        }
+
+        private static void writeMember(LaunchGroupMember member, JsonGenerator gen) throws IOException {
+            gen.writeStartObject();
+            gen.writeFieldName(TOOL_ID);
+            gen.writeString(member.getToolId());
+            gen.writeFieldName(DEPENDS_ON);
+            gen.writeStartArray();
+            for (String toolId : member.getDependsOn()) {
+                gen.writeString(toolId);
+            }
+            gen.writeEndArray();
+            gen.writeFieldName(READY_PATTERN);
+            gen.writeString(member.getReadyPattern());
+            gen.writeFieldName(READY_TIMEOUT_SECONDS);
+            gen.writeNumber(member.getReadyTimeoutSeconds());
+            gen.writeEndObject();
+        }
+    }
+
+    static class LaunchGroupDeserializer extends ModelDeserializer<LaunchGroup> {
+        private static final long serialVersionUID = 1L;
+
+        private final LaunchGroupMemberDeserializer memberDeserializer = new LaunchGroupMemberDeserializer();
+
+        LaunchGroupDeserializer() {
+            super(LaunchGroup.class);
+        }
+
+        @Override
+        protected LaunchGroup create() {
+            return new LaunchGroup();
+        }
+
+        @Override
+        protected boolean readField(LaunchGroup group, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "id": group.setId(readString(p, ctxt)); return true;
+                case "name": group.setName(readString(p, ctxt)); return true;
+                case "description": group.setDescription(readString(p, ctxt)); return true;
+                case "maxParallel": group.setMaxParallel(_parseIntPrimitive(p, ctxt)); return true;
+                case "members":
+                    List<LaunchGroupMember> members = new ArrayList<>();
+                    if (p.getCurrentToken() == JsonToken.START_ARRAY) {
+                        while (p.nextToken() != JsonToken.END_ARRAY) {
+                            members.add(memberDeserializer.deserialize(p, ctxt));
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                    group.setMembers(members);
+                    return true;
+                case "version": group.setVersion(_parseLongPrimitive(p, ctxt)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    static class LaunchGroupMemberDeserializer extends ModelDeserializer<LaunchGroupMember> {
+        private static final long serialVersionUID = 1L;
+
+        LaunchGroupMemberDeserializer() {
+            super(LaunchGroupMember.class);
+        }
+
+        @Override
+        protected LaunchGroupMember create() {
+            return new LaunchGroupMember();
+        }
+
+        @Override
+        protected boolean readField(LaunchGroupMember member, String field, JsonParser p, DeserializationContext ctxt) throws IOException {
+            switch (field) {
+                case "toolId": member.setToolId(readString(p, ctxt)); return true;
+                case "dependsOn":
+                    List<String> dependsOn = new ArrayList<>();
+                    if (p.getCurrentToken() == JsonToken.START_ARRAY) {
+                        while (p.nextToken() != JsonToken.END_ARRAY) {
+                            dependsOn.add(readString(p, ctxt));
+                        }
+                    } else {
+                        p.skipChildren();
+                    }
+                    member.setDependsOn(dependsOn);
+                    return true;
+                case "readyPattern": member.setReadyPattern(readString(p, ctxt)); return true;
+                case "readyTimeoutSeconds": member.setReadyTimeoutSeconds(_parseIntPrimitive(p, ctxt)); return true;
+                default: return false;
+            }
+        }
+    }
+
+    /**
+     * 逐个字段读取对象，字段值交给子类按名称处理
+     */
+    abstract static class ModelDeserializer<T> extends StdDeserializer<T> {
+        private static final long serialVersionUID = 1L;
+
+        ModelDeserializer(Class<T> type) {
+            super(type);
+        }
+
+        protected abstract T create();
+
+        /**
+         * 读取当前字段的值，未知字段返回false，由调用方跳过
+         */
+        protected abstract boolean readField(T entity, String field, JsonParser p, DeserializationContext ctxt) throws IOException;
+
+        @Override
+        public T deserialize(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.START_OBJECT) {
+                token = p.nextToken();
+            } else if (token != JsonToken.FIELD_NAME && token != JsonToken.END_OBJECT) {
+                @SuppressWarnings("unchecked")
+                T result = (T) ctxt.handleUnexpectedToken(handledType(), p);
+                return result;
+            }
+
+            T entity = create();
+            for (; token == JsonToken.FIELD_NAME; token = p.nextToken()) {
+                String field = p.getCurrentName();
+                p.nextToken();
+                if (!readField(entity, field, p, ctxt)) {
+                    p.skipChildren();
+                }
+            }
+            return entity;
+        }
+
+        protected String readString(JsonParser p, DeserializationContext ctxt) throws IOException {
+            JsonToken token = p.getCurrentToken();
+            if (token == JsonToken.VALUE_STRING) {
+                return p.getText();
+            }
+            if (token == JsonToken.VALUE_NULL) {
+                return null;
+            }
+            return _parseString(p, ctxt);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.y5neko.qrts.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+
+/**
+ * 在后台读取 GUI 工具的输出，防止输出过多时管道写满、工具被阻塞
+ * 所有进程共用一个线程：每轮只读取各管道中已有的数据（available），不会阻塞在某一个进程上。
+ * 每个进程只在内存中保留最后一段输出，进程以非0退出码结束时打印出来便于排查；
+ * 需要时还可以把输出按行交给监听器（如启动组等待就绪输出）
+ */
+final class OutputDrainer {
+    // 读到数据时立即开始下一轮；没有数据时等待时间从 1ms 起逐轮加倍，最长为此值
+    private static final long POLL_INTERVAL_MS = 100;
+    // 每个进程保留的最后输出字节数
+    private static final int TAIL_BYTES = 16 * 1024;
+    // 每轮从一个进程最多读取的字节数，避免一个输出很多的进程占住线程
+    private static final int MAX_BYTES_PER_ROUND = 1024 * 1024;
+    // 超过此长度仍没有换行时按一行交给监听器
+    private static final int MAX_LINE_BYTES = 64 * 1024;
+
+    private static final class Drained {
+        final String name;
+        final Process process;
+        final InputStream output;
+        // 环形缓冲区，保存最后 TAIL_BYTES 字节
+        final byte[] tail = new byte[TAIL_BYTES];
+        long total;
+        // 返回false后不再接收，为null表示不需要按行读取
+        Predicate<String> lineListener;
+        final ByteArrayOutputStream line = new ByteArrayOutputStream();
+
+        Drained(String name, Process process, Predicate<String> lineListener) {
+            this.name = name;
+            this.process = process;
+            this.output = process.getInputStream();
+            this.lineListener = lineListener;
+        }
+
+        void splitLines(byte[] buffer, int length) {
+            for (int i = 0; i < length && lineListener != null; i++) {
+                if (buffer[i] == '\n' || line.size() >= MAX_LINE_BYTES) {
+                    emitLine();
+                    if (buffer[i] == '\n') {
+                        continue;
+                    }
+                }
+                line.write(buffer[i]);
+            }
+        }
+
+        void emitLine() {
+            String text = new String(line.toByteArray(), Charset.defaultCharset());
+            line.reset();
+            if (text.endsWith("\r")) {
+                text = text.substring(0, text.length() - 1);
+            }
+            if (!lineListener.test(text)) {
+                lineListener = null;
+            }
+        }
+
+        void append(byte[] buffer, int length) {
+            // 只有最后 TAIL_BYTES 字节需要保留
+            int offset = Math.max(0, length - TAIL_BYTES);
+            total += offset;
+            while (offset < length) {
+                int position = (int) (total % TAIL_BYTES);
+                int count = Math.min(length - offset, TAIL_BYTES - position);
+                System.arraycopy(buffer, offset, tail, position, count);
+                offset += count;
+                total += count;
+            }
+        }
+
+        String tailText() {
+            int length = (int) Math.min(total, TAIL_BYTES);
+            byte[] ordered = new byte[length];
+            int start = (int) ((total - length) % TAIL_BYTES);
+            for (int i = 0; i < length; i++) {
+                ordered[i] = tail[(start + i) % TAIL_BYTES];
+            }
+            return new String(ordered);
+        }
+    }
+
+    private final Queue<Drained> drained = new ConcurrentLinkedQueue<>();
+    private final ScheduledExecutorService scheduler;
+    private final byte[] buffer = new byte[64 * 1024];
+    private ScheduledFuture<?> poller;
+    private long idleDelay = 1;
+
+    OutputDrainer() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "qrts-output-drainer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 开始读取进程的标准输出（启动时应已通过 redirectErrorStream 合并错误输出）
+     */
+    void drain(String name, Process process) {
+        drain(name, process, null);
+    }
+
+    /**
+     * 开始读取进程的标准输出，并把每一行交给 lineListener，直到它返回false或进程结束
+     * 监听器在读取线程上执行，不应阻塞
+     */
+    void drain(String name, Process process, Predicate<String> lineListener) {
+        drained.add(new Drained(name, process, lineListener));
+        synchronized (this) {
+            if (poller == null) {
+                poller = scheduler.schedule(this::poll, 0, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * 在读取线程上执行：读完各管道中已有的数据，进程已退出且没有剩余数据时结束读取
+     */
+    private void poll() {
+        boolean busy = false;
+        Iterator<Drained> iterator = drained.iterator();
+        while (iterator.hasNext()) {
+            Drained entry = iterator.next();
+            try {
+                int read = 0;
+                int available;
+                while (read < MAX_BYTES_PER_ROUND && (available = entry.output.available()) > 0) {
+                    int n = entry.output.read(buffer, 0, Math.min(available, buffer.length));
+                    if (n < 0) {
+                        break;
+                    }
+                    entry.append(buffer, n);
+                    if (entry.lineListener != null) {
+                        entry.splitLines(buffer, n);
+                    }
+                    read += n;
+                }
+                busy |= read > 0;
+                if (!entry.process.isAlive() && entry.output.available() == 0) {
+                    iterator.remove();
+                    finish(entry);
+                }
+            } catch (IOException e) {
+                iterator.remove();
+                closeQuietly(entry);
+            }
+        }
+        long delay = 0;
+        if (busy) {
+            idleDelay = 1;
+        } else {
+            delay = idleDelay;
+            idleDelay = Math.min(idleDelay * 2, POLL_INTERVAL_MS);
+        }
+        synchronized (this) {
+            poller = drained.isEmpty() ? null : scheduler.schedule(this::poll, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private void finish(Drained entry) {
+        closeQuietly(entry);
+        if (entry.lineListener != null && entry.line.size() > 0) {
+            entry.emitLine();
+        }
+        int exitCode = entry.process.exitValue();
+        if (exitCode != 0 && entry.total > 0) {
+            System.err.println("Tool " + entry.name + " exited with code " + exitCode + ", last output:\n" + entry.tailText());
+        }
+    }
+
+    private static void closeQuietly(Drained entry) {
+        try {
+            entry.output.close();
+        } catch (IOException e) {
+            // 进程已结束，关闭失败无需处理
+        }
+    }
+}
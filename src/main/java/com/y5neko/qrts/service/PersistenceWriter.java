@@ -0,0 +1,203 @@
+package com.y5neko.qrts.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 后台持久化线程
+ * 短时间窗口内对同一文件的多次保存会被合并为一次写入；
+ * 写入先落到临时文件并fsync，再原子重命名覆盖目标文件，崩溃时不会留下写了一半的JSON
+ */
+public class PersistenceWriter {
+    private static final long COALESCE_WINDOW_MS = 200;
+    private static final String TEMP_SUFFIX = ".tmp";
+
+    private final ScheduledExecutorService executor;
+    // 待写入的文件 -> 写入任务，在持久化线程上执行
+    private final Map<Path, Runnable> dirty = new LinkedHashMap<>();
+    private ScheduledFuture<?> scheduledFlush;
+    // 已提交但尚未开始执行的任务数
+    private final AtomicInteger queuedTasks = new AtomicInteger();
+    // 每个文件写入成功后在持久化线程上回调
+    private volatile Consumer<Path> writeListener;
+
+    public PersistenceWriter(String threadName) {
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, threadName);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public void setWriteListener(Consumer<Path> writeListener) {
+        this.writeListener = writeListener;
+    }
+
+    /**
+     * 标记文件需要写入，窗口期内重复标记只保留最后一次的内容回调
+     */
+    public void markDirty(Path target, Supplier<byte[]> content) {
+        markDirty(target, () -> {
+            try {
+                writeAtomically(target, content.get());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            Consumer<Path> listener = writeListener;
+            if (listener != null) {
+                listener.accept(target);
+            }
+        });
+    }
+
+    /**
+     * 与上面相同，但由任务自行完成文件更新（例如需要先读取磁盘内容再合并写回）
+     */
+    public synchronized void markDirty(Path target, Runnable writeTask) {
+        dirty.put(target, writeTask);
+        if (scheduledFlush == null) {
+            try {
+                scheduledFlush = executor.schedule(this::writeDirty, COALESCE_WINDOW_MS, TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                System.err.println("Persistence writer is shut down, dropping write of " + target.getFileName());
+            }
+        }
+    }
+
+    /**
+     * 立即写出所有待写入的文件，返回的Future在写入完成后结束
+     */
+    public CompletableFuture<Void> flush() {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        try {
+            executor.execute(() -> {
+                writeDirty();
+                done.complete(null);
+            });
+        } catch (RejectedExecutionException e) {
+            done.complete(null);
+        }
+        return done;
+    }
+
+    /**
+     * 在持久化线程上按提交顺序执行任务，用于需要与文件写入保持顺序的操作
+     */
+    public CompletableFuture<Void> submit(Runnable task) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queuedTasks.incrementAndGet();
+        try {
+            executor.execute(() -> {
+                queuedTasks.decrementAndGet();
+                try {
+                    task.run();
+                    done.complete(null);
+                } catch (RuntimeException e) {
+                    done.completeExceptionally(e);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            queuedTasks.decrementAndGet();
+            done.completeExceptionally(e);
+        }
+        return done;
+    }
+
+    /**
+     * 是否还有待写入的文件或排队中的任务；在任务内部调用时不计当前任务
+     */
+    public synchronized boolean hasPendingWork() {
+        return !dirty.isEmpty() || queuedTasks.get() > 0;
+    }
+
+    /**
+     * 等待所有待写入的文件落盘，超时返回false
+     */
+    public boolean awaitFlush(long timeout, TimeUnit unit) {
+        try {
+            flush().get(timeout, unit);
+            return true;
+        } catch (Exception e) {
+            System.err.println("Waiting for pending writes failed: " + e.getMessage());
+            return false;
+        }
+    }
+
+    public void shutdown() {
+        awaitFlush(5, TimeUnit.SECONDS);
+        executor.shutdown();
+    }
+
+    private void writeDirty() {
+        Map<Path, Runnable> batch;
+        synchronized (this) {
+            batch = new LinkedHashMap<>(dirty);
+            dirty.clear();
+            scheduledFlush = null;
+        }
+
+        for (Map.Entry<Path, Runnable> entry : batch.entrySet()) {
+            try {
+                entry.getValue().run();
+            } catch (Exception e) {
+                System.err.println("Failed to write " + entry.getKey().getFileName() + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 写临时文件 -> fsync -> 原子重命名
+     */
+    public static void writeAtomically(Path target, byte[] content) throws IOException {
+        Path parent = target.toAbsolutePath().getParent();
+        if (parent != null && !Files.exists(parent)) {
+            Files.createDirectories(parent);
+        }
+
+        Path temp = target.resolveSibling(target.getFileName() + TEMP_SUFFIX);
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(content);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        syncDirectory(parent);
+    }
+
+    private static void syncDirectory(Path directory) {
+        if (directory == null) {
+            return;
+        }
+        // 部分平台（如Windows）不支持对目录fsync，忽略即可
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        } catch (IOException ignored) {
+        }
+    }
+}
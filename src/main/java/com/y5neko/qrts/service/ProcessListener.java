@@ -0,0 +1,9 @@
+package com.y5neko.qrts.service;
+
+/**
+ * ProcessSupervisor 中进程的登记、状态变化和移除通知
+ * 回调在登记进程的线程或后台监控线程上执行，界面需要自行切换到 JavaFX 线程
+ */
+public interface ProcessListener {
+    void processChanged(ProcessSupervisor.SupervisedProcess process);
+}
@@ -0,0 +1,224 @@
+package com.y5neko.qrts.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 统一管理所有启动的工具进程
+ * 所有进程共用一个后台线程：定期检查登记的进程是否已退出，并执行停止超时、结束后自动移除等定时任务，
+ * 不再为每个进程单独创建等待线程。状态变化通过 ProcessListener 通知
+ */
+public class ProcessSupervisor {
+    // 检查进程是否退出的间隔；没有运行中的进程时不检查
+    private static final long REAP_INTERVAL_MS = 250;
+    // 结束的进程在列表中保留的时间，之后自动移除
+    private static final long RETENTION_MS = 5000;
+    // stop 先请求进程正常退出，超过此时间仍未退出则强制结束
+    private static final long STOP_GRACE_MS = 3000;
+
+    private static ProcessSupervisor instance;
+
+    public enum State { RUNNING, EXITED, STOPPED }
+
+    /**
+     * 一个登记的进程；命令行工具在虚拟终端中运行，没有对应的 Process，由终端关闭时调用 markExited 结束
+     */
+    public static final class SupervisedProcess {
+        private final long id;
+        private final String name;
+        private final Process process;
+        private final long startTime;
+        private volatile State state = State.RUNNING;
+        private volatile long endTime;
+        private volatile Integer exitCode;
+
+        private SupervisedProcess(long id, String name, Process process) {
+            this.id = id;
+            this.name = name;
+            this.process = process;
+            this.startTime = System.currentTimeMillis();
+        }
+
+        public long getId() { return id; }
+
+        public String getName() { return name; }
+
+        // 虚拟终端中的命令行工具为null
+        public Process getProcess() { return process; }
+
+        public long getStartTime() { return startTime; }
+
+        public State getState() { return state; }
+
+        public boolean isRunning() { return state == State.RUNNING; }
+
+        // 结束时间，运行中为0
+        public long getEndTime() { return endTime; }
+
+        // 进程的退出码，仍在运行或没有 Process 时为null
+        public Integer getExitCode() { return exitCode; }
+    }
+
+    // 按登记顺序排列
+    private final Map<Long, SupervisedProcess> registry = new ConcurrentSkipListMap<>();
+    private final AtomicLong nextId = new AtomicLong();
+    private final List<ProcessListener> listeners = new CopyOnWriteArrayList<>();
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> reaper;
+
+    private ProcessSupervisor() {
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "qrts-process-reaper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized ProcessSupervisor getInstance() {
+        if (instance == null) {
+            instance = new ProcessSupervisor();
+        }
+        return instance;
+    }
+
+    public void addListener(ProcessListener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(ProcessListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * 登记一个已启动的进程，退出后自动变为 EXITED
+     */
+    public SupervisedProcess register(String name, Process process) {
+        SupervisedProcess entry = new SupervisedProcess(nextId.incrementAndGet(), name, process);
+        registry.put(entry.id, entry);
+        startReaping();
+        fire(entry);
+        return entry;
+    }
+
+    /**
+     * 登记一个没有 Process 的会话（虚拟终端中的命令行工具），结束时调用 markExited
+     */
+    public SupervisedProcess registerSession(String name) {
+        return register(name, null);
+    }
+
+    public void markExited(SupervisedProcess entry) {
+        finish(entry, State.EXITED);
+    }
+
+    /**
+     * 停止进程：先请求正常退出，超时后强制结束
+     */
+    public void stop(SupervisedProcess entry) {
+        Process process = entry.process;
+        if (process != null && process.isAlive()) {
+            process.destroy();
+            scheduler.schedule(() -> {
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }, STOP_GRACE_MS, TimeUnit.MILLISECONDS);
+        }
+        finish(entry, State.STOPPED);
+    }
+
+    public void remove(SupervisedProcess entry) {
+        if (registry.remove(entry.id, entry)) {
+            fire(entry);
+        }
+    }
+
+    /**
+     * 移除所有已结束的进程
+     * @return 移除的数量
+     */
+    public int removeFinished() {
+        int removed = 0;
+        for (SupervisedProcess entry : registry.values()) {
+            if (!entry.isRunning()) {
+                // 已标记结束但进程仍在（例如正在等待强制结束），直接结束，防止残留
+                if (entry.process != null && entry.process.isAlive()) {
+                    entry.process.destroyForcibly();
+                }
+                remove(entry);
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * 当前登记的进程，按登记顺序
+     */
+    public List<SupervisedProcess> list() {
+        return new ArrayList<>(registry.values());
+    }
+
+    private synchronized void startReaping() {
+        if (reaper == null) {
+            reaper = scheduler.scheduleWithFixedDelay(this::reap, REAP_INTERVAL_MS, REAP_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * 在监控线程上执行：检查所有运行中的进程，已退出的标记为 EXITED；没有需要检查的进程时暂停检查
+     */
+    private void reap() {
+        boolean pending = false;
+        for (SupervisedProcess entry : registry.values()) {
+            if (entry.state != State.RUNNING || entry.process == null) {
+                continue;
+            }
+            if (entry.process.isAlive()) {
+                pending = true;
+            } else {
+                entry.exitCode = entry.process.exitValue();
+                finish(entry, State.EXITED);
+            }
+        }
+        if (!pending) {
+            synchronized (this) {
+                // 与 register 之间的竞争：取消前再检查一次，避免漏掉刚登记的进程
+                if (registry.values().stream().noneMatch(e -> e.state == State.RUNNING && e.process != null)) {
+                    reaper.cancel(false);
+                    reaper = null;
+                }
+            }
+        }
+    }
+
+    private void finish(SupervisedProcess entry, State state) {
+        synchronized (entry) {
+            if (entry.state != State.RUNNING) {
+                return;
+            }
+            entry.endTime = System.currentTimeMillis();
+            entry.state = state;
+        }
+        scheduler.schedule(() -> remove(entry), RETENTION_MS, TimeUnit.MILLISECONDS);
+        fire(entry);
+    }
+
+    private void fire(SupervisedProcess entry) {
+        for (ProcessListener listener : listeners) {
+            try {
+                listener.processChanged(entry);
+            } catch (RuntimeException e) {
+                System.err.println("Process listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.y5neko.qrts.service;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * 实体的二级索引（一对多），例如 分类ID -> 工具列表
+ * 由 EntityRepository 在增删改时增量维护，查询代价只与结果集大小相关
+ */
+public class SecondaryIndex<T> {
+    private final Function<T, String> keyExtractor;
+    // 索引键 -> 该键下的实体（按ID维护，保持加入顺序）
+    private final Map<String, ChunkedList<T>> buckets = new HashMap<>();
+    // 实体ID -> 建立索引时记录的键，用于实体字段被原地修改后找到旧桶
+    private final Map<String, String> keyById = new HashMap<>();
+    // 上次生成只读副本时各桶的内容，以及此后有变化的键；未变化的桶直接复用，变化的桶也只复制改动过的块
+    private Map<String, List<T>> published = Collections.emptyMap();
+    private final Set<String> changedKeys = new HashSet<>();
+
+    SecondaryIndex(Function<T, String> keyExtractor) {
+        this.keyExtractor = keyExtractor;
+    }
+
+    void put(String id, T entity) {
+        String newKey = keyExtractor.apply(entity);
+        if (keyById.containsKey(id)) {
+            String oldKey = keyById.get(id);
+            if (!equalsKey(oldKey, newKey)) {
+                removeFromBucket(oldKey, id);
+            }
+        }
+        keyById.put(id, newKey);
+        changedKeys.add(newKey);
+        buckets.computeIfAbsent(newKey, k -> new ChunkedList<>()).put(id, entity);
+    }
+
+    void remove(String id) {
+        if (keyById.containsKey(id)) {
+            removeFromBucket(keyById.remove(id), id);
+        }
+    }
+
+    void clear() {
+        buckets.clear();
+        keyById.clear();
+        published = Collections.emptyMap();
+        changedKeys.clear();
+    }
+
+    /**
+     * 生成只读副本，只重建上次之后有变化的桶
+     */
+    Map<String, List<T>> snapshot() {
+        if (changedKeys.isEmpty()) {
+            return published;
+        }
+        Map<String, List<T>> next = new HashMap<>(published);
+        for (String key : changedKeys) {
+            ChunkedList<T> bucket = buckets.get(key);
+            if (bucket == null) {
+                next.remove(key);
+            } else {
+                next.put(key, bucket.snapshot());
+            }
+        }
+        changedKeys.clear();
+        published = Collections.unmodifiableMap(next);
+        return published;
+    }
+
+    /**
+     * 获取指定键下的全部实体，键可以为null（例如未分类的工具）
+     */
+    public List<T> find(String key) {
+        ChunkedList<T> bucket = buckets.get(key);
+        if (bucket == null) {
+            return Collections.emptyList();
+        }
+        return bucket.copy();
+    }
+
+    public int count(String key) {
+        ChunkedList<T> bucket = buckets.get(key);
+        return bucket == null ? 0 : bucket.size();
+    }
+
+    private void removeFromBucket(String key, String id) {
+        changedKeys.add(key);
+        ChunkedList<T> bucket = buckets.get(key);
+        if (bucket != null) {
+            bucket.remove(id);
+            if (bucket.size() == 0) {
+                buckets.remove(key);
+            }
+        }
+    }
+
+    private boolean equalsKey(String a, String b) {
+        return a == null ? b == null : a.equals(b);
+    }
+}
@@ -0,0 +1,121 @@
+package com.y5neko.qrts.service;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按ID哈希分段的映射表，生成只读副本时只复制上次之后有改动的段
+ */
+final class SegmentedMap<T> {
+    private static final int SEGMENT_BITS = 10;
+    private static final int SEGMENTS = 1 << SEGMENT_BITS;
+
+    private final List<Map<String, T>> segments = new ArrayList<>(SEGMENTS);
+    private final BitSet changedSegments = new BitSet(SEGMENTS);
+    private FrozenMap<T> published;
+
+    SegmentedMap() {
+        List<Map<String, T>> frozen = new ArrayList<>(SEGMENTS);
+        for (int i = 0; i < SEGMENTS; i++) {
+            segments.add(new HashMap<>());
+            frozen.add(new HashMap<>());
+        }
+        published = new FrozenMap<>(frozen);
+    }
+
+    T get(String id) {
+        return segments.get(segmentOf(id)).get(id);
+    }
+
+    void put(String id, T value) {
+        int segment = segmentOf(id);
+        segments.get(segment).put(id, value);
+        changedSegments.set(segment);
+    }
+
+    T remove(String id) {
+        int segment = segmentOf(id);
+        T removed = segments.get(segment).remove(id);
+        if (removed != null) {
+            changedSegments.set(segment);
+        }
+        return removed;
+    }
+
+    void clear() {
+        for (int i = 0; i < SEGMENTS; i++) {
+            if (!segments.get(i).isEmpty()) {
+                segments.get(i).clear();
+                changedSegments.set(i);
+            }
+        }
+    }
+
+    /**
+     * 当前内容的只读副本，没有修改时重复返回同一个对象
+     */
+    Map<String, T> snapshot() {
+        if (changedSegments.isEmpty()) {
+            return published;
+        }
+        List<Map<String, T>> frozen = new ArrayList<>(published.segments);
+        for (int segment = changedSegments.nextSetBit(0); segment >= 0; segment = changedSegments.nextSetBit(segment + 1)) {
+            frozen.set(segment, new HashMap<>(segments.get(segment)));
+        }
+        changedSegments.clear();
+        published = new FrozenMap<>(frozen);
+        return published;
+    }
+
+    /**
+     * 取乘法散列的高位选段，段内 HashMap 使用低位分桶，两者互不相关
+     */
+    private static int segmentOf(String id) {
+        return (id.hashCode() * 0x9E3779B9) >>> (32 - SEGMENT_BITS);
+    }
+
+    /**
+     * 由各段冻结副本组成的只读映射，只需支持按ID查询
+     */
+    private static final class FrozenMap<T> extends AbstractMap<String, T> {
+        private final List<Map<String, T>> segments;
+
+        FrozenMap(List<Map<String, T>> segments) {
+            this.segments = segments;
+        }
+
+        @Override
+        public T get(Object key) {
+            return key instanceof String ? segments.get(segmentOf((String) key)).get(key) : null;
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String && segments.get(segmentOf((String) key)).containsKey(key);
+        }
+
+        @Override
+        public int size() {
+            int size = 0;
+            for (Map<String, T> segment : segments) {
+                size += segment.size();
+            }
+            return size;
+        }
+
+        @Override
+        public Set<Entry<String, T>> entrySet() {
+            Set<Entry<String, T>> entries = new HashSet<>();
+            for (Map<String, T> segment : segments) {
+                entries.addAll(segment.entrySet());
+            }
+            return entries;
+        }
+    }
+}
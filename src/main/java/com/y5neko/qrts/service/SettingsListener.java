@@ -0,0 +1,11 @@
+package com.y5neko.qrts.service;
+
+import java.util.Set;
+
+/**
+ * 应用设置发生变化后的通知，参数为值有变化的键
+ * 本地提交时在提交的线程上回调，其他实例修改文件时在后台持久化线程上回调
+ */
+public interface SettingsListener {
+    void settingsChanged(Set<String> changedKeys);
+}
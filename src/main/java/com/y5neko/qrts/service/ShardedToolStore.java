@@ -0,0 +1,192 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Consumer;
+
+/**
+ * 分片布局：每个分类的工具保存在 data/tools/&lt;分类ID&gt;.json 中，移动或修改一个工具只需重写所在的分片
+ * 清单文件记录各分片内容的CRC32，最后写入，作为整套分片的提交点；变更日志以清单的校验值为基准。
+ * 写到一半中断时部分分片已是新内容，但日志记录的都是整条工具内容，在其上按顺序重放的结果仍然正确。
+ */
+public class ShardedToolStore implements ToolStore {
+    private static final String MANIFEST_FILE = "_manifest.json";
+    private static final String UNCATEGORIZED_SHARD = "_uncategorized";
+    private static final String SHARD_SUFFIX = ".json";
+
+    private final Path directory;
+
+    public ShardedToolStore(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public String getName() {
+        return directory.getFileName() + "/";
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(directory.resolve(MANIFEST_FILE));
+    }
+
+    @Override
+    public List<Path> files() {
+        List<Path> files = new ArrayList<>();
+        files.add(directory.resolve(MANIFEST_FILE));
+        try {
+            for (String shard : readManifest(Files.readAllBytes(directory.resolve(MANIFEST_FILE))).keySet()) {
+                files.add(directory.resolve(shard));
+            }
+        } catch (IOException ignored) {
+            // 清单不存在或损坏时只比较清单本身
+        }
+        return files;
+    }
+
+    /**
+     * 在 ForkJoin 公共池上并行解析分片，按清单顺序在调用线程上回调
+     * 同时解析的分片数不超过池的并行度，第一个分片解析完即可开始回调，不必等其余分片
+     */
+    @Override
+    public long read(int batchSize, Consumer<List<ToolItem>> batchConsumer) throws IOException {
+        byte[] manifestBytes = Files.readAllBytes(directory.resolve(MANIFEST_FILE));
+        List<String> shards = new ArrayList<>(readManifest(manifestBytes).keySet());
+        int window = Math.max(1, ForkJoinPool.getCommonPoolParallelism());
+        Deque<CompletableFuture<List<ToolItem>>> inFlight = new ArrayDeque<>();
+        int next = 0;
+
+        while (next < shards.size() || !inFlight.isEmpty()) {
+            while (next < shards.size() && inFlight.size() < window) {
+                String shard = shards.get(next++);
+                inFlight.add(CompletableFuture.supplyAsync(() -> readShard(shard, batchSize), ForkJoinPool.commonPool()));
+            }
+            List<ToolItem> tools;
+            try {
+                tools = inFlight.poll().join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof UncheckedIOException) {
+                    throw ((UncheckedIOException) e.getCause()).getCause();
+                }
+                throw e;
+            }
+            for (int from = 0; from < tools.size(); from += batchSize) {
+                batchConsumer.accept(new ArrayList<>(tools.subList(from, Math.min(from + batchSize, tools.size()))));
+            }
+        }
+        return ToolJournal.checksum(manifestBytes);
+    }
+
+    /**
+     * 按分片序列化全部工具，只有内容与清单记录不同的分片才会被写出
+     */
+    @Override
+    public WriteTask prepareWrite(List<ToolItem> tools) throws IOException {
+        Map<String, List<ToolItem>> groups = new TreeMap<>();
+        for (ToolItem tool : tools) {
+            groups.computeIfAbsent(shardName(tool.getCategoryId()), name -> new ArrayList<>()).add(tool);
+        }
+
+        Map<String, Long> current = Collections.emptyMap();
+        if (exists()) {
+            try {
+                current = readManifest(Files.readAllBytes(directory.resolve(MANIFEST_FILE)));
+            } catch (IOException e) {
+                // 清单损坏时重写所有分片
+                System.err.println("Failed to read tool shard manifest: " + e.getMessage());
+            }
+        }
+
+        Map<String, Long> manifest = new TreeMap<>();
+        Map<String, byte[]> dirtyShards = new TreeMap<>();
+        for (Map.Entry<String, List<ToolItem>> group : groups.entrySet()) {
+            byte[] bytes = JsonCodecs.TOOL_LIST_WRITER.writeValueAsBytes(group.getValue());
+            long checksum = ToolJournal.checksum(bytes);
+            manifest.put(group.getKey(), checksum);
+            if (!Long.valueOf(checksum).equals(current.get(group.getKey()))) {
+                dirtyShards.put(group.getKey(), bytes);
+            }
+        }
+        Set<String> obsoleteShards = new HashSet<>(current.keySet());
+        obsoleteShards.removeAll(manifest.keySet());
+        byte[] manifestBytes = JsonCodecs.CHECKSUM_MAP_WRITER.writeValueAsBytes(manifest);
+
+        return () -> {
+            Path manifestFile = directory.resolve(MANIFEST_FILE);
+            for (Map.Entry<String, byte[]> shard : dirtyShards.entrySet()) {
+                PersistenceWriter.writeAtomically(directory.resolve(shard.getKey()), shard.getValue());
+            }
+            if (!dirtyShards.isEmpty() || !obsoleteShards.isEmpty() || !Files.exists(manifestFile)) {
+                PersistenceWriter.writeAtomically(manifestFile, manifestBytes);
+                if (!dirtyShards.isEmpty()) {
+                    System.out.println("已重写 " + dirtyShards.size() + "/" + manifest.size() + " 个工具分片");
+                }
+            }
+            for (String shard : obsoleteShards) {
+                Files.deleteIfExists(directory.resolve(shard));
+            }
+            return ToolJournal.checksum(Files.readAllBytes(manifestFile));
+        };
+    }
+
+    @Override
+    public void delete() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        // 先删清单，中途失败时剩下的分片不会再被当作有效数据
+        Files.deleteIfExists(directory.resolve(MANIFEST_FILE));
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SHARD_SUFFIX)) {
+            for (Path shard : stream) {
+                Files.delete(shard);
+            }
+        }
+        try {
+            Files.delete(directory);
+        } catch (IOException ignored) {
+            // 目录中还有其他文件时保留
+        }
+    }
+
+    /**
+     * 分类ID转换为分片文件名，下划线开头的名称保留给清单等内部文件
+     */
+    static String shardName(String categoryId) {
+        if (categoryId == null || categoryId.isEmpty()) {
+            return UNCATEGORIZED_SHARD + SHARD_SUFFIX;
+        }
+        String name = categoryId.replaceAll("[^A-Za-z0-9._-]", "_");
+        return (name.startsWith("_") ? "_" + name : name) + SHARD_SUFFIX;
+    }
+
+    private List<ToolItem> readShard(String shard, int batchSize) {
+        List<ToolItem> tools = new ArrayList<>();
+        try {
+            ToolStreamReader.read(directory.resolve(shard), batchSize, tools::addAll);
+        } catch (IOException e) {
+            throw new UncheckedIOException(new IOException(shard + ": " + e.getMessage(), e));
+        }
+        return tools;
+    }
+
+    private Map<String, Long> readManifest(byte[] bytes) throws IOException {
+        return JsonCodecs.CHECKSUM_MAP_READER.readValue(bytes);
+    }
+}
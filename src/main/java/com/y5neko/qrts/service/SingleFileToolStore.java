@@ -0,0 +1,55 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 默认布局：全部工具保存在一个 tools.json 数组中
+ */
+public class SingleFileToolStore implements ToolStore {
+    private final Path file;
+
+    public SingleFileToolStore(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public String getName() {
+        return file.getFileName().toString();
+    }
+
+    @Override
+    public boolean exists() {
+        return Files.exists(file);
+    }
+
+    @Override
+    public List<Path> files() {
+        return Collections.singletonList(file);
+    }
+
+    @Override
+    public long read(int batchSize, Consumer<List<ToolItem>> batchConsumer) throws IOException {
+        return ToolStreamReader.read(file, batchSize, batchConsumer);
+    }
+
+    @Override
+    public WriteTask prepareWrite(List<ToolItem> tools) throws IOException {
+        byte[] bytes = JsonCodecs.TOOL_LIST_WRITER.writeValueAsBytes(tools);
+        return () -> {
+            PersistenceWriter.writeAtomically(file, bytes);
+            return ToolJournal.checksum(bytes);
+        };
+    }
+
+    @Override
+    public void delete() throws IOException {
+        Files.deleteIfExists(file);
+    }
+}
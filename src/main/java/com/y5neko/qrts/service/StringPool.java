@@ -0,0 +1,34 @@
+package com.y5neko.qrts.service;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 目录范围内的字符串池，让大量实体中取值相同的字段共用同一个 String 对象
+ * 与 String.intern() 不同，池随所属仓库一起清空，不会无限制地保留已不用的字符串；自身不做同步
+ */
+final class StringPool {
+    private final Map<String, String> strings = new HashMap<>();
+
+    /**
+     * 返回与参数相等的池内实例，第一次出现时放入池中
+     */
+    String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        if (value.isEmpty()) {
+            return "";
+        }
+        String pooled = strings.putIfAbsent(value, value);
+        return pooled == null ? value : pooled;
+    }
+
+    int size() {
+        return strings.size();
+    }
+
+    void clear() {
+        strings.clear();
+    }
+}
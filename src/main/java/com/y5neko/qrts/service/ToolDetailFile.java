@@ -0,0 +1,71 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.ToolDetails;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+/**
+ * 二进制快照中的工具详细字段段，按记录位置随机读取，最近用过的记录缓存在内存中
+ * 段的内容在读取快照时已复制到内存，不再依赖快照文件，文件被替换或删除后仍可读取
+ */
+final class ToolDetailFile implements ToolItem.DetailLoader {
+    private static final int CACHE_SIZE = 1024;
+
+    private final Path file;
+    // 详细字段段的内容，从第一条记录开始
+    private final ByteBuffer section;
+    private final LruCache<Long, ToolDetails> cache = new LruCache<>(CACHE_SIZE);
+
+    ToolDetailFile(Path file, ByteBuffer section) {
+        this.file = file;
+        this.section = section;
+    }
+
+    /**
+     * 记录在段内的偏移和长度合成一个键，保存在工具对象中
+     */
+    static long key(int offset, int length) {
+        return ((long) offset << 32) | (length & 0xFFFFFFFFL);
+    }
+
+    @Override
+    public ToolDetails load(long detailKey) {
+        ToolDetails details = cache.get(detailKey);
+        if (details == null) {
+            details = read(detailKey);
+            cache.put(detailKey, details);
+        }
+        return details;
+    }
+
+    private ToolDetails read(long detailKey) {
+        // 每次读取使用独立的位置和界限，多个线程可以同时读取
+        ByteBuffer buffer = section.duplicate();
+        try {
+            int position = (int) (detailKey >>> 32);
+            buffer.limit(Math.addExact(position, (int) detailKey));
+            buffer.position(position);
+            return new ToolDetails(readString(buffer), readString(buffer), readString(buffer), readString(buffer));
+        } catch (ArithmeticException | IllegalArgumentException | BufferUnderflowException e) {
+            // 详细字段丢失时不能返回空值，否则之后写回 JSON 会把它们清空
+            throw new UncheckedIOException("Failed to read tool details from " + file.getFileName(),
+                    new IOException("catalog snapshot is corrupted", e));
+        }
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,258 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * 工具变更的追加式日志（JSON Lines）
+ * 首行记录其所基于的工具快照（tools.json 或分片清单）的CRC32，其后每行是一次新增/修改/删除操作。
+ * 启动时只有快照校验值匹配才会重放日志，因此“先写快照再重置日志”之间崩溃也不会重复应用旧操作。
+ * 多个实例共享数据目录时，各自记录已读取到的位置，通过 tail 读取其他实例追加的记录。
+ * 除 replay 外的方法都应在持久化线程上调用。
+ */
+public class ToolJournal {
+    static final long COMPACT_THRESHOLD_BYTES = 256 * 1024;
+
+    private static final String OP_BASE = "base";
+    private static final String OP_PUT = "put";
+    private static final String OP_DELETE = "delete";
+
+    private final Path journalFile;
+    private final ObjectMapper objectMapper;
+    // 当前日志所基于的快照校验值，null表示日志尚未与快照建立对应关系
+    private volatile Long baseChecksum;
+    // 日志尾部存在残缺记录时，后续追加会与残片粘连，必须先压缩重置
+    private volatile boolean truncatedTail;
+    // 已读取（或由本实例写入）的日志字节数
+    private volatile long readOffset;
+
+    public ToolJournal(Path journalFile, ObjectMapper objectMapper) {
+        this.journalFile = journalFile;
+        this.objectMapper = objectMapper;
+    }
+
+    public static long checksum(byte[] snapshotBytes) {
+        CRC32 crc = new CRC32();
+        crc.update(snapshotBytes, 0, snapshotBytes.length);
+        return crc.getValue();
+    }
+
+    /**
+     * 把日志中的操作按顺序应用到从快照加载的工具上，返回应用的操作数
+     * 日志与快照不匹配时忽略整个日志；遇到写了一半的尾行时停止重放
+     */
+    public int replay(long snapshotChecksum, Consumer<ToolItem> onPut, Consumer<String> onDelete) {
+        baseChecksum = null;
+        truncatedTail = false;
+        readOffset = 0;
+        if (!Files.exists(journalFile)) {
+            return 0;
+        }
+
+        try {
+            byte[] data = Files.readAllBytes(journalFile);
+            int headerEnd = indexOf(data, 0);
+            JsonNode header = headerEnd >= 0 ? parseLine(new String(data, 0, headerEnd, StandardCharsets.UTF_8)) : null;
+            if (header == null || !OP_BASE.equals(header.path("op").asText())
+                    || header.path("checksum").asLong() != snapshotChecksum) {
+                if (data.length > 0) {
+                    System.err.println("Tool journal does not match tools.json, ignoring it");
+                }
+                return 0;
+            }
+            baseChecksum = snapshotChecksum;
+            readOffset = headerEnd + 1;
+            return applyRecords(data, 0, onPut, onDelete);
+        } catch (IOException e) {
+            System.err.println("Failed to replay tool journal: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * 应用其他实例在上次读取之后追加的记录，返回应用的操作数
+     * 日志已被其他实例重置（基准快照变化）或删除时返回-1，调用方需要重新加载 tools.json 和整个日志
+     */
+    public int tail(Consumer<ToolItem> onPut, Consumer<String> onDelete) throws IOException {
+        Long expected = baseChecksum;
+        if (expected == null || !Files.exists(journalFile)) {
+            return -1;
+        }
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < readOffset) {
+                return -1;
+            }
+
+            // 头部可能已被重置为新的快照
+            ByteBuffer headerBuffer = ByteBuffer.allocate((int) Math.min(readOffset, 256));
+            channel.read(headerBuffer, 0);
+            byte[] headerBytes = headerBuffer.array();
+            int headerEnd = indexOf(headerBytes, 0);
+            JsonNode header = headerEnd >= 0 ? parseLine(new String(headerBytes, 0, headerEnd, StandardCharsets.UTF_8)) : null;
+            if (header == null || header.path("checksum").asLong() != expected) {
+                return -1;
+            }
+
+            if (size == readOffset) {
+                truncatedTail = false;
+                return 0;
+            }
+            ByteBuffer buffer = ByteBuffer.allocate((int) (size - readOffset));
+            while (buffer.hasRemaining() && channel.read(buffer, readOffset + buffer.position()) > 0) {
+                // 读满新增部分
+            }
+            long start = readOffset;
+            return applyRecords(buffer.array(), start, onPut, onDelete);
+        }
+    }
+
+    /**
+     * 依次应用完整的记录行并推进 readOffset；data 对应日志中从 dataStart 开始的内容
+     */
+    private int applyRecords(byte[] data, long dataStart, Consumer<ToolItem> onPut, Consumer<String> onDelete)
+            throws IOException {
+        int applied = 0;
+        truncatedTail = false;
+        int position = (int) (readOffset - dataStart);
+        while (position < data.length) {
+            int lineEnd = indexOf(data, position);
+            if (lineEnd < 0) {
+                // 没有换行的尾部：写了一半的记录
+                System.err.println("Tool journal has a truncated entry, stopping replay");
+                truncatedTail = true;
+                break;
+            }
+            String line = new String(data, position, lineEnd - position, StandardCharsets.UTF_8);
+            if (!line.trim().isEmpty()) {
+                JsonNode record = parseLine(line);
+                if (record == null) {
+                    System.err.println("Tool journal has a corrupted entry, stopping replay");
+                    truncatedTail = true;
+                    break;
+                }
+                String op = record.path("op").asText();
+                if (OP_PUT.equals(op)) {
+                    onPut.accept(objectMapper.treeToValue(record.get("tool"), ToolItem.class));
+                    applied++;
+                } else if (OP_DELETE.equals(op)) {
+                    onDelete.accept(record.path("id").asText());
+                    applied++;
+                }
+            }
+            position = lineEnd + 1;
+            readOffset = dataStart + position;
+        }
+        return applied;
+    }
+
+    /**
+     * 序列化一条新增/修改记录，在调用线程上执行以固定当时的工具内容
+     */
+    public byte[] encodePut(ToolItem tool) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", OP_PUT);
+        record.set("tool", objectMapper.valueToTree(tool));
+        return encodeLine(record);
+    }
+
+    public byte[] encodeDelete(String toolId) throws IOException {
+        ObjectNode record = objectMapper.createObjectNode();
+        record.put("op", OP_DELETE);
+        record.put("id", toolId);
+        return encodeLine(record);
+    }
+
+    /**
+     * 追加一条记录，日志尚未对应任何快照时返回false，调用方应改为整体压缩
+     */
+    public boolean append(byte[] line) throws IOException {
+        if (baseChecksum == null || truncatedTail) {
+            return false;
+        }
+        try (FileChannel channel = FileChannel.open(journalFile, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            boolean caughtUp = channel.size() == readOffset;
+            ByteBuffer buffer = ByteBuffer.wrap(line);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+            // 之前已读到末尾时，自己写入的记录不需要再被 tail 读回
+            if (caughtUp) {
+                readOffset += line.length;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 当前日志所基于的 tools.json 校验值，日志与快照不对应时返回null
+     */
+    public Long getBaseChecksum() {
+        return truncatedTail ? null : baseChecksum;
+    }
+
+    public boolean needsCompaction() {
+        try {
+            return baseChecksum == null || truncatedTail
+                    || (Files.exists(journalFile) && Files.size(journalFile) > COMPACT_THRESHOLD_BYTES);
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 快照写入完成后调用：用只含新快照校验值的头部替换整个日志
+     */
+    public void reset(long snapshotChecksum) throws IOException {
+        ObjectNode header = objectMapper.createObjectNode();
+        header.put("op", OP_BASE);
+        header.put("checksum", snapshotChecksum);
+        byte[] headerLine = encodeLine(header);
+        PersistenceWriter.writeAtomically(journalFile, headerLine);
+        baseChecksum = snapshotChecksum;
+        truncatedTail = false;
+        readOffset = headerLine.length;
+    }
+
+    public void delete() throws IOException {
+        Files.deleteIfExists(journalFile);
+        baseChecksum = null;
+        truncatedTail = false;
+        readOffset = 0;
+    }
+
+    private byte[] encodeLine(JsonNode record) throws IOException {
+        return (objectMapper.writeValueAsString(record) + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static int indexOf(byte[] data, int from) {
+        for (int i = from; i < data.length; i++) {
+            if (data[i] == '\n') {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private JsonNode parseLine(String line) {
+        try {
+            return objectMapper.readTree(line);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+}
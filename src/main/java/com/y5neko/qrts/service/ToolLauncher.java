@@ -1,20 +1,45 @@
 package com.y5neko.qrts.service;
 
 import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
 import com.y5neko.qrts.model.ToolItem;
 import com.y5neko.qrts.ui.terminal.TerminalDialog;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
 
 public class ToolLauncher {
+    private static final int LAUNCH_PLAN_CACHE_SIZE = 256;
+    // AppSettings.GUI_OUTPUT_MODE 的取值，其他值按 discard 处理
+    public static final String OUTPUT_DISCARD = "discard";
+    public static final String OUTPUT_LOG = "log";
+    public static final String OUTPUT_DRAIN = "drain";
+    // 每个工具保留的最近日志文件数
+    private static final int LOG_FILES_PER_TOOL = 10;
+    private static final String FAN_OUT_PREFIX = "fanout-";
+    static final File NULL_FILE = new File(File.separatorChar == '\\' ? "NUL" : "/dev/null");
+
     private static ToolLauncher instance;
     private DataManager dataManager;
+    private final ExecutableResolver executableResolver = ExecutableResolver.getInstance();
+    // 最近启动过的工具的启动计划：工具ID -> 计划
+    private final LruCache<String, LaunchPlan> launchPlans = new LruCache<>(LAUNCH_PLAN_CACHE_SIZE);
+    private final OutputDrainer outputDrainer = new OutputDrainer();
+    private final WarmProcessPool warmProcessPool = new WarmProcessPool();
+    private final InProcessLauncher inProcessLauncher = new InProcessLauncher();
+    private final CdsArchives cdsArchives;
 
     private ToolLauncher() {
         dataManager = DataManager.getInstance();
+        cdsArchives = new CdsArchives(dataManager.getCdsDirectory());
     }
 
     public static synchronized ToolLauncher getInstance() {
@@ -29,128 +54,278 @@ public class ToolLauncher {
     }
 
     public Process launchTool(ToolItem tool, Runnable onCloseCallback) throws IOException, IllegalArgumentException {
-        Environment environment = findEnvironmentById(tool.getEnvironmentId());
-        if (environment == null) {
-            throw new IllegalArgumentException("未找到ID为 " + tool.getEnvironmentId() + " 的环境");
-        }
+        return launchTool(tool, onCloseCallback, null);
+    }
 
-        List<String> command = new ArrayList<>();
+    /**
+     * 启动工具并向 observer 报告启动结果和输出，用于启动组等需要判断工具是否就绪的场合
+     * GUI工具需要输出时总是在后台按行读取（不写日志）；命令行工具的启动和输出由虚拟终端报告
+     * @param observer 为null时与 launchTool(tool, onCloseCallback) 相同
+     */
+    public Process launchTool(ToolItem tool, Runnable onCloseCallback, LaunchObserver observer) throws IOException, IllegalArgumentException {
+        LaunchPlan plan = getLaunchPlan(tool);
 
         // 根据工具类型选择启动方式
         if (tool.isHasGUI()) {
             // GUI工具：直接运行
-            return launchGUITool(tool, environment, command);
+            Process process = launchGUITool(plan, observer);
+            if (observer != null) {
+                observer.started(process);
+            }
+            return process;
         } else {
             // CLI工具：使用虚拟终端
-            launchCLIToolWithVirtualTerminal(tool, environment, onCloseCallback);
+            launchCLIToolWithVirtualTerminal(tool, onCloseCallback, observer);
             return null; // 虚拟终端模式不返回Process对象
         }
     }
 
-    private Process launchGUITool(ToolItem tool, Environment environment, List<String> command) throws IOException {
-        // 添加环境可执行文件路径
-        command.add(environment.getExecutablePath());
+    /**
+     * 在后台启动一个启动组：没有依赖关系的成员并发启动，依赖的成员就绪后再启动后续成员
+     * @param listener 成员状态变化的通知，在启动组的工作线程上执行
+     */
+    public LaunchGroupRun launchGroup(LaunchGroup group, LaunchGroupListener listener) {
+        LaunchGroupRun run = new LaunchGroupRun(group, this, dataManager, ProcessSupervisor.getInstance(), listener);
+        run.start();
+        return run;
+    }
 
-        // 添加环境参数
-        if (environment.getParameters() != null && !environment.getParameters().trim().isEmpty()) {
-            command.addAll(parseParameters(environment.getParameters()));
+    /**
+     * 在后台按目标批量运行工具：{target} 占位符依次替换为每个目标，每个目标的输出保存为单独的文件
+     * @param concurrency 同时运行的进程数上限
+     * @param ratePerSecond 每秒最多启动的进程数，0 表示不限制
+     * @param timeoutSeconds 单个目标的运行时间上限，超时的进程被结束；0 表示不限制
+     * @param listener 目标状态变化的通知，在批量运行的工作线程上执行
+     * @throws IllegalArgumentException 工具没有 {target} 占位符，或工具的环境不存在
+     */
+    public FanOutRun launchFanOut(ToolItem tool, List<String> targets, int concurrency, double ratePerSecond,
+                                  int timeoutSeconds, FanOutListener listener) throws IOException {
+        if (!LaunchPlan.usesTarget(tool)) {
+            throw new IllegalArgumentException("工具的命令、参数和工作目录中都没有 " + LaunchPlan.TARGET_PLACEHOLDER + " 占位符");
         }
+        LaunchPlan plan = getLaunchPlan(tool);
+        FanOutRun run = new FanOutRun(plan, targets, this, createFanOutDirectory(tool), concurrency, ratePerSecond,
+                timeoutSeconds, listener);
+        run.start();
+        return run;
+    }
 
-        // 添加工具命令
-        if (tool.getCommand() != null && !tool.getCommand().trim().isEmpty()) {
-            command.add(tool.getCommand());
+    /**
+     * 工具的启动计划，命中缓存时不再解析参数；工具或其环境被修改后重新生成
+     * @throws IllegalArgumentException 工具的环境不存在
+     */
+    public LaunchPlan getLaunchPlan(ToolItem tool) {
+        Environment environment = findEnvironmentById(tool.getEnvironmentId());
+        if (environment == null) {
+            throw new IllegalArgumentException("未找到ID为 " + tool.getEnvironmentId() + " 的环境");
         }
+        LaunchPlan plan = launchPlans.get(tool.getId());
+        if (plan == null || !plan.isCompiledFrom(tool, environment)) {
+            plan = LaunchPlan.compile(tool, environment);
+            launchPlans.put(tool.getId(), plan);
+        }
+        return plan;
+    }
 
-        // 添加工具参数
-        if (tool.getArguments() != null && !tool.getArguments().trim().isEmpty()) {
-            command.addAll(parseParameters(tool.getArguments()));
+    private Process launchGUITool(LaunchPlan plan, LaunchObserver observer) throws IOException {
+        // 设置工作目录
+        File workDir = plan.getWorkingDirectory();
+        if (workDir != null && !workDir.isDirectory()) {
+            workDir = null;
         }
 
-        ProcessBuilder processBuilder = new ProcessBuilder(command);
+        // 输出不能留在未读取的管道中，否则管道写满后工具会阻塞
+        String outputMode = dataManager.getSettings().get(AppSettings.GUI_OUTPUT_MODE);
+        boolean watchOutput = observer != null && observer.wantsOutput();
+        if (watchOutput) {
+            outputMode = OUTPUT_DRAIN;
+        }
 
-        // 设置工作目录
-        if (tool.getWorkingDirectory() != null && !tool.getWorkingDirectory().trim().isEmpty()) {
-            File workDir = new File(tool.getWorkingDirectory());
-            if (workDir.exists() && workDir.isDirectory()) {
-                processBuilder.directory(workDir);
+        // 预热进程启动时还不知道运行哪个工具，无法按工具写日志，日志模式总是启动新进程
+        Process process = null;
+        if (!OUTPUT_LOG.equals(outputMode)) {
+            process = warmProcessPool.take(plan, workDir, OUTPUT_DRAIN.equals(outputMode));
+        }
+        if (process == null) {
+            ProcessBuilder.Redirect output = ProcessBuilder.Redirect.PIPE;
+            if (OUTPUT_LOG.equals(outputMode)) {
+                // 由操作系统直接写入文件，不经过Java线程
+                output = ProcessBuilder.Redirect.to(createLogFile(plan.getTool()).toFile());
+            } else if (!OUTPUT_DRAIN.equals(outputMode)) {
+                output = ProcessBuilder.Redirect.to(NULL_FILE);
             }
+            process = startProcess(plan, workDir, output);
         }
 
-        return processBuilder.start();
+        if (watchOutput) {
+            outputDrainer.drain(plan.getTool().getName(), process, line -> {
+                observer.outputLine(line);
+                return observer.wantsOutput();
+            });
+        } else if (OUTPUT_DRAIN.equals(outputMode)) {
+            outputDrainer.drain(plan.getTool().getName(), process);
+        }
+        return process;
     }
 
-    private void launchCLIToolWithVirtualTerminal(ToolItem tool, Environment environment, Runnable onCloseCallback) {
-        // 在JavaFX应用线程中打开终端对话框
-        javafx.application.Platform.runLater(() -> {
-            TerminalDialog terminalDialog = new TerminalDialog(onCloseCallback);
-            terminalDialog.show(tool);
-        });
+    /**
+     * 在虚拟终端中运行计划：错误输出合并到标准输出，由终端通过管道读取
+     * 依次尝试在本程序中运行（环境启用了 inProcess）、预热的进程，最后启动新进程
+     */
+    public Process startTerminalProcess(LaunchPlan plan, File workingDirectory) throws IOException {
+        Process process = inProcessLauncher.start(plan, workingDirectory);
+        if (process == null) {
+            process = warmProcessPool.take(plan, workingDirectory, true);
+        }
+        if (process != null) {
+            return process;
+        }
+        return startProcess(plan, workingDirectory, ProcessBuilder.Redirect.PIPE);
     }
 
-    private Environment findEnvironmentById(String environmentId) {
-        return dataManager.loadEnvironments().stream()
-                .filter(env -> env.getId().equals(environmentId))
-                .findFirst()
-                .orElse(null);
+    /**
+     * 启动新进程，错误输出合并到 output；开启了 AppSettings.JAVA_CDS_ARCHIVES 时为 java -jar 工具使用 CDS 存档
+     */
+    Process startProcess(LaunchPlan plan, File workingDirectory, ProcessBuilder.Redirect output) throws IOException {
+        CdsArchives.Launch launch = dataManager.getSettings().get(AppSettings.JAVA_CDS_ARCHIVES)
+                ? cdsArchives.prepare(plan, workingDirectory)
+                : new CdsArchives.Launch(plan.getArgv(), null);
+        ProcessBuilder processBuilder = new ProcessBuilder(launch.argv);
+        if (workingDirectory != null) {
+            processBuilder.directory(workingDirectory);
+        }
+        processBuilder.redirectErrorStream(true);
+        processBuilder.redirectOutput(output);
+        Process process = null;
+        try {
+            process = processBuilder.start();
+            return process;
+        } finally {
+            cdsArchives.started(launch, process);
+        }
     }
 
-    private List<String> parseParameters(String parameters) {
-        List<String> result = new ArrayList<>();
-        if (parameters == null || parameters.trim().isEmpty()) {
-            return result;
+    /**
+     * 本次运行的日志文件：data/logs/&lt;工具ID&gt;/&lt;启动时间&gt;.log，只保留每个工具最近的几份
+     */
+    private Path createLogFile(ToolItem tool) throws IOException {
+        Path directory = dataManager.getLogDirectory().resolve(tool.getId().replaceAll("[^A-Za-z0-9._-]", "_"));
+        Files.createDirectories(directory);
+
+        List<Path> logs = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(directory, "*.log")) {
+            for (Path entry : entries) {
+                logs.add(entry);
+            }
+        }
+        // 文件名是启动时间，按名称排序即按时间排序
+        Collections.sort(logs);
+        for (int i = 0; i <= logs.size() - LOG_FILES_PER_TOOL; i++) {
+            Files.deleteIfExists(logs.get(i));
         }
 
-        String[] parts = parameters.split("\\s+");
-        for (String part : parts) {
-            if (!part.trim().isEmpty()) {
-                result.add(part.trim());
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        return directory.resolve(name + ".log");
+    }
+
+    /**
+     * 一次批量运行的输出目录：data/logs/&lt;工具ID&gt;/fanout-&lt;启动时间&gt;/，只保留每个工具最近的几次
+     */
+    private Path createFanOutDirectory(ToolItem tool) throws IOException {
+        Path parent = dataManager.getLogDirectory().resolve(tool.getId().replaceAll("[^A-Za-z0-9._-]", "_"));
+        Files.createDirectories(parent);
+
+        List<Path> runs = new ArrayList<>();
+        try (DirectoryStream<Path> entries = Files.newDirectoryStream(parent, FAN_OUT_PREFIX + "*")) {
+            for (Path entry : entries) {
+                if (Files.isDirectory(entry)) {
+                    runs.add(entry);
+                }
+            }
+        }
+        Collections.sort(runs);
+        for (int i = 0; i <= runs.size() - LOG_FILES_PER_TOOL; i++) {
+            // 目录中只有各目标的输出文件，没有子目录
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(runs.get(i))) {
+                for (Path file : files) {
+                    Files.deleteIfExists(file);
+                }
             }
+            Files.deleteIfExists(runs.get(i));
         }
-        return result;
+
+        String name = new SimpleDateFormat("yyyyMMdd-HHmmss-SSS").format(new Date());
+        return Files.createDirectories(parent.resolve(FAN_OUT_PREFIX + name));
+    }
+
+    private void launchCLIToolWithVirtualTerminal(ToolItem tool, Runnable onCloseCallback, LaunchObserver observer) {
+        // 在JavaFX应用线程中打开终端对话框
+        javafx.application.Platform.runLater(() -> {
+            TerminalDialog terminalDialog = new TerminalDialog(onCloseCallback, observer);
+            terminalDialog.show(tool);
+        });
+    }
+
+    private Environment findEnvironmentById(String environmentId) {
+        return dataManager.findEnvironmentById(environmentId);
     }
 
     public boolean validateEnvironment(Environment environment) {
-        if (environment == null || environment.getExecutablePath() == null) {
+        if (environment == null || environment.getExecutablePath() == null || environment.getExecutablePath().trim().isEmpty()) {
             return false;
         }
-
-        File executable = new File(environment.getExecutablePath());
-        return executable.exists() && executable.isFile() && executable.canExecute();
+        return executableResolver.resolve(environment.getExecutablePath()).isExecutable();
     }
 
     public boolean validateTool(ToolItem tool) {
+        return validateToolDetailed(tool) == null;
+    }
+
+    /**
+     * 检查工具能否启动，可执行文件的检查结果会被缓存
+     * @return 第一个发现的问题，可以启动时返回null
+     */
+    public String validateToolDetailed(ToolItem tool) {
         if (tool == null) {
-            return false;
+            return "工具对象为空";
         }
 
-        // 检查必填字段
         if (tool.getCommand() == null || tool.getCommand().trim().isEmpty()) {
-            return false;
+            return "工具命令未配置";
         }
 
         if (tool.getEnvironmentId() == null || tool.getEnvironmentId().trim().isEmpty()) {
-            return false;
+            return "工具未指定运行环境";
         }
 
         Environment environment = findEnvironmentById(tool.getEnvironmentId());
         if (environment == null) {
-            return false;
+            return "找不到ID为 '" + tool.getEnvironmentId() + "' 的运行环境";
         }
 
-        // 检查可执行文件是否存在
-        if (!validateEnvironment(environment)) {
-            return false;
+        String executablePath = environment.getExecutablePath();
+        if (executablePath == null || executablePath.trim().isEmpty()) {
+            return "环境 '" + environment.getName() + "' 的可执行文件路径未配置";
         }
 
-        // 检查工具命令是否存在
-        if (tool.getCommand() != null && !tool.getCommand().trim().isEmpty()) {
-            File toolCommand = new File(tool.getCommand());
-            // 如果是绝对路径，检查文件是否存在
-            if (toolCommand.isAbsolute() && !toolCommand.exists()) {
-                return false;
-            }
+        // 不含路径的可执行文件（如 python3）在 PATH 中查找
+        switch (executableResolver.resolve(executablePath).getStatus()) {
+            case NOT_FOUND:
+                return "环境可执行文件不存在: " + executablePath;
+            case NOT_FILE:
+                return "环境可执行文件不是有效的文件: " + executablePath;
+            case NOT_EXECUTABLE:
+                return "环境可执行文件没有执行权限: " + executablePath;
+            default:
+                break;
+        }
+
+        // 检查工具命令（如果是绝对路径；含目标占位符时按目标确定，无法预先检查）
+        if (new File(tool.getCommand()).isAbsolute() && !tool.getCommand().contains(LaunchPlan.TARGET_PLACEHOLDER)
+                && executableResolver.resolve(tool.getCommand()).getStatus() == ExecutableResolver.Status.NOT_FOUND) {
+            return "工具命令文件不存在: " + tool.getCommand();
         }
 
-        return true;
+        return null; // 验证通过
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,46 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 工具数据的基准存储布局（变更日志之下的那一份快照）
+ * 读写都返回一个校验值，变更日志以它为基准判断自己是否对应当前的快照。
+ */
+public interface ToolStore {
+    /**
+     * 显示在日志中的名称
+     */
+    String getName();
+
+    boolean exists();
+
+    /**
+     * 组成这份快照的文件，用于检测外部修改和二进制快照的指纹
+     */
+    List<Path> files();
+
+    /**
+     * 按批读取全部工具，回调在调用线程上执行
+     * @return 快照的校验值
+     */
+    long read(int batchSize, Consumer<List<ToolItem>> batchConsumer) throws IOException;
+
+    /**
+     * 序列化要写出的内容，调用方在持有内存数据锁时调用，实际写盘由返回的任务完成
+     */
+    WriteTask prepareWrite(List<ToolItem> tools) throws IOException;
+
+    void delete() throws IOException;
+
+    interface WriteTask {
+        /**
+         * 写盘并返回新快照的校验值
+         */
+        long commit() throws IOException;
+    }
+}
@@ -0,0 +1,68 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.y5neko.qrts.model.ToolItem;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * 基于 Jackson JsonParser 的 tools.json 流式读取器
+ * 逐个对象解析并按批回调，内存占用只与批大小有关，而不是整个文件
+ */
+public class ToolStreamReader {
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private ToolStreamReader() {}
+
+    /**
+     * 读取整个工具数组，每凑满 batchSize 个工具回调一次
+     * @return 文件内容的CRC32，用于与变更日志的基准快照比对
+     */
+    public static long read(Path file, int batchSize, Consumer<List<ToolItem>> batchConsumer) throws IOException {
+        CRC32 crc = new CRC32();
+        try (InputStream in = new CheckedInputStream(new BufferedInputStream(Files.newInputStream(file), BUFFER_SIZE), crc);
+             JsonParser parser = JsonCodecs.TOOL_READER.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new JsonParseException(parser, "tools.json 顶层必须是数组");
+            }
+
+            List<ToolItem> batch = new ArrayList<>(batchSize);
+            JsonToken token;
+            while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                if (token == null) {
+                    throw new JsonParseException(parser, "tools.json 意外结束");
+                }
+                if (token != JsonToken.START_OBJECT) {
+                    parser.skipChildren();
+                    continue;
+                }
+                batch.add(JsonCodecs.TOOL_READER.readValue(parser));
+                if (batch.size() >= batchSize) {
+                    batchConsumer.accept(batch);
+                    batch = new ArrayList<>(batchSize);
+                }
+            }
+            if (!batch.isEmpty()) {
+                batchConsumer.accept(batch);
+            }
+
+            // 读完数组之后的剩余字节，使校验值覆盖整个文件
+            byte[] skip = new byte[BUFFER_SIZE];
+            while (in.read(skip) != -1) {
+                // 仅用于推进校验
+            }
+        }
+        return crc.getValue();
+    }
+}
@@ -0,0 +1,151 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.y5neko.qrts.model.Versioned;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 多个实例共享的小型 JSON 列表文件（环境、分类），保存时按实体合并并发修改
+ * 以上次与磁盘同步时各实体的内容为基准做三方合并：只有本地改过的实体采用本地版本，
+ * 只有其他实例改过的采用磁盘版本，双方都改过且内容不同时保留磁盘版本并报告冲突
+ */
+public class VersionedListFile<T extends Versioned> {
+    private static final String VERSION_FIELD = "version";
+
+    private final Path file;
+    private final ObjectMapper objectMapper;
+    private final Class<T> type;
+    private final ObjectReader listReader;
+    private final ObjectWriter listWriter;
+    // 实体ID -> 上次与磁盘同步时的内容（含版本号）
+    private final Map<String, JsonNode> baseline = new HashMap<>();
+
+    public VersionedListFile(Path file, ObjectMapper objectMapper, Class<T> type) {
+        this.file = file;
+        this.objectMapper = objectMapper;
+        this.type = type;
+        this.listReader = JsonCodecs.listReader(type);
+        this.listWriter = JsonCodecs.listWriter(type);
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    public List<T> parse() throws IOException {
+        return listReader.readValue(file.toFile());
+    }
+
+    /**
+     * 记录刚从磁盘读到的内容作为之后合并的基准
+     */
+    public void resetBaseline(List<T> entities) {
+        baseline.clear();
+        for (T entity : entities) {
+            baseline.put(entity.getId(), objectMapper.valueToTree(entity));
+        }
+    }
+
+    /**
+     * 把本地列表与磁盘上的最新内容合并后写回，返回合并结果；无法合并的实体描述追加到 conflicts
+     * 调用方需持有数据目录锁
+     */
+    public List<T> merge(List<T> local, List<String> conflicts) throws IOException {
+        List<T> disk = Files.exists(file) ? parse() : new ArrayList<>();
+        Map<String, T> localById = new LinkedHashMap<>();
+        for (T entity : local) {
+            localById.put(entity.getId(), entity);
+        }
+        Map<String, T> diskById = new LinkedHashMap<>();
+        for (T entity : disk) {
+            diskById.put(entity.getId(), entity);
+        }
+
+        List<T> merged = new ArrayList<>();
+        for (T diskEntity : disk) {
+            String id = diskEntity.getId();
+            JsonNode base = baseline.get(id);
+            T localEntity = localById.get(id);
+            if (base == null || (localEntity != null && sameContent(objectMapper.valueToTree(localEntity), base))) {
+                // 其他实例新增，或本地未修改
+                merged.add(diskEntity);
+                continue;
+            }
+
+            boolean remoteChanged = base.path(VERSION_FIELD).asLong() != diskEntity.getVersion();
+            if (remoteChanged) {
+                if (localEntity == null || !sameContent(objectMapper.valueToTree(localEntity), objectMapper.valueToTree(diskEntity))) {
+                    conflicts.add(describe(diskEntity) + " 已被其他实例修改，本地的" + (localEntity == null ? "删除" : "修改") + "未保存");
+                }
+                merged.add(diskEntity);
+            } else if (localEntity != null) {
+                T updated = copy(localEntity);
+                updated.setVersion(diskEntity.getVersion() + 1);
+                merged.add(updated);
+            }
+            // 本地删除且其他实例未修改：不再写入
+        }
+
+        for (T localEntity : local) {
+            String id = localEntity.getId();
+            if (diskById.containsKey(id)) {
+                continue;
+            }
+            JsonNode base = baseline.get(id);
+            if (base == null) {
+                // 本地新增
+                T added = copy(localEntity);
+                added.setVersion(1);
+                merged.add(added);
+            } else if (!sameContent(objectMapper.valueToTree(localEntity), base)) {
+                conflicts.add(describe(localEntity) + " 已被其他实例删除，本地的修改未保存");
+            }
+        }
+
+        byte[] content = listWriter.writeValueAsBytes(merged);
+        // 只是同步了其他实例的修改时不必重写文件
+        if (!Files.exists(file) || !objectMapper.valueToTree(disk).equals(objectMapper.valueToTree(merged))) {
+            PersistenceWriter.writeAtomically(file, content);
+        }
+        resetBaseline(merged);
+        return merged;
+    }
+
+    /**
+     * 本地实体可能已发布给其他线程读取，改版本号前先复制
+     */
+    private T copy(T entity) {
+        return objectMapper.convertValue(entity, type);
+    }
+
+    /**
+     * 比较两个实体的内容，忽略版本号
+     */
+    public static boolean sameContent(JsonNode a, JsonNode b) {
+        if (a instanceof ObjectNode && b instanceof ObjectNode) {
+            ObjectNode left = ((ObjectNode) a).deepCopy();
+            ObjectNode right = ((ObjectNode) b).deepCopy();
+            left.remove(VERSION_FIELD);
+            right.remove(VERSION_FIELD);
+            return left.equals(right);
+        }
+        return a.equals(b);
+    }
+
+    private String describe(T entity) {
+        JsonNode node = objectMapper.valueToTree(entity);
+        return "'" + node.path("name").asText(entity.getId()) + "'";
+    }
+}
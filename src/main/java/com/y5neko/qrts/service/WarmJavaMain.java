@@ -0,0 +1,118 @@
+package com.y5neko.qrts.service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UnsupportedEncodingException;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarFile;
+import java.util.jar.Manifest;
+
+/**
+ * 预热的 Java 进程的入口，由 WarmProcessPool 在独立的 JVM 中启动，不依赖本程序的其他类
+ * 启动后阻塞读取标准输入的一行（URL编码、空格分隔的参数，与 java 命令在选项之后的部分相同），
+ * 支持 "-jar 文件 参数..."、"-cp 类路径 主类 参数..." 和 "主类 参数..." 三种形式，随后在新的类加载器中运行主类
+ */
+public final class WarmJavaMain {
+    static final List<String> CLASS_PATH_OPTIONS = Arrays.asList("-cp", "-classpath", "--class-path");
+
+    private WarmJavaMain() {}
+
+    public static void main(String[] ignored) throws Exception {
+        String line = readLine(System.in);
+        if (line == null) {
+            // 主程序退出，管道关闭
+            return;
+        }
+        List<String> args = new ArrayList<>();
+        for (String field : line.split(" ", -1)) {
+            args.add(decode(field));
+        }
+
+        String classPath;
+        String mainClass;
+        int rest;
+        if (args.get(0).equals("-jar")) {
+            classPath = args.get(1);
+            mainClass = null;
+            rest = 2;
+        } else if (CLASS_PATH_OPTIONS.contains(args.get(0))) {
+            classPath = args.get(1);
+            mainClass = args.get(2);
+            rest = 3;
+        } else {
+            classPath = System.getenv("CLASSPATH") != null ? System.getenv("CLASSPATH") : ".";
+            mainClass = args.get(0);
+            rest = 1;
+        }
+
+        List<URL> urls = new ArrayList<>();
+        if (mainClass == null) {
+            File jar = new File(classPath).getAbsoluteFile();
+            urls.add(jar.toURI().toURL());
+            try (JarFile jarFile = new JarFile(jar)) {
+                Manifest manifest = jarFile.getManifest();
+                Attributes attributes = manifest != null ? manifest.getMainAttributes() : new Attributes();
+                mainClass = attributes.getValue(Attributes.Name.MAIN_CLASS);
+                if (mainClass == null) {
+                    System.err.println("no main manifest attribute, in " + classPath);
+                    System.exit(1);
+                }
+                // 清单中的 Class-Path 是相对于 jar 所在目录的空格分隔URL
+                String manifestClassPath = attributes.getValue(Attributes.Name.CLASS_PATH);
+                if (manifestClassPath != null) {
+                    URL base = jar.getParentFile().toURI().toURL();
+                    for (String entry : manifestClassPath.trim().split("\\s+")) {
+                        if (!entry.isEmpty()) {
+                            urls.add(new URL(base, entry));
+                        }
+                    }
+                }
+            }
+        } else {
+            for (String entry : classPath.split(File.pathSeparator)) {
+                urls.add(new File(entry.isEmpty() ? "." : entry).getAbsoluteFile().toURI().toURL());
+            }
+        }
+
+        // 父加载器是平台（扩展）类加载器，本程序的类对工具不可见
+        ClassLoader loader = new URLClassLoader(urls.toArray(new URL[0]), ClassLoader.getSystemClassLoader().getParent());
+        Thread.currentThread().setContextClassLoader(loader);
+        System.setProperty("java.class.path", classPath);
+        Method main = Class.forName(mainClass, false, loader).getMethod("main", String[].class);
+        try {
+            main.invoke(null, (Object) args.subList(rest, args.size()).toArray(new String[0]));
+        } catch (InvocationTargetException e) {
+            e.getCause().printStackTrace();
+            System.exit(1);
+        }
+    }
+
+    /**
+     * 逐字节读取一行，不预读，之后的输入完整留给工具
+     */
+    private static String readLine(InputStream in) throws IOException {
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        int b;
+        while ((b = in.read()) != '\n') {
+            if (b < 0) {
+                return null;
+            }
+            line.write(b);
+        }
+        return new String(line.toByteArray(), "US-ASCII");
+    }
+
+    private static String decode(String field) throws UnsupportedEncodingException {
+        return URLDecoder.decode(field, "UTF-8");
+    }
+}
@@ -0,0 +1,340 @@
+package com.y5neko.qrts.service;
+
+import com.y5neko.qrts.model.Environment;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
+import java.net.URISyntaxException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.security.CodeSource;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 为启用了预热的环境（Environment.warmProcesses &gt; 0）保持若干已启动、正在等待的解释器进程
+ * 启动工具时把工具的参数写入等待中的进程的标准输入，由进程内的引导代码运行工具，省去解释器本身的启动时间；
+ * 进程用掉后在后台补充。支持 java、python、node 三种环境类型，
+ * 没有可用的进程或参数形式不支持时返回null，由调用方照常启动新进程
+ */
+final class WarmProcessPool {
+    // 一组预热进程超过此时间未被使用则全部结束，释放内存
+    private static final long IDLE_TIMEOUT_MS = 10 * 60 * 1000;
+    private static final long EXPIRE_CHECK_INTERVAL_MS = 60 * 1000;
+
+    // 逐字节读取交接行：sys.stdin 会预读，多读的部分对直接读文件描述符0的工具和子进程不可见
+    private static final String PYTHON_BOOTSTRAP = String.join("\n",
+            "import sys, os, runpy",
+            "try:",
+            "    from urllib.parse import unquote_plus",
+            "except ImportError:",
+            "    from urllib import unquote_plus",
+            "line = b''",
+            "while True:",
+            "    c = os.read(0, 1)",
+            "    if not c:",
+            "        sys.exit(0)",
+            "    if c == b'\\n':",
+            "        break",
+            "    line += c",
+            "if sys.version_info[0] >= 3:",
+            "    line = line.decode('ascii')",
+            "a = [unquote_plus(x) for x in line.split(' ')]",
+            "if a[0] == '-m':",
+            "    sys.argv = [a[1]] + a[2:]",
+            "    runpy.run_module(a[1], run_name='__main__', alter_sys=True)",
+            "elif a[0] == '-c':",
+            "    sys.argv = ['-c'] + a[2:]",
+            "    exec(compile(a[1], '<string>', 'exec'), {'__name__': '__main__'})",
+            "else:",
+            "    sys.argv = a",
+            "    sys.path[0] = os.path.dirname(os.path.abspath(a[0]))",
+            "    runpy.run_path(a[0], run_name='__main__')");
+
+    private static final String NODE_BOOTSTRAP = String.join("\n",
+            "const fs = require('fs'), path = require('path');",
+            "let line = '';",
+            "const b = Buffer.alloc(1);",
+            "for (;;) {",
+            "  let n;",
+            "  try { n = fs.readSync(0, b, 0, 1, null); } catch (e) {",
+            "    if (e.code === 'EAGAIN') { Atomics.wait(new Int32Array(new SharedArrayBuffer(4)), 0, 0, 5); continue; }",
+            "    throw e;",
+            "  }",
+            "  if (n === 0) process.exit(0);",
+            "  if (b[0] === 10) break;",
+            "  line += String.fromCharCode(b[0]);",
+            "}",
+            "const a = line.split(' ').map(s => decodeURIComponent(s.replace(/\\+/g, ' ')));",
+            "process.argv = [process.argv[0], path.resolve(a[0])].concat(a.slice(1));",
+            "require('module').runMain();");
+
+    // 这些解释器选项的值是下一个参数，不能把值当作脚本或主类
+    private static final List<String> JAVA_VALUE_OPTIONS = Arrays.asList("--add-opens", "--add-exports", "--add-reads",
+            "--add-modules", "--module-path", "-p", "--upgrade-module-path", "--limit-modules", "--patch-module");
+    private static final List<String> PYTHON_VALUE_OPTIONS = Arrays.asList("-W", "-X");
+    private static final List<String> NODE_VALUE_OPTIONS = Arrays.asList("-r", "--require", "--loader",
+            "--experimental-loader", "--import");
+
+    /**
+     * 一组可互换的预热进程：解释器、解释器选项、工作目录和输出方式都相同
+     */
+    private static final class Pool {
+        final List<String> command;
+        final File directory;
+        final boolean pipeOutput;
+        final Deque<Process> idle = new ArrayDeque<>();
+        int target;
+        int starting;
+        long lastUsed;
+
+        Pool(List<String> command, File directory, boolean pipeOutput) {
+            this.command = command;
+            this.directory = directory;
+            this.pipeOutput = pipeOutput;
+        }
+    }
+
+    private final Map<String, Pool> pools = new HashMap<>();
+    private final ScheduledExecutorService spawner;
+
+    WarmProcessPool() {
+        spawner = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "qrts-warm-pool");
+            thread.setDaemon(true);
+            return thread;
+        });
+        spawner.scheduleWithFixedDelay(this::expireIdle, EXPIRE_CHECK_INTERVAL_MS, EXPIRE_CHECK_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        // 预热进程在标准输入关闭时自行退出，这里只是尽早结束
+        Runtime.getRuntime().addShutdownHook(new Thread(this::destroyAll, "qrts-warm-pool-shutdown"));
+    }
+
+    /**
+     * 用一个预热的进程运行计划中的工具
+     * @param directory 工作目录，null表示继承本程序的工作目录
+     * @param pipeOutput true时输出（已合并错误输出）留在管道中由调用方读取，否则丢弃
+     * @return 已开始运行工具的进程；环境未启用预热、参数形式不支持或暂无可用进程时返回null
+     */
+    Process take(LaunchPlan plan, File directory, boolean pipeOutput) {
+        Environment environment = plan.getEnvironment();
+        if (environment.getWarmProcesses() <= 0) {
+            return null;
+        }
+        String kind = environment.getType() == null ? "" : environment.getType().toLowerCase(Locale.ROOT);
+        List<String> argv = plan.getArgv();
+        int toolStart = toolStart(kind, argv);
+        List<String> command = toolStart < 0 ? null : interpreterCommand(kind, argv.subList(0, toolStart));
+        if (command == null) {
+            return null;
+        }
+        String handOff = encode(argv.subList(toolStart, argv.size()));
+
+        Pool pool;
+        Process process;
+        synchronized (this) {
+            String key = command + "\u0000" + directory + "\u0000" + pipeOutput;
+            pool = pools.get(key);
+            if (pool == null) {
+                pool = new Pool(command, directory, pipeOutput);
+                pools.put(key, pool);
+            }
+            pool.target = environment.getWarmProcesses();
+            pool.lastUsed = System.currentTimeMillis();
+            process = pool.idle.pollFirst();
+            refill(pool);
+        }
+
+        // 交接失败（进程已退出或管道断开）的进程直接丢弃，换下一个
+        while (process != null) {
+            if (process.isAlive() && handOff(process, handOff)) {
+                return process;
+            }
+            process.destroyForcibly();
+            synchronized (this) {
+                process = pool.idle.pollFirst();
+                refill(pool);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * argv 中工具部分的开头：可执行文件和解释器选项之后的第一个参数
+     * @return 不支持的环境类型或参数形式返回-1
+     */
+    static int toolStart(String kind, List<String> argv) {
+        List<String> valueOptions;
+        switch (kind) {
+            case "java": valueOptions = JAVA_VALUE_OPTIONS; break;
+            case "python": valueOptions = PYTHON_VALUE_OPTIONS; break;
+            case "node": valueOptions = NODE_VALUE_OPTIONS; break;
+            default: return -1;
+        }
+
+        int toolStart = 1;
+        while (toolStart < argv.size()) {
+            String arg = argv.get(toolStart);
+            if (!arg.startsWith("-") || isToolOption(kind, arg)) {
+                break;
+            }
+            toolStart += valueOptions.contains(arg) ? 2 : 1;
+        }
+        if (toolStart >= argv.size() || !isSupportedToolPart(kind, argv.subList(toolStart, argv.size()))) {
+            return -1;
+        }
+        return toolStart;
+    }
+
+    /**
+     * 预热进程的启动命令：可执行文件、解释器选项，再加上等待读取工具参数的引导代码
+     */
+    private static List<String> interpreterCommand(String kind, List<String> interpreter) {
+        List<String> command = new ArrayList<>(interpreter);
+        switch (kind) {
+            case "java":
+                String classPath = ownClassPath();
+                if (classPath == null) {
+                    return null;
+                }
+                command.addAll(Arrays.asList("-cp", classPath, WarmJavaMain.class.getName()));
+                break;
+            case "python":
+                command.addAll(Arrays.asList("-c", PYTHON_BOOTSTRAP));
+                break;
+            default:
+                command.addAll(Arrays.asList("-e", NODE_BOOTSTRAP));
+                break;
+        }
+        return command;
+    }
+
+    // 选项之后工具部分的开头：java 的 -jar/-cp，python 的 -m/-c
+    private static boolean isToolOption(String kind, String arg) {
+        switch (kind) {
+            case "java": return arg.equals("-jar") || WarmJavaMain.CLASS_PATH_OPTIONS.contains(arg);
+            case "python": return arg.equals("-m") || arg.equals("-c");
+            default: return false;
+        }
+    }
+
+    private static boolean isSupportedToolPart(String kind, List<String> tool) {
+        String first = tool.get(0);
+        switch (kind) {
+            case "java":
+                if (first.equals("-jar")) {
+                    return tool.size() >= 2;
+                }
+                return WarmJavaMain.CLASS_PATH_OPTIONS.contains(first) ? tool.size() >= 3 : !first.startsWith("-");
+            case "python":
+                return !first.startsWith("-") || tool.size() >= 2;
+            default:
+                // node 的 -e/-p 等直接执行代码的形式不支持
+                return !first.startsWith("-");
+        }
+    }
+
+    /**
+     * 本程序的类所在的 jar 或目录，预热的 JVM 从这里加载 WarmJavaMain
+     */
+    private static String ownClassPath() {
+        CodeSource source = WarmJavaMain.class.getProtectionDomain().getCodeSource();
+        if (source == null) {
+            return null;
+        }
+        try {
+            return new File(source.getLocation().toURI()).getPath();
+        } catch (URISyntaxException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static String encode(List<String> args) {
+        StringBuilder line = new StringBuilder();
+        try {
+            for (String arg : args) {
+                if (line.length() > 0) {
+                    line.append(' ');
+                }
+                line.append(URLEncoder.encode(arg, "UTF-8"));
+            }
+        } catch (UnsupportedEncodingException e) {
+            throw new IllegalStateException(e);
+        }
+        return line.append('\n').toString();
+    }
+
+    private static boolean handOff(Process process, String line) {
+        try {
+            OutputStream in = process.getOutputStream();
+            in.write(line.getBytes(StandardCharsets.US_ASCII));
+            in.flush();
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 在后台补足预热进程，调用时持有 this 的锁
+     */
+    private void refill(Pool pool) {
+        while (pool.idle.size() + pool.starting < pool.target) {
+            pool.starting++;
+            spawner.execute(() -> spawn(pool));
+        }
+    }
+
+    private void spawn(Pool pool) {
+        Process process = null;
+        try {
+            ProcessBuilder processBuilder = new ProcessBuilder(pool.command);
+            if (pool.directory != null) {
+                processBuilder.directory(pool.directory);
+            }
+            processBuilder.redirectErrorStream(true);
+            if (!pool.pipeOutput) {
+                processBuilder.redirectOutput(ProcessBuilder.Redirect.to(ToolLauncher.NULL_FILE));
+            }
+            process = processBuilder.start();
+        } catch (IOException e) {
+            System.err.println("Failed to start warm process " + pool.command.get(0) + ": " + e.getMessage());
+        }
+        synchronized (this) {
+            pool.starting--;
+            if (process != null) {
+                pool.idle.addLast(process);
+            }
+        }
+    }
+
+    private synchronized void expireIdle() {
+        long now = System.currentTimeMillis();
+        Iterator<Pool> iterator = pools.values().iterator();
+        while (iterator.hasNext()) {
+            Pool pool = iterator.next();
+            if (now - pool.lastUsed > IDLE_TIMEOUT_MS && pool.starting == 0) {
+                pool.idle.forEach(Process::destroy);
+                iterator.remove();
+            }
+        }
+    }
+
+    private synchronized void destroyAll() {
+        for (Pool pool : pools.values()) {
+            pool.idle.forEach(Process::destroy);
+            pool.idle.clear();
+        }
+    }
+}
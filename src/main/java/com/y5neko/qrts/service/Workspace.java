@@ -0,0 +1,1343 @@
+package com.y5neko.qrts.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.ToolCategory;
+import com.y5neko.qrts.model.ToolItem;
+import com.y5neko.qrts.model.Versioned;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * 一个工作区：一个数据目录中的环境、分类、工具、启动组，以及它们的内存仓库、持久化和多实例同步
+ * 由 DataManager 创建和切换；持久化线程和应用设置在所有工作区之间共享
+ */
+final class Workspace {
+    static final String ENVIRONMENTS_FILE = "environments.json";
+    static final String CATEGORIES_FILE = "categories.json";
+    static final String LAUNCH_GROUPS_FILE = "launch_groups.json";
+    static final String TOOLS_FILE = "tools.json";
+    static final String TOOLS_JOURNAL_FILE = "tools.journal";
+    static final String TOOLS_SHARD_DIR = "tools";
+    static final String CATALOG_SNAPSHOT_FILE = "catalog.bin";
+    // 工具存储布局配置项，值为 sharded 时按分类分片保存到 tools/，否则使用单个 tools.json
+    private static final String TOOL_STORAGE_SHARDED = "sharded";
+    private static final int STREAM_BATCH_SIZE = 500;
+
+    private final String name;
+    private final Path directory;
+    private final PersistenceWriter persistenceWriter;
+    private final AppSettings appSettings;
+    // 由 DataManager 提供，只在本工作区是当前工作区时转发给界面
+    private final CatalogListener listener;
+    private final ObjectMapper objectMapper = JsonCodecs.mapper();
+    private final ToolJournal toolJournal;
+    private final ToolStore singleFileToolStore;
+    private final ToolStore shardedToolStore;
+    private final AtomicBoolean toolsCompactionPending = new AtomicBoolean(false);
+    // 流式加载进行中时，其他线程访问工具数据需等待加载结束
+    private boolean toolsLoading = false;
+    // 本轮缓存是否已尝试过二进制快照，invalidate 后重新尝试
+    private boolean snapshotChecked = false;
+    private final AtomicBoolean snapshotWritePending = new AtomicBoolean(false);
+    private final DataHistory history;
+
+    // 外部修改检测：本程序最后一次读写各数据文件时的大小和修改时间，不同则说明被其他实例或外部程序重写
+    // 工具快照可能由多个文件组成，记在 TOOLS_FILE 名下
+    private final Map<String, long[]> knownFileStamps = new ConcurrentHashMap<>();
+
+    // 多实例共享：环境、分类和启动组整体合并写回，工具按条提交到日志
+    private final VersionedListFile<Environment> environmentFile;
+    private final VersionedListFile<ToolCategory> categoryFile;
+    private final VersionedListFile<LaunchGroup> launchGroupFile;
+    // 尚未提交到日志的本地工具修改：工具ID -> 排队中的修改数
+    private final Map<String, Integer> pendingToolChanges = new HashMap<>();
+    // 本地修改排队期间读到的其他实例对同一工具的修改（null表示已删除），提交时用于冲突检测
+    private final Map<String, ToolItem> remoteToolState = new HashMap<>();
+    private final Set<String> remoteWinningTools = new HashSet<>();
+    private DataDirectoryWatcher dataWatcher;
+
+    // 内存仓库，按ID索引，写入时同步落盘；只能通过 mutate 在对象锁内修改
+    private final EntityRepository<Environment> environmentRepository = new EntityRepository<>(Environment::getId);
+    private final EntityRepository<ToolCategory> categoryRepository = new EntityRepository<>(ToolCategory::getId);
+    private final EntityRepository<LaunchGroup> launchGroupRepository = new EntityRepository<>(LaunchGroup::getId);
+    private final EntityRepository<ToolItem> toolRepository = new EntityRepository<>(ToolItem::getId, Workspace::internToolStrings);
+    private final SecondaryIndex<ToolItem> toolsByCategory = toolRepository.addIndex(ToolItem::getCategoryId);
+    private final SecondaryIndex<ToolItem> toolsByEnvironment = toolRepository.addIndex(ToolItem::getEnvironmentId);
+    // 每次修改后发布的只读视图，读取方无需加锁
+    private volatile Catalog catalog = Catalog.EMPTY;
+
+    Workspace(String name, Path directory, PersistenceWriter persistenceWriter, AppSettings appSettings,
+              CatalogListener listener) {
+        this.name = name;
+        this.directory = directory;
+        this.persistenceWriter = persistenceWriter;
+        this.appSettings = appSettings;
+        this.listener = listener;
+        toolJournal = new ToolJournal(directory.resolve(TOOLS_JOURNAL_FILE), objectMapper);
+        singleFileToolStore = new SingleFileToolStore(directory.resolve(TOOLS_FILE));
+        shardedToolStore = new ShardedToolStore(directory.resolve(TOOLS_SHARD_DIR));
+        environmentFile = new VersionedListFile<>(directory.resolve(ENVIRONMENTS_FILE), objectMapper, Environment.class);
+        categoryFile = new VersionedListFile<>(directory.resolve(CATEGORIES_FILE), objectMapper, ToolCategory.class);
+        launchGroupFile = new VersionedListFile<>(directory.resolve(LAUNCH_GROUPS_FILE), objectMapper, LaunchGroup.class);
+        history = new DataHistory(directory, objectMapper);
+    }
+
+    String getName() {
+        return name;
+    }
+
+    Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * 丢弃内存数据，下次访问时重新从磁盘加载；调用前应先等待排队中的写入落盘
+     */
+    synchronized void invalidate() {
+        mutate(() -> {
+            environmentRepository.invalidate();
+            categoryRepository.invalidate();
+            toolRepository.invalidate();
+            launchGroupRepository.invalidate();
+        });
+        snapshotChecked = false;
+    }
+
+    /**
+     * 只在持久化线程上执行：持有数据目录锁删除全部数据文件，下次访问时重新生成默认数据
+     * 调用前应先等待排队中的写入落盘
+     */
+    @SuppressWarnings("try")
+    void deleteDataFiles() throws IOException {
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            Files.deleteIfExists(directory.resolve(ENVIRONMENTS_FILE));
+            Files.deleteIfExists(directory.resolve(CATEGORIES_FILE));
+            Files.deleteIfExists(directory.resolve(LAUNCH_GROUPS_FILE));
+            singleFileToolStore.delete();
+            shardedToolStore.delete();
+            Files.deleteIfExists(directory.resolve(CATALOG_SNAPSHOT_FILE));
+            toolJournal.delete();
+        } finally {
+            invalidate();
+        }
+    }
+
+    // 只读视图与写入路径
+    /**
+     * 当前发布的环境、分类、工具、启动组视图，必要时先加载；之后的读取不需要任何锁
+     * 视图不会随后续修改变化，需要最新数据时重新获取
+     */
+    Catalog getCatalog() {
+        Catalog current = catalog;
+        if (current.hasEnvironments() && current.hasCategories() && current.hasTools() && current.hasLaunchGroups()) {
+            return current;
+        }
+        synchronized (this) {
+            ensureEnvironmentsLoaded();
+            ensureCategoriesLoaded();
+            ensureToolsLoaded();
+            ensureLaunchGroupsLoaded();
+            return catalog;
+        }
+    }
+
+    private Catalog catalogWithEnvironments() {
+        Catalog current = catalog;
+        if (current.hasEnvironments()) {
+            return current;
+        }
+        synchronized (this) {
+            ensureEnvironmentsLoaded();
+            return catalog;
+        }
+    }
+
+    private Catalog catalogWithCategories() {
+        Catalog current = catalog;
+        if (current.hasCategories()) {
+            return current;
+        }
+        synchronized (this) {
+            ensureCategoriesLoaded();
+            return catalog;
+        }
+    }
+
+    private Catalog catalogWithLaunchGroups() {
+        Catalog current = catalog;
+        if (current.hasLaunchGroups()) {
+            return current;
+        }
+        synchronized (this) {
+            ensureLaunchGroupsLoaded();
+            return catalog;
+        }
+    }
+
+    private Catalog catalogWithTools() {
+        Catalog current = catalog;
+        if (current.hasTools()) {
+            return current;
+        }
+        synchronized (this) {
+            ensureToolsLoaded();
+            return catalog;
+        }
+    }
+
+    /**
+     * 唯一的写入路径：在对象锁内修改仓库，结束后发布新的只读视图
+     * 仓库没有变化的部分直接复用上一份视图中的副本
+     */
+    private synchronized void mutate(Runnable mutation) {
+        try {
+            mutation.run();
+        } finally {
+            catalog = new Catalog(environmentRepository.snapshot(), categoryRepository.snapshot(),
+                    toolRepository.snapshot(), toolsByCategory, toolsByEnvironment, launchGroupRepository.snapshot());
+        }
+    }
+
+    private synchronized <R> R mutate(Supplier<R> mutation) {
+        Object[] result = new Object[1];
+        mutate(() -> {
+            result[0] = mutation.get();
+        });
+        @SuppressWarnings("unchecked")
+        R value = (R) result[0];
+        return value;
+    }
+
+    // 环境管理
+    /**
+     * 返回的列表可自由修改，其中的环境对象与其他线程共享，不应修改，编辑时先复制
+     */
+    List<Environment> loadEnvironments() {
+        return new ArrayList<>(catalogWithEnvironments().getEnvironments());
+    }
+
+    Environment findEnvironmentById(String environmentId) {
+        return catalogWithEnvironments().findEnvironmentById(environmentId);
+    }
+
+    private void ensureEnvironmentsLoaded() {
+        loadCatalogSnapshot();
+        if (!environmentRepository.isLoaded()) {
+            List<Environment> environments = readEnvironments();
+            mutate(() -> environmentRepository.replaceAll(environments));
+        }
+    }
+
+    private List<Environment> readEnvironments() {
+        File file = directory.resolve(ENVIRONMENTS_FILE).toFile();
+        if (!file.exists()) {
+            return createAndSaveDefaultEnvironments();
+        }
+
+        try {
+            rememberFileStamp(ENVIRONMENTS_FILE);
+            List<Environment> environments = environmentFile.parse();
+            environmentFile.resetBaseline(environments);
+            return environments;
+        } catch (IOException e) {
+            System.err.println("Failed to load environments: " + e.getMessage());
+            return createAndSaveDefaultEnvironments();
+        }
+    }
+
+    synchronized void saveEnvironments(List<Environment> environments) {
+        List<Environment> copies = new ArrayList<>();
+        for (Environment env : environments) {
+            copies.add(new Environment(env));
+        }
+        mutate(() -> environmentRepository.replaceAll(copies));
+        scheduleMerge(environmentFile, environmentRepository, CatalogListener::environmentsChanged);
+    }
+
+    private List<Environment> createAndSaveDefaultEnvironments() {
+        List<Environment> environments = new ArrayList<>();
+
+        // 默认Java环境
+        environments.add(new Environment(
+            "env-" + System.currentTimeMillis() + "-1",
+            "Java 8 Default",
+            "java",
+            System.getProperty("java.home") + "/bin/java",
+            "-Xms512m -Xmx1024m",
+            "系统默认Java环境，用于运行Java应用程序"
+        ));
+
+        // 默认Python环境
+        environments.add(new Environment(
+            "env-" + System.currentTimeMillis() + "-2",
+            "Python 3 Default",
+            "python",
+            "python3",
+            "",
+            "系统默认Python环境，用于运行Python脚本"
+        ));
+
+        // Node.js环境
+        environments.add(new Environment(
+            "env-" + System.currentTimeMillis() + "-3",
+            "Node.js Default",
+            "node",
+            "node",
+            "",
+            "Node.js运行环境，用于运行JavaScript代码"
+        ));
+
+        saveEnvironments(environments);
+        return environments;
+    }
+
+    // 工具分类管理
+    /**
+     * 返回的列表可自由修改，其中的分类对象与其他线程共享，不应修改，编辑时先复制
+     */
+    List<ToolCategory> loadCategories() {
+        return new ArrayList<>(catalogWithCategories().getCategories());
+    }
+
+    ToolCategory findCategoryById(String categoryId) {
+        return catalogWithCategories().findCategoryById(categoryId);
+    }
+
+    private void ensureCategoriesLoaded() {
+        loadCatalogSnapshot();
+        if (!categoryRepository.isLoaded()) {
+            List<ToolCategory> categories = readCategories();
+            mutate(() -> categoryRepository.replaceAll(categories));
+        }
+    }
+
+    private List<ToolCategory> readCategories() {
+        File file = directory.resolve(CATEGORIES_FILE).toFile();
+        if (!file.exists()) {
+            return createAndSaveDefaultCategories();
+        }
+
+        try {
+            rememberFileStamp(CATEGORIES_FILE);
+            List<ToolCategory> categories = categoryFile.parse();
+            categoryFile.resetBaseline(categories);
+            return categories;
+        } catch (IOException e) {
+            System.err.println("Failed to load categories: " + e.getMessage());
+            return createAndSaveDefaultCategories();
+        }
+    }
+
+    synchronized void saveCategories(List<ToolCategory> categories) {
+        List<ToolCategory> copies = new ArrayList<>();
+        for (ToolCategory category : categories) {
+            copies.add(new ToolCategory(category));
+        }
+        mutate(() -> categoryRepository.replaceAll(copies));
+        scheduleMerge(categoryFile, categoryRepository, CatalogListener::categoriesChanged);
+    }
+
+    private List<ToolCategory> createAndSaveDefaultCategories() {
+        List<ToolCategory> categories = new ArrayList<>();
+
+        ToolCategory devTools = new ToolCategory(
+            "cat-" + System.currentTimeMillis() + "-1",
+            "开发工具",
+            "Java、Python、Node.js等开发相关工具",
+            null
+        );
+        devTools.setSortOrder(1);
+        categories.add(devTools);
+
+        ToolCategory sysTools = new ToolCategory(
+            "cat-" + System.currentTimeMillis() + "-2",
+            "系统工具",
+            "系统管理和维护工具",
+            null
+        );
+        sysTools.setSortOrder(2);
+        categories.add(sysTools);
+
+        ToolCategory netTools = new ToolCategory(
+            "cat-" + System.currentTimeMillis() + "-3",
+            "网络工具",
+            "网络调试和测试工具",
+            null
+        );
+        netTools.setSortOrder(3);
+        categories.add(netTools);
+
+        ToolCategory dbTools = new ToolCategory(
+            "cat-" + System.currentTimeMillis() + "-4",
+            "数据库工具",
+            "数据库管理和操作工具",
+            null
+        );
+        dbTools.setSortOrder(4);
+        categories.add(dbTools);
+
+        saveCategories(categories);
+        return categories;
+    }
+
+    // 启动组管理
+    /**
+     * 返回的列表可自由修改，其中的启动组对象与其他线程共享，不应修改，编辑时先复制
+     */
+    List<LaunchGroup> loadLaunchGroups() {
+        return new ArrayList<>(catalogWithLaunchGroups().getLaunchGroups());
+    }
+
+    LaunchGroup findLaunchGroupById(String launchGroupId) {
+        return catalogWithLaunchGroups().findLaunchGroupById(launchGroupId);
+    }
+
+    /**
+     * 启动组不在二进制快照中，总是从 JSON 文件加载；文件不存在时为空列表，不生成默认数据
+     */
+    private void ensureLaunchGroupsLoaded() {
+        if (!launchGroupRepository.isLoaded()) {
+            List<LaunchGroup> launchGroups = readLaunchGroups();
+            mutate(() -> launchGroupRepository.replaceAll(launchGroups));
+        }
+    }
+
+    private List<LaunchGroup> readLaunchGroups() {
+        if (!Files.exists(directory.resolve(LAUNCH_GROUPS_FILE))) {
+            launchGroupFile.resetBaseline(Collections.emptyList());
+            return new ArrayList<>();
+        }
+
+        try {
+            rememberFileStamp(LAUNCH_GROUPS_FILE);
+            List<LaunchGroup> launchGroups = launchGroupFile.parse();
+            launchGroupFile.resetBaseline(launchGroups);
+            return launchGroups;
+        } catch (IOException e) {
+            System.err.println("Failed to load launch groups: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    synchronized void saveLaunchGroups(List<LaunchGroup> launchGroups) {
+        ensureLaunchGroupsLoaded();
+        List<LaunchGroup> copies = new ArrayList<>();
+        for (LaunchGroup launchGroup : launchGroups) {
+            copies.add(new LaunchGroup(launchGroup));
+        }
+        mutate(() -> launchGroupRepository.replaceAll(copies));
+        scheduleMerge(launchGroupFile, launchGroupRepository, CatalogListener::launchGroupsChanged);
+    }
+
+    // 工具管理
+    /**
+     * 返回的列表可自由修改，其中的工具对象与其他线程共享，不应修改，编辑时先复制
+     */
+    List<ToolItem> loadTools() {
+        return new ArrayList<>(catalogWithTools().getTools());
+    }
+
+    ToolItem findToolById(String toolId) {
+        return catalogWithTools().findToolById(toolId);
+    }
+
+    private void ensureToolsLoaded() {
+        while (toolsLoading) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        loadCatalogSnapshot();
+        if (!toolRepository.isLoaded()) {
+            List<ToolItem> tools = readTools();
+            mutate(() -> toolRepository.replaceAll(tools));
+        }
+    }
+
+    /**
+     * 流式加载工具：边解析边分批写入仓库并回调，界面可以在大文件解析完成前开始渲染
+     * 应在后台线程调用，回调也在该线程上执行
+     * @return true 表示已回调的批次之后数据又发生了变化（日志重放或回退到整体加载），调用方应整体重新渲染
+     */
+    boolean streamTools(int batchSize, Consumer<List<ToolItem>> batchListener) {
+        long startTime = System.currentTimeMillis();
+        ToolStore store;
+        synchronized (this) {
+            if (!toolsLoading) {
+                loadCatalogSnapshot();
+            }
+            store = storedToolStore();
+            if (toolRepository.isLoaded() || toolsLoading || !store.exists()) {
+                ensureToolsLoaded();
+                batchListener.accept(toolRepository.findAll());
+                return false;
+            }
+            toolsLoading = true;
+            mutate(toolRepository::invalidate);
+            rememberToolsStamp();
+        }
+
+        boolean changedAfterBatches;
+        try {
+            long checksum = store.read(batchSize, batch -> {
+                mutate(() -> {
+                    for (ToolItem tool : batch) {
+                        toolRepository.put(tool);
+                    }
+                });
+                batchListener.accept(batch);
+            });
+
+            synchronized (this) {
+                int replayed = mutate(() -> toolJournal.replay(checksum, toolRepository::put, toolRepository::remove));
+                if (replayed > 0) {
+                    System.out.println("已从变更日志恢复 " + replayed + " 条工具修改");
+                }
+                if (toolJournal.needsCompaction() || needsToolStoreMigration()) {
+                    requestToolsCompaction();
+                }
+                mutate(toolRepository::markLoaded);
+                changedAfterBatches = replayed > 0;
+                System.out.println("已从 " + store.getName() + " 加载 " + toolRepository.size() + " 个工具，耗时 "
+                        + (System.currentTimeMillis() - startTime) + " ms");
+            }
+            requestCatalogSnapshot();
+        } catch (IOException e) {
+            System.err.println("Failed to stream tools: " + e.getMessage());
+            synchronized (this) {
+                mutate(toolRepository::invalidate);
+                toolsLoading = false;
+                ensureToolsLoaded();
+            }
+            changedAfterBatches = true;
+        } finally {
+            synchronized (this) {
+                toolsLoading = false;
+                notifyAll();
+            }
+        }
+        return changedAfterBatches;
+    }
+
+    /**
+     * 获取指定分类下的工具，categoryId为null时返回未分类的工具
+     */
+    List<ToolItem> findToolsByCategory(String categoryId) {
+        return new ArrayList<>(catalogWithTools().findToolsByCategory(categoryId));
+    }
+
+    /**
+     * 获取使用指定环境的工具，用于删除环境前的依赖检查
+     */
+    List<ToolItem> findToolsByEnvironment(String environmentId) {
+        return new ArrayList<>(catalogWithTools().findToolsByEnvironment(environmentId));
+    }
+
+    private List<ToolItem> readTools() {
+        ToolStore store = storedToolStore();
+        if (!store.exists()) {
+            return createAndSaveDefaultTools();
+        }
+
+        try {
+            long startTime = System.currentTimeMillis();
+            rememberToolsStamp();
+            Map<String, ToolItem> tools = new LinkedHashMap<>();
+            long checksum = store.read(STREAM_BATCH_SIZE, batch -> {
+                for (ToolItem tool : batch) {
+                    tools.put(tool.getId(), tool);
+                }
+            });
+
+            // 在快照之上重放变更日志
+            int replayed = toolJournal.replay(checksum, tool -> tools.put(tool.getId(), tool), tools::remove);
+            if (replayed > 0) {
+                System.out.println("已从变更日志恢复 " + replayed + " 条工具修改");
+            }
+            if (toolJournal.needsCompaction() || needsToolStoreMigration()) {
+                requestToolsCompaction();
+            }
+            System.out.println("已从 " + store.getName() + " 加载 " + tools.size() + " 个工具，耗时 "
+                    + (System.currentTimeMillis() - startTime) + " ms");
+            requestCatalogSnapshot();
+            return new ArrayList<>(tools.values());
+        } catch (IOException e) {
+            System.err.println("Failed to load tools: " + e.getMessage());
+            return createAndSaveDefaultTools();
+        }
+    }
+
+    synchronized void saveTools(List<ToolItem> tools) {
+        List<ToolItem> copies = new ArrayList<>();
+        for (ToolItem tool : tools) {
+            copies.add(new ToolItem(tool));
+        }
+        mutate(() -> toolRepository.replaceAll(copies));
+        requestToolsCompaction();
+        requestBackup();
+    }
+
+    synchronized void addTool(ToolItem tool) {
+        ensureToolsLoaded();
+        ToolItem added = new ToolItem(tool);
+        added.setVersion(1);
+        mutate(() -> toolRepository.put(added));
+        queueToolChange(added.getId(), 0, added);
+    }
+
+    /**
+     * 更新单个工具，不存在时追加
+     * tool 的版本号应为开始编辑时的版本（为0时取内存中的当前版本），用于检测其他实例的并发修改
+     */
+    synchronized void updateTool(ToolItem tool) {
+        ensureToolsLoaded();
+        ToolItem existing = toolRepository.findById(tool.getId());
+        long baseVersion = tool.getVersion() > 0 || existing == null ? tool.getVersion() : existing.getVersion();
+        ToolItem updated = new ToolItem(tool);
+        updated.setVersion(baseVersion + 1);
+        mutate(() -> toolRepository.put(updated));
+        queueToolChange(updated.getId(), baseVersion, updated);
+    }
+
+    synchronized void deleteTool(String toolId) {
+        ensureToolsLoaded();
+        ToolItem removed = mutate(() -> toolRepository.remove(toolId));
+        if (removed != null) {
+            queueToolChange(toolId, removed.getVersion(), null);
+        }
+    }
+
+    /**
+     * 单个工具的修改只追加一行日志，日志超过阈值后在后台压缩进 tools.json
+     * tool 为null表示删除；内容在调用线程上序列化，以固定当时的修改
+     */
+    private void queueToolChange(String toolId, long baseVersion, ToolItem tool) {
+        byte[] line;
+        JsonNode localContent;
+        try {
+            line = tool != null ? toolJournal.encodePut(tool) : toolJournal.encodeDelete(toolId);
+            localContent = tool != null ? objectMapper.valueToTree(tool) : null;
+        } catch (IOException e) {
+            System.err.println("Failed to encode tool change: " + e.getMessage());
+            requestToolsCompaction();
+            return;
+        }
+        pendingToolChanges.merge(toolId, 1, Integer::sum);
+        persistenceWriter.submit(() -> commitToolChange(toolId, baseVersion, localContent, line));
+        requestBackup();
+    }
+
+    /**
+     * 在持久化线程上提交一次本地修改：先同步其他实例的修改，
+     * 其他实例在此期间没有改过同一工具时追加日志，否则以对方的修改为准并报告冲突
+     */
+    @SuppressWarnings("try")
+    private void commitToolChange(String toolId, long baseVersion, JsonNode localContent, byte[] line) {
+        List<String> conflicts = new ArrayList<>();
+        CatalogChange<ToolItem> remoteChange = null;
+        boolean compact = false;
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            remoteChange = syncTools();
+            boolean remoteWins;
+            synchronized (this) {
+                ToolItem remote = remoteToolState.get(toolId);
+                long remoteVersion = remote != null ? remote.getVersion() : 0;
+                remoteWins = remoteToolState.containsKey(toolId) && remoteVersion != baseVersion;
+                if (remoteWins) {
+                    remoteWinningTools.add(toolId);
+                    boolean sameChange = localContent == null ? remote == null
+                            : remote != null && VersionedListFile.sameContent(localContent, objectMapper.valueToTree(remote));
+                    if (!sameChange) {
+                        String name = localContent != null ? localContent.path("name").asText(toolId)
+                                : remote != null ? remote.getName() : toolId;
+                        conflicts.add("工具 '" + name + "' 已被其他实例" + (remote == null ? "删除" : "修改")
+                                + "，本地的" + (localContent == null ? "删除" : "修改") + "未保存");
+                    }
+                }
+            }
+            if (!remoteWins) {
+                compact = !toolJournal.append(line) || toolJournal.needsCompaction();
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to append tool journal: " + e.getMessage());
+            compact = true;
+        } finally {
+            CatalogChange<ToolItem> adopted = finishToolChange(toolId);
+            if (adopted != null) {
+                notifyToolsChanged(adopted);
+            }
+        }
+
+        if (remoteChange != null) {
+            notifyToolsChanged(remoteChange);
+        }
+        if (!conflicts.isEmpty()) {
+            notifyConflicts(conflicts);
+        }
+        if (compact) {
+            compactTools();
+        }
+    }
+
+    /**
+     * 某个工具的本地修改全部处理完毕；若最终以其他实例的修改为准，把它应用到内存并返回对应的变化
+     */
+    private synchronized CatalogChange<ToolItem> finishToolChange(String toolId) {
+        if (pendingToolChanges.merge(toolId, -1, Integer::sum) > 0) {
+            return null;
+        }
+        pendingToolChanges.remove(toolId);
+        ToolItem remote = remoteToolState.remove(toolId);
+        if (!remoteWinningTools.remove(toolId)) {
+            return null;
+        }
+
+        List<ToolItem> empty = Collections.emptyList();
+        ToolItem local = toolRepository.findById(toolId);
+        if (remote == null) {
+            mutate(() -> toolRepository.remove(toolId));
+            return local == null ? null : new CatalogChange<>(empty, Collections.singletonList(local), empty);
+        }
+        mutate(() -> toolRepository.put(remote));
+        return local == null ? new CatalogChange<>(Collections.singletonList(remote), empty, empty)
+                : new CatalogChange<>(empty, empty, Collections.singletonList(remote));
+    }
+
+    /**
+     * 只在持久化线程上、持有数据目录锁时调用：应用其他实例追加的日志记录，
+     * 工具快照被其他实例重写（压缩）时整体重新加载。
+     * 有本地修改排队中的工具不直接覆盖，而是记入 remoteToolState，留给提交时做冲突检测。
+     * @return 已应用到内存的变化，没有时返回null
+     */
+    private CatalogChange<ToolItem> syncTools() throws IOException {
+        synchronized (this) {
+            if (!toolRepository.isLoaded() || toolsLoading) {
+                return null;
+            }
+        }
+
+        long[] stamp = toolsStamp();
+        Map<String, ToolItem> updates = new LinkedHashMap<>();
+        boolean fullReload = !Arrays.equals(stamp, knownFileStamps.get(TOOLS_FILE))
+                || toolJournal.tail(tool -> updates.put(tool.getId(), tool), id -> updates.put(id, null)) < 0;
+        if (fullReload) {
+            updates.clear();
+            ToolStore store = storedToolStore();
+            if (!store.exists()) {
+                return null;
+            }
+            long checksum = store.read(STREAM_BATCH_SIZE, batch -> {
+                for (ToolItem tool : batch) {
+                    updates.put(tool.getId(), tool);
+                }
+            });
+            toolJournal.replay(checksum, tool -> updates.put(tool.getId(), tool), updates::remove);
+            knownFileStamps.put(TOOLS_FILE, stamp);
+            if (toolJournal.needsCompaction() || needsToolStoreMigration()) {
+                requestToolsCompaction();
+            }
+        }
+
+        synchronized (this) {
+            if (fullReload) {
+                List<ToolItem> before = toolRepository.findAll();
+                List<ToolItem> merged = new ArrayList<>();
+                for (ToolItem tool : updates.values()) {
+                    if (pendingToolChanges.containsKey(tool.getId())) {
+                        remoteToolState.put(tool.getId(), tool);
+                        ToolItem local = toolRepository.findById(tool.getId());
+                        if (local != null) {
+                            merged.add(local);
+                        }
+                    } else {
+                        merged.add(tool);
+                    }
+                }
+                for (String toolId : pendingToolChanges.keySet()) {
+                    if (!updates.containsKey(toolId)) {
+                        remoteToolState.put(toolId, null);
+                        ToolItem local = toolRepository.findById(toolId);
+                        if (local != null) {
+                            merged.add(local);
+                        }
+                    }
+                }
+                CatalogChange<ToolItem> change = diff(before, merged, ToolItem::getId);
+                mutate(() -> toolRepository.replaceAll(merged));
+                return change.isEmpty() ? null : change;
+            }
+
+            List<ToolItem> added = new ArrayList<>();
+            List<ToolItem> removed = new ArrayList<>();
+            List<ToolItem> changed = new ArrayList<>();
+            mutate(() -> {
+                for (Map.Entry<String, ToolItem> entry : updates.entrySet()) {
+                    String toolId = entry.getKey();
+                    ToolItem tool = entry.getValue();
+                    if (pendingToolChanges.containsKey(toolId)) {
+                        remoteToolState.put(toolId, tool);
+                    } else if (tool == null) {
+                        ToolItem old = toolRepository.remove(toolId);
+                        if (old != null) {
+                            removed.add(old);
+                        }
+                    } else {
+                        (toolRepository.findById(toolId) == null ? added : changed).add(tool);
+                        toolRepository.put(tool);
+                    }
+                }
+            });
+            CatalogChange<ToolItem> change = new CatalogChange<>(added, removed, changed);
+            return change.isEmpty() ? null : change;
+        }
+    }
+
+    private void requestToolsCompaction() {
+        if (toolsCompactionPending.compareAndSet(false, true)) {
+            persistenceWriter.submit(() -> {
+                toolsCompactionPending.set(false);
+                compactTools();
+            });
+        }
+    }
+
+    /**
+     * 按配置的存储布局写出新的工具快照并重置日志，只在持久化线程上执行
+     * 还有本地修改排队时推迟到它们提交之后，避免未经冲突检测的修改直接进入快照；
+     * 磁盘上还有另一种布局的文件时，新快照写好后将其删除，完成布局迁移
+     */
+    @SuppressWarnings("try")
+    private void compactTools() {
+        CatalogChange<ToolItem> remoteChange = null;
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            remoteChange = syncTools();
+            ToolStore store;
+            ToolStore.WriteTask write;
+            synchronized (this) {
+                if (!toolRepository.isLoaded() || toolsLoading) {
+                    return;
+                }
+                if (!pendingToolChanges.isEmpty()) {
+                    requestToolsCompaction();
+                    return;
+                }
+                store = configuredToolStore();
+                write = store.prepareWrite(toolRepository.findAll());
+            }
+            toolJournal.reset(write.commit());
+            ToolStore previous = store == shardedToolStore ? singleFileToolStore : shardedToolStore;
+            if (previous.exists()) {
+                previous.delete();
+                System.out.println("已将工具数据从 " + previous.getName() + " 迁移到 " + store.getName());
+            }
+            rememberToolsStamp();
+        } catch (IOException e) {
+            System.err.println("Failed to save tools: " + e.getMessage());
+        } finally {
+            if (remoteChange != null) {
+                notifyToolsChanged(remoteChange);
+            }
+        }
+    }
+
+    private List<ToolItem> createAndSaveDefaultTools() {
+        List<ToolItem> tools = new ArrayList<>();
+        List<ToolCategory> categories = loadCategories();
+        List<Environment> environments = loadEnvironments();
+
+        // 示例Java工具 - CLI工具
+        ToolItem mavenTool = new ToolItem();
+        mavenTool.setId("tool-" + System.currentTimeMillis() + "-1");
+        mavenTool.setName("Maven构建");
+        mavenTool.setDescription("Apache Maven项目构建工具");
+        mavenTool.setCategoryId(categories.get(0).getId()); // 开发工具分类
+        if (environments.size() > 0) {
+            mavenTool.setEnvironmentId(environments.get(0).getId()); // Java环境
+        }
+        mavenTool.setCommand("mvn");
+        mavenTool.setArguments("clean install");
+        mavenTool.setWorkingDirectory("");
+        mavenTool.setHasGUI(false); // 命令行工具
+        tools.add(mavenTool);
+
+        // 示例Python工具 - CLI工具
+        ToolItem pipTool = new ToolItem();
+        pipTool.setId("tool-" + System.currentTimeMillis() + "-2");
+        pipTool.setName("Pip包管理");
+        pipTool.setDescription("Python包管理工具");
+        pipTool.setCategoryId(categories.get(0).getId()); // 开发工具分类
+        if (environments.size() > 1) {
+            pipTool.setEnvironmentId(environments.get(1).getId()); // Python环境
+        }
+        pipTool.setCommand("pip3");
+        pipTool.setArguments("list");
+        pipTool.setWorkingDirectory("");
+        pipTool.setHasGUI(false); // 命令行工具
+        tools.add(pipTool);
+
+        // 示例系统工具 - CLI工具
+        ToolItem topTool = new ToolItem();
+        topTool.setId("tool-" + System.currentTimeMillis() + "-3");
+        topTool.setName("进程监控");
+        topTool.setDescription("系统进程监控工具");
+        topTool.setCategoryId(categories.get(1).getId()); // 系统工具分类
+        topTool.setCommand("top");
+        topTool.setArguments("");
+        topTool.setWorkingDirectory("");
+        topTool.setHasGUI(false); // 命令行工具
+        tools.add(topTool);
+
+        // 示例网络工具 - CLI工具
+        ToolItem pingTool = new ToolItem();
+        pingTool.setId("tool-" + System.currentTimeMillis() + "-4");
+        pingTool.setName("网络连通性测试");
+        pingTool.setDescription("测试网络连接状态");
+        pingTool.setCategoryId(categories.get(2).getId()); // 网络工具分类
+        pingTool.setCommand("ping");
+        pingTool.setArguments("www.baidu.com");
+        pingTool.setWorkingDirectory("");
+        pingTool.setHasGUI(false); // 命令行工具
+        tools.add(pingTool);
+
+        // 示例数据库工具 - CLI工具
+        ToolItem mysqlTool = new ToolItem();
+        mysqlTool.setId("tool-" + System.currentTimeMillis() + "-5");
+        mysqlTool.setName("MySQL客户端");
+        mysqlTool.setDescription("MySQL数据库客户端工具");
+        mysqlTool.setCategoryId(categories.get(3).getId()); // 数据库工具分类
+        mysqlTool.setCommand("mysql");
+        mysqlTool.setArguments("-u root -p");
+        mysqlTool.setWorkingDirectory("");
+        mysqlTool.setHasGUI(false); // 命令行工具
+        tools.add(mysqlTool);
+
+        // 示例GUI工具 - GUI工具
+        ToolItem notepadTool = new ToolItem();
+        notepadTool.setId("tool-" + System.currentTimeMillis() + "-6");
+        notepadTool.setName("记事本");
+        notepadTool.setDescription("系统记事本工具");
+        notepadTool.setCategoryId(categories.get(1).getId()); // 系统工具分类
+        notepadTool.setCommand("notepad");
+        notepadTool.setArguments("");
+        notepadTool.setWorkingDirectory("");
+        notepadTool.setHasGUI(true); // GUI工具
+        tools.add(notepadTool);
+
+        saveTools(tools);
+        return tools;
+    }
+
+    // 二进制快照
+    private List<Path> catalogSources() {
+        List<Path> sources = new ArrayList<>();
+        sources.add(directory.resolve(ENVIRONMENTS_FILE));
+        sources.add(directory.resolve(CATEGORIES_FILE));
+        sources.addAll(storedToolStore().files());
+        sources.add(directory.resolve(TOOLS_JOURNAL_FILE));
+        return sources;
+    }
+
+    /**
+     * 每轮缓存只尝试一次：快照与 JSON 文件一致时直接填充尚未加载的仓库
+     */
+    private void loadCatalogSnapshot() {
+        if (snapshotChecked) {
+            return;
+        }
+        snapshotChecked = true;
+
+        long startTime = System.currentTimeMillis();
+        Path file = directory.resolve(CATALOG_SNAPSHOT_FILE);
+        CatalogSnapshot snapshot;
+        try {
+            snapshot = CatalogSnapshot.read(file, CatalogSnapshot.fingerprint(catalogSources()));
+        } catch (IOException e) {
+            // 快照只是缓存，损坏时删除，从 JSON 加载后会重新生成
+            System.err.println("Failed to read catalog snapshot: " + e.getMessage());
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException ignored) {
+            }
+            return;
+        }
+        if (snapshot == null) {
+            return;
+        }
+        rememberToolsStamp();
+        System.out.println("已从二进制快照加载 " + snapshot.getTools().size() + " 个工具，耗时 "
+                + (System.currentTimeMillis() - startTime) + " ms");
+        mutate(() -> applyCatalogSnapshot(snapshot));
+    }
+
+    private void applyCatalogSnapshot(CatalogSnapshot snapshot) {
+        if (!environmentRepository.isLoaded()) {
+            environmentRepository.replaceAll(snapshot.getEnvironments());
+            environmentFile.resetBaseline(snapshot.getEnvironments());
+            rememberFileStamp(ENVIRONMENTS_FILE);
+        }
+        if (!categoryRepository.isLoaded()) {
+            categoryRepository.replaceAll(snapshot.getCategories());
+            categoryFile.resetBaseline(snapshot.getCategories());
+            rememberFileStamp(CATEGORIES_FILE);
+        }
+        if (!toolRepository.isLoaded()) {
+            toolRepository.replaceAll(snapshot.getTools());
+            // 快照已包含生成时日志中的修改；日志记录的是整条工具内容，按顺序重放一遍结果不变，
+            // 同时能补上其他实例在校验快照之后追加的记录，并恢复日志的基准使后续修改可以继续追加
+            toolJournal.replay(snapshot.getToolsChecksum(), toolRepository::put, toolRepository::remove);
+        }
+    }
+
+    /**
+     * 在后台重新生成快照，通常在从 JSON 加载之后调用
+     */
+    private void requestCatalogSnapshot() {
+        if (snapshotWritePending.compareAndSet(false, true)) {
+            persistenceWriter.submit(() -> {
+                snapshotWritePending.set(false);
+                writeCatalogSnapshot();
+            });
+        }
+    }
+
+    /**
+     * 只在持久化线程上执行：内存数据与磁盘一致（没有排队中的写入，也没有未读入的其他实例修改）时才生成快照，
+     * 否则快照可能与 JSON 不一致，留待下次再生成
+     */
+    @SuppressWarnings("try")
+    private void writeCatalogSnapshot() {
+        Path file = directory.resolve(CATALOG_SNAPSHOT_FILE);
+        CatalogChange<ToolItem> change = null;
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            change = syncTools();
+            long[] fingerprint;
+            CatalogSnapshot snapshot;
+            synchronized (this) {
+                if (!toolRepository.isLoaded() || toolsLoading) {
+                    return;
+                }
+                ensureEnvironmentsLoaded();
+                ensureCategoriesLoaded();
+                Long toolsChecksum = toolJournal.getBaseChecksum();
+                if (toolsChecksum == null || persistenceWriter.hasPendingWork()
+                        || !Arrays.equals(fileStamp(ENVIRONMENTS_FILE), knownFileStamps.get(ENVIRONMENTS_FILE))
+                        || !Arrays.equals(fileStamp(CATEGORIES_FILE), knownFileStamps.get(CATEGORIES_FILE))) {
+                    return;
+                }
+                fingerprint = CatalogSnapshot.fingerprint(catalogSources());
+                if (CatalogSnapshot.isCurrent(file, fingerprint)) {
+                    return;
+                }
+                snapshot = new CatalogSnapshot(environmentRepository.findAll(), categoryRepository.findAll(),
+                        toolRepository.findAll(), toolsChecksum);
+            }
+            PersistenceWriter.writeAtomically(file, snapshot.encode(fingerprint));
+        } catch (IOException e) {
+            System.err.println("Failed to write catalog snapshot: " + e.getMessage());
+        } finally {
+            if (change != null) {
+                notifyToolsChanged(change);
+            }
+        }
+    }
+
+    /**
+     * 只在持久化线程上执行：退出或切换前立即生成快照，不经过合并窗口
+     */
+    void writeSnapshotNow() {
+        writeCatalogSnapshot();
+    }
+
+    // 备份
+    /**
+     * 修改落盘后备份一次，窗口期内的多次修改只备份一次
+     * 备份任务排在本批写入之后执行，保证备份到的是写入后的内容
+     */
+    private void requestBackup() {
+        persistenceWriter.markDirty(directory.resolve(DataHistory.HISTORY_DIR),
+                () -> persistenceWriter.submit(() -> {
+                    try {
+                        backup("edit", true);
+                    } catch (IOException e) {
+                        System.err.println("Failed to back up workspace " + name + ": " + e.getMessage());
+                    }
+                }));
+    }
+
+    /**
+     * 只在持久化线程上执行：备份当前的数据文件，未变化的文件只记录哈希
+     * 累计一定数量的新备份后在持久化线程上按保留策略清理
+     * @param onlyIfChanged 为true时与最近一份备份完全相同则跳过；重置、恢复等操作前总是记录一份，便于找到撤销点
+     */
+    @SuppressWarnings("try")
+    void backup(String reason, boolean onlyIfChanged) throws IOException {
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            history.backup(dataFiles(), reason, onlyIfChanged);
+        }
+        if (history.needsPruning()) {
+            persistenceWriter.submit(() -> {
+                try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+                    int removed = history.prune();
+                    if (removed > 0) {
+                        System.out.println("已清理 " + removed + " 份旧备份");
+                    }
+                } catch (IOException e) {
+                    System.err.println("Failed to prune backups: " + e.getMessage());
+                }
+            });
+        }
+    }
+
+    List<Backup> listBackups() {
+        return history.list();
+    }
+
+    /**
+     * 只在持久化线程上执行：先备份当前内容，再把数据文件恢复为指定备份并丢弃内存数据
+     * 调用前应先等待排队中的写入落盘
+     */
+    @SuppressWarnings("try")
+    void restoreBackup(String backupId) throws IOException {
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            List<Path> files = dataFiles();
+            history.backup(files, "restore", false);
+            history.restore(backupId, files);
+            Files.deleteIfExists(directory.resolve(CATALOG_SNAPSHOT_FILE));
+        } finally {
+            // 恢复中途失败时部分文件可能已被替换，内存数据同样不再可信
+            invalidate();
+        }
+    }
+
+    /**
+     * 构成工作区数据的全部文件，迁移中途两种工具存储布局可能同时存在
+     */
+    private List<Path> dataFiles() {
+        List<Path> files = new ArrayList<>();
+        files.add(directory.resolve(ENVIRONMENTS_FILE));
+        files.add(directory.resolve(CATEGORIES_FILE));
+        files.add(directory.resolve(LAUNCH_GROUPS_FILE));
+        if (singleFileToolStore.exists()) {
+            files.addAll(singleFileToolStore.files());
+        }
+        if (shardedToolStore.exists()) {
+            files.addAll(shardedToolStore.files());
+        }
+        files.add(directory.resolve(TOOLS_JOURNAL_FILE));
+        return files;
+    }
+
+    // 外部修改监听
+    /**
+     * 开始监听数据目录，外部程序或共享同一目录的其他实例修改数据后自动合并并通知监听器
+     */
+    synchronized void startWatching() {
+        if (dataWatcher != null) {
+            return;
+        }
+        Set<String> fileNames = new HashSet<>(Arrays.asList(ENVIRONMENTS_FILE, CATEGORIES_FILE, LAUNCH_GROUPS_FILE,
+                TOOLS_FILE, TOOLS_JOURNAL_FILE));
+        dataWatcher = new DataDirectoryWatcher(directory, fileNames, this::scheduleExternalReload);
+        try {
+            dataWatcher.start();
+        } catch (IOException e) {
+            System.err.println("Failed to watch workspace " + name + ": " + e.getMessage());
+        }
+    }
+
+    synchronized void stopWatching() {
+        if (dataWatcher != null) {
+            dataWatcher.stop();
+            dataWatcher = null;
+        }
+    }
+
+    private long[] fileStamp(String fileName) {
+        return CatalogSnapshot.fingerprint(Collections.singletonList(directory.resolve(fileName)));
+    }
+
+    private void rememberFileStamp(String fileName) {
+        knownFileStamps.put(fileName, fileStamp(fileName));
+    }
+
+    private long[] toolsStamp() {
+        return CatalogSnapshot.fingerprint(storedToolStore().files());
+    }
+
+    private void rememberToolsStamp() {
+        knownFileStamps.put(TOOLS_FILE, toolsStamp());
+    }
+
+    // 工具存储布局
+    /**
+     * 配置的存储布局，压缩时总是按它写出
+     */
+    private synchronized ToolStore configuredToolStore() {
+        return TOOL_STORAGE_SHARDED.equals(appSettings.get(AppSettings.TOOL_STORAGE_LAYOUT)) ? shardedToolStore : singleFileToolStore;
+    }
+
+    /**
+     * 磁盘上现有的布局：配置的布局尚未写出（还没迁移）时读取另一种
+     */
+    private synchronized ToolStore storedToolStore() {
+        ToolStore configured = configuredToolStore();
+        ToolStore other = configured == shardedToolStore ? singleFileToolStore : shardedToolStore;
+        return configured.exists() || !other.exists() ? configured : other;
+    }
+
+    /**
+     * 还没按配置的布局保存过，或迁移中断留下了旧布局的文件
+     */
+    private boolean needsToolStoreMigration() {
+        boolean single = singleFileToolStore.exists();
+        boolean sharded = shardedToolStore.exists();
+        if (single && sharded) {
+            return true;
+        }
+        return (single || sharded) && !configuredToolStore().exists();
+    }
+
+    @SuppressWarnings("try")
+    private void scheduleExternalReload(Set<String> fileNames) {
+        if (fileNames.contains(ENVIRONMENTS_FILE)) {
+            scheduleMerge(environmentFile, environmentRepository, CatalogListener::environmentsChanged);
+        }
+        if (fileNames.contains(CATEGORIES_FILE)) {
+            scheduleMerge(categoryFile, categoryRepository, CatalogListener::categoriesChanged);
+        }
+        if (fileNames.contains(LAUNCH_GROUPS_FILE)) {
+            scheduleMerge(launchGroupFile, launchGroupRepository, CatalogListener::launchGroupsChanged);
+        }
+        if (fileNames.contains(TOOLS_FILE) || fileNames.contains(TOOLS_JOURNAL_FILE)) {
+            persistenceWriter.submit(() -> {
+                CatalogChange<ToolItem> change = null;
+                try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+                    change = syncTools();
+                } catch (IOException e) {
+                    // 外部程序可能还没写完，等下一次变化事件
+                    System.err.println("Failed to reload tools: " + e.getMessage());
+                }
+                if (change != null) {
+                    notifyToolsChanged(change);
+                }
+            });
+        }
+    }
+
+    /**
+     * 在后台合并写出环境、分类或启动组文件，窗口期内的多次保存只合并一次
+     */
+    private <T extends Versioned> void scheduleMerge(VersionedListFile<T> file, EntityRepository<T> repository,
+                                                    BiConsumer<CatalogListener, CatalogChange<T>> notifier) {
+        persistenceWriter.markDirty(file.getFile(), () -> mergeSharedFile(file, repository, notifier));
+        requestBackup();
+    }
+
+    /**
+     * 只在持久化线程上执行：持有数据目录锁，把内存中的列表与磁盘上的最新内容按实体合并后写回，
+     * 合并进来的其他实例修改和无法合并的冲突通知监听器
+     */
+    @SuppressWarnings("try")
+    private <T extends Versioned> void mergeSharedFile(VersionedListFile<T> file, EntityRepository<T> repository,
+                                                      BiConsumer<CatalogListener, CatalogChange<T>> notifier) {
+        List<String> conflicts = new ArrayList<>();
+        CatalogChange<T> change;
+        try (DataDirectoryLock lock = DataDirectoryLock.acquire(directory)) {
+            synchronized (this) {
+                if (!repository.isLoaded()) {
+                    // 尚未加载过，下次访问时会直接读到磁盘上的内容
+                    return;
+                }
+                List<T> before = repository.findAll();
+                List<T> merged = file.merge(before, conflicts);
+                rememberFileStamp(file.getFile().getFileName().toString());
+                change = diff(before, merged, Versioned::getId);
+                mutate(() -> repository.replaceAll(merged));
+            }
+        } catch (IOException e) {
+            System.err.println("Failed to save " + file.getFile().getFileName() + ": " + e.getMessage());
+            return;
+        }
+
+        if (!change.isEmpty()) {
+            System.out.println("已合并其他实例对 " + file.getFile().getFileName() + " 的修改：新增 " + change.getAdded().size()
+                    + "，删除 " + change.getRemoved().size() + "，修改 " + change.getChanged().size());
+            notifier.accept(listener, change);
+        }
+        if (!conflicts.isEmpty()) {
+            notifyConflicts(conflicts);
+        }
+    }
+
+    private void notifyToolsChanged(CatalogChange<ToolItem> change) {
+        if (change.isEmpty()) {
+            return;
+        }
+        requestCatalogSnapshot();
+        listener.toolsChanged(change);
+    }
+
+    private void notifyConflicts(List<String> conflicts) {
+        for (String conflict : conflicts) {
+            System.err.println("Conflict: " + conflict);
+        }
+        listener.conflictsDetected(conflicts);
+    }
+
+    /**
+     * 大量工具共用少数几个分类、环境、命令和目录，放入仓库前改为引用池内的同一个字符串
+     */
+    private static void internToolStrings(ToolItem tool, StringPool pool) {
+        tool.setCategoryId(pool.intern(tool.getCategoryId()));
+        tool.setEnvironmentId(pool.intern(tool.getEnvironmentId()));
+        tool.setIconPath(pool.intern(tool.getIconPath()));
+        // 详细字段尚未加载的工具不在这里触发读取
+        if (!tool.isDetailDeferred()) {
+            tool.setCommand(pool.intern(tool.getCommand()));
+            tool.setWorkingDirectory(pool.intern(tool.getWorkingDirectory()));
+        }
+    }
+
+    private <T> CatalogChange<T> diff(List<T> current, List<T> updated, Function<T, String> idExtractor) {
+        Map<String, T> remaining = new LinkedHashMap<>();
+        for (T entity : current) {
+            remaining.put(idExtractor.apply(entity), entity);
+        }
+
+        List<T> added = new ArrayList<>();
+        List<T> changed = new ArrayList<>();
+        for (T entity : updated) {
+            T old = remaining.remove(idExtractor.apply(entity));
+            if (old == null) {
+                added.add(entity);
+            } else if (!VersionedListFile.sameContent(objectMapper.valueToTree(old), objectMapper.valueToTree(entity))) {
+                changed.add(entity);
+            }
+        }
+        return new CatalogChange<>(added, new ArrayList<>(remaining.values()), changed);
+    }
+}
@@ -4,9 +4,16 @@ import com.y5neko.qrts.config.GlobalVariable;
 import com.y5neko.qrts.model.Environment;
 import com.y5neko.qrts.model.ToolCategory;
 import com.y5neko.qrts.model.ToolItem;
+import com.y5neko.qrts.service.CatalogChange;
+import com.y5neko.qrts.service.CatalogListener;
 import com.y5neko.qrts.service.DataManager;
+import com.y5neko.qrts.service.JsonCodecs;
+import com.y5neko.qrts.service.LaunchPlan;
+import com.y5neko.qrts.service.ProcessSupervisor;
 import com.y5neko.qrts.service.ToolLauncher;
 import com.y5neko.qrts.ui.dialog.EnvironmentDialog;
+import com.y5neko.qrts.ui.dialog.FanOutDialog;
+import com.y5neko.qrts.ui.dialog.LaunchGroupDialog;
 import com.y5neko.qrts.ui.dialog.ToolDialog;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -17,18 +24,12 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.scene.text.FontWeight;
-import javafx.animation.KeyFrame;
-import javafx.animation.Timeline;
-import javafx.util.Duration;
 
 import java.io.File;
 import java.util.ArrayList;
 import java.util.HashMap;
-import java.util.Iterator;
 import java.util.Map;
 
-import com.fasterxml.jackson.core.type.TypeReference;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -81,7 +82,14 @@ public class Center {
     private HBox statusBar; // 状态栏
     private Label statusContent; // 状态栏内容
     private boolean statusBarVisible = true; // 状态栏是否可见
-    private List<RunningToolInfo> runningTools; // 正在运行的工具信息
+    private ProcessSupervisor processSupervisor; // 启动的工具进程
+
+    // 流式加载状态：批次到达时直接把工具卡片追加到对应分类下
+    private static final int TOOL_STREAM_BATCH_SIZE = 200;
+    private Map<String, FlowPane> categoryFlowPanes = new HashMap<>();
+    private Map<String, VBox> toolCards = new HashMap<>();
+    private boolean toolsStreaming = false;
+    private int loadGeneration = 0;
 
     // 分类折叠状态管理
     private Map<String, Boolean> categoryCollapseStates;
@@ -93,7 +101,7 @@ public class Center {
         dataManager = DataManager.getInstance();
         toolLauncher = ToolLauncher.getInstance();
         categoryPanes = new HashMap<>();
-        runningTools = new ArrayList<>();
+        processSupervisor = ProcessSupervisor.getInstance();
 
         // 初始化分类状态管理
         categoryCollapseStates = new HashMap<>();
@@ -102,6 +110,40 @@ public class Center {
 
         // 加载保存的折叠状态
         loadCategoryCollapseStates();
+
+        // 数据文件被外部程序或其他实例修改时只更新受影响的卡片
+        dataManager.addCatalogListener(new CatalogListener() {
+            @Override
+            public void categoriesChanged(CatalogChange<ToolCategory> change) {
+                Platform.runLater(() -> refreshToolDisplay());
+            }
+
+            @Override
+            public void toolsChanged(CatalogChange<ToolItem> change) {
+                Platform.runLater(() -> applyToolChanges(change));
+            }
+
+            @Override
+            public void conflictsDetected(List<String> conflicts) {
+                Platform.runLater(() -> showAlert("与其他实例的修改冲突", String.join("\n", conflicts)));
+            }
+
+            @Override
+            public void workspaceChanged(String workspace) {
+                refreshAll();
+            }
+        });
+
+        // 进程启动、退出或被移除时更新状态栏
+        processSupervisor.addListener(process -> Platform.runLater(this::updateSimpleStatus));
+        dataManager.startWatching();
+
+        // 字体设置提交后（包括其他实例的修改）重建界面
+        dataManager.getSettings().addListener(changedKeys -> {
+            if (GlobalVariable.isFontSettingChanged(changedKeys)) {
+                refreshAll();
+            }
+        });
     }
 
     /**
@@ -153,9 +195,6 @@ public class Center {
                 instance.centerBox = mainCenterBox;
                 instance.mainScrollPane = newMainScrollPane;
                 instance.statusBar = newStatusBar;
-
-                // 重启定时器
-                instance.startStatusTimer();
             });
         }
     }
@@ -179,9 +218,6 @@ public class Center {
         statusBar = createSimpleStatusBar();
         centerBox.getChildren().add(statusBar);
 
-        // 启动定时器，每秒更新状态栏
-        startStatusTimer();
-
         return centerBox;
     }
 
@@ -248,6 +284,11 @@ public class Center {
         manageToolsBtn.setFont(getButtonFont());
         manageToolsBtn.setStyle("-fx-background-color: #f8f9fa; -fx-border-color: #ddd; -fx-border-radius: 4; -fx-background-radius: 4; -fx-border-width: 1; -fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-padding: 8 16px; -fx-cursor: hand;");
 
+        Button launchGroupBtn = new Button("启动组");
+        launchGroupBtn.setOnAction(e -> new LaunchGroupDialog().show());
+        launchGroupBtn.setFont(getButtonFont());
+        launchGroupBtn.setStyle("-fx-background-color: #f8f9fa; -fx-border-color: #ddd; -fx-border-radius: 4; -fx-background-radius: 4; -fx-border-width: 1; -fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-padding: 8 16px; -fx-cursor: hand;");
+
         // 添加折叠/展开按钮
         Button expandAllBtn = new Button("全部展开");
         expandAllBtn.setOnAction(e -> expandAllCategories());
@@ -272,13 +313,16 @@ public class Center {
         manageToolsBtn.setOnMouseEntered(e -> manageToolsBtn.setStyle(buttonHoverStyle));
         manageToolsBtn.setOnMouseExited(e -> manageToolsBtn.setStyle(buttonNormalStyle));
 
+        launchGroupBtn.setOnMouseEntered(e -> launchGroupBtn.setStyle(buttonHoverStyle));
+        launchGroupBtn.setOnMouseExited(e -> launchGroupBtn.setStyle(buttonNormalStyle));
+
         expandAllBtn.setOnMouseEntered(e -> expandAllBtn.setStyle(buttonHoverStyle));
         expandAllBtn.setOnMouseExited(e -> expandAllBtn.setStyle(buttonNormalStyle));
 
         collapseAllBtn.setOnMouseEntered(e -> collapseAllBtn.setStyle(buttonHoverStyle));
         collapseAllBtn.setOnMouseExited(e -> collapseAllBtn.setStyle(buttonNormalStyle));
 
-        toolBar.getChildren().addAll(title, new Separator(Orientation.VERTICAL), searchBox, new Separator(Orientation.VERTICAL), refreshBtn, manageEnvBtn, manageToolsBtn, new Separator(Orientation.VERTICAL), expandAllBtn, collapseAllBtn);
+        toolBar.getChildren().addAll(title, new Separator(Orientation.VERTICAL), searchBox, new Separator(Orientation.VERTICAL), refreshBtn, manageEnvBtn, manageToolsBtn, launchGroupBtn, new Separator(Orientation.VERTICAL), expandAllBtn, collapseAllBtn);
 
         return toolBar;
     }
@@ -367,6 +411,7 @@ public class Center {
     private void updateSimpleStatus() {
         // 获取工具信息标签
         Label toolsLabel = statusContent;
+        List<ProcessSupervisor.SupervisedProcess> runningTools = processSupervisor.list();
 
         if (runningTools.isEmpty()) {
             toolsLabel.setText("当前没有运行的工具");
@@ -389,7 +434,7 @@ public class Center {
             statusText.append(" | 运行中工具: ");
             StringBuilder runningToolsText = new StringBuilder();
 
-            for (RunningToolInfo toolInfo : runningTools) {
+            for (ProcessSupervisor.SupervisedProcess toolInfo : runningTools) {
                 if (toolInfo.isRunning()) {
                     if (runningToolsText.length() > 0) {
                         runningToolsText.append(", ");
@@ -409,20 +454,7 @@ public class Center {
     }
 
     private void clearCompletedTools() {
-        int removedCount = 0;
-        Iterator<RunningToolInfo> iterator = runningTools.iterator();
-
-        while (iterator.hasNext()) {
-            RunningToolInfo toolInfo = iterator.next();
-            if (!toolInfo.isRunning()) {
-                // 强制停止已停止的进程（防止僵尸进程）
-                if (toolInfo.getProcess() != null && toolInfo.getProcess().isAlive()) {
-                    toolInfo.getProcess().destroyForcibly();
-                }
-                iterator.remove();
-                removedCount++;
-            }
-        }
+        int removedCount = processSupervisor.removeFinished();
 
         // 如果有清理操作，显示提示
         if (removedCount > 0) {
@@ -430,26 +462,6 @@ public class Center {
         } else {
             System.out.println("没有需要清理的工具");
         }
-
-        updateSimpleStatus();
-    }
-
-    private void stopTool(RunningToolInfo toolInfo) {
-        if (toolInfo.getProcess() != null && toolInfo.getProcess().isAlive()) {
-            toolInfo.getProcess().destroyForcibly();
-            toolInfo.setRunning(false);
-            updateSimpleStatus();
-        }
-    }
-
-    private void startStatusTimer() {
-        Timeline timer = new Timeline(new KeyFrame(Duration.seconds(1), e -> {
-            if (!runningTools.isEmpty()) {
-                updateSimpleStatus();
-            }
-        }));
-        timer.setCycleCount(Timeline.INDEFINITE);
-        timer.play();
     }
 
     private ScrollPane createMainContent() {
@@ -473,16 +485,131 @@ public class Center {
 
         mainScrollPane.setContent(mainContent);
 
-        // 延迟加载实际内容，提高启动速度
-        Platform.runLater(() -> {
-            refreshToolDisplay();
-        });
+        // 延迟加载实际内容，提高启动速度；工具数据在后台分批加载并逐步显示
+        Platform.runLater(this::streamToolDisplay);
 
         return mainScrollPane;
     }
 
+    /**
+     * 先显示分类框架，再在后台流式解析工具文件，每解析完一批就把卡片追加到界面上
+     */
+    private void streamToolDisplay() {
+        int generation = ++loadGeneration;
+        allCategories = dataManager.loadCategories();
+        allTools = new ArrayList<>();
+        toolsStreaming = true;
+        filterAndDisplayTools(searchField != null ? searchField.getText().trim() : "");
+
+        Thread loader = new Thread(() -> {
+            boolean changed = dataManager.streamTools(TOOL_STREAM_BATCH_SIZE,
+                    batch -> Platform.runLater(() -> appendToolCards(batch, generation)));
+            Platform.runLater(() -> finishToolStream(changed, generation));
+        }, "qrts-tool-loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+
+    private void appendToolCards(List<ToolItem> batch, int generation) {
+        if (generation != loadGeneration) {
+            return;
+        }
+        allTools.addAll(batch);
+
+        // 搜索状态下等加载结束后统一过滤
+        if (searchField != null && !searchField.getText().trim().isEmpty()) {
+            return;
+        }
+        for (ToolItem tool : batch) {
+            addToolCard(tool);
+        }
+    }
+
+    /**
+     * 把工具卡片追加到所属分类下，分类不在界面上时返回false
+     */
+    private boolean addToolCard(ToolItem tool) {
+        FlowPane toolFlowPane = categoryFlowPanes.get(tool.getCategoryId());
+        if (toolFlowPane == null) {
+            return false;
+        }
+        // 移除"该分类下暂无工具"占位
+        if (toolFlowPane.getChildren().size() == 1 && toolFlowPane.getChildren().get(0) instanceof Label) {
+            toolFlowPane.getChildren().clear();
+        }
+        toolFlowPane.getChildren().add(createToolBox(tool));
+        return true;
+    }
+
+    private boolean removeToolCard(String toolId) {
+        VBox toolBox = toolCards.remove(toolId);
+        if (toolBox == null || !(toolBox.getParent() instanceof FlowPane)) {
+            return false;
+        }
+        FlowPane toolFlowPane = (FlowPane) toolBox.getParent();
+        toolFlowPane.getChildren().remove(toolBox);
+        if (toolFlowPane.getChildren().isEmpty()) {
+            toolFlowPane.getChildren().add(createEmptyCategoryLabel());
+        }
+        return true;
+    }
+
+    /**
+     * 应用外部修改带来的工具差异：只增删改对应的卡片，
+     * 搜索状态或提示信息（未分类、暂无工具）可能变化时才整体重新渲染
+     */
+    private void applyToolChanges(CatalogChange<ToolItem> change) {
+        if (toolsStreaming || allCategories == null) {
+            return;
+        }
+        boolean wasEmpty = allTools == null || allTools.isEmpty();
+        allTools = dataManager.loadTools();
+
+        String searchText = searchField != null ? searchField.getText().trim() : "";
+        boolean needsFullRender = !searchText.isEmpty() || wasEmpty || allTools.isEmpty();
+
+        for (ToolItem tool : change.getRemoved()) {
+            needsFullRender |= !removeToolCard(tool.getId());
+        }
+        for (ToolItem tool : change.getChanged()) {
+            VBox oldBox = toolCards.get(tool.getId());
+            FlowPane oldPane = oldBox != null && oldBox.getParent() instanceof FlowPane ? (FlowPane) oldBox.getParent() : null;
+            if (oldPane != null && oldPane == categoryFlowPanes.get(tool.getCategoryId())) {
+                // 分类未变，原位替换卡片
+                oldPane.getChildren().set(oldPane.getChildren().indexOf(oldBox), createToolBox(tool));
+            } else {
+                needsFullRender |= !removeToolCard(tool.getId());
+                needsFullRender |= !addToolCard(tool);
+            }
+        }
+        for (ToolItem tool : change.getAdded()) {
+            needsFullRender |= !addToolCard(tool);
+        }
+
+        if (needsFullRender) {
+            filterAndDisplayTools(searchText);
+        }
+    }
+
+    private void finishToolStream(boolean changed, int generation) {
+        if (generation != loadGeneration) {
+            return;
+        }
+        toolsStreaming = false;
+        allTools = dataManager.loadTools();
+
+        // 日志重放改变了已显示的内容、处于搜索状态、或需要显示提示信息时，整体重新渲染一次
+        String searchText = searchField != null ? searchField.getText().trim() : "";
+        if (changed || !searchText.isEmpty() || allTools.isEmpty()
+                || !dataManager.findToolsByCategory(null).isEmpty()) {
+            filterAndDisplayTools(searchText);
+        }
+    }
+
     private void refreshToolDisplay() {
-        // 重新加载数据
+        // 重新加载数据，丢弃仍在途中的流式加载批次
+        loadGeneration++;
+        toolsStreaming = false;
         allCategories = dataManager.loadCategories();
         allTools = dataManager.loadTools();
 
@@ -499,6 +626,8 @@ public class Center {
 
         // 清除所有现有内容，避免重复显示
         mainContent.getChildren().clear();
+        categoryFlowPanes.clear();
+        toolCards.clear();
 
         // 如果没有数据，先加载数据
         if (allCategories == null) {
@@ -528,10 +657,25 @@ public class Center {
         // 按sortOrder排序分类
         allCategories.sort((c1, c2) -> Integer.compare(c1.getSortOrder(), c2.getSortOrder()));
 
+        // 按分类分组：无搜索时直接使用数据层的分类索引，搜索或流式加载时对已有结果做一次分组
+        Map<String, List<ToolItem>> toolsByCategory = new HashMap<>();
+        if (searchText.isEmpty() && !toolsStreaming) {
+            for (ToolCategory category : allCategories) {
+                toolsByCategory.put(category.getId(), dataManager.findToolsByCategory(category.getId()));
+            }
+        } else {
+            for (ToolItem tool : filteredTools) {
+                if (tool.getCategoryId() != null) {
+                    toolsByCategory.computeIfAbsent(tool.getCategoryId(), k -> new ArrayList<>()).add(tool);
+                }
+            }
+        }
+
         // 显示分类和过滤后的工具
         boolean hasVisibleTools = false;
         for (ToolCategory category : allCategories) {
-            VBox categoryPane = createCategoryPane(category, filteredTools, searchText);
+            List<ToolItem> categoryTools = toolsByCategory.getOrDefault(category.getId(), new ArrayList<>());
+            VBox categoryPane = createCategoryPane(category, categoryTools, searchText);
             if (categoryPane != null) {
                 mainContent.getChildren().add(categoryPane);
                 hasVisibleTools = true;
@@ -546,8 +690,13 @@ public class Center {
             mainContent.getChildren().add(noResultLabel);
         }
 
+        // 流式加载期间数据不完整，提示信息在加载结束后再显示
+        if (toolsStreaming) {
+            return;
+        }
+
         // 检查是否有未分类的工具
-        boolean hasUncategorizedTools = allTools.stream().anyMatch(tool -> tool.getCategoryId() == null);
+        boolean hasUncategorizedTools = !dataManager.findToolsByCategory(null).isEmpty();
         if (hasUncategorizedTools) {
             Label uncategorizedLabel = new Label("存在未分类的工具，请在工具管理中为工具指定分类");
             uncategorizedLabel.setFont(getLabelFont());
@@ -573,24 +722,18 @@ public class Center {
         return allTools.stream()
                 .filter(tool -> {
                     // 搜索工具名称
-                    boolean nameMatch = tool.getName() != null &&
-                            tool.getName().toLowerCase().contains(lowerSearchText);
-
-                    // 搜索工具描述
-                    boolean descMatch = tool.getDescription() != null &&
-                            tool.getDescription().toLowerCase().contains(lowerSearchText);
+                    if (tool.getName() != null && tool.getName().toLowerCase().contains(lowerSearchText)) {
+                        return true;
+                    }
 
-                    return nameMatch || descMatch;
+                    // 搜索完整的工具描述：列表中的摘要可能被截断；名称已匹配时不必读取详细字段
+                    String description = tool.getDescription();
+                    return description != null && description.toLowerCase().contains(lowerSearchText);
                 })
                 .collect(Collectors.toList());
     }
 
-    private VBox createCategoryPane(ToolCategory category, List<ToolItem> allTools, String searchText) {
-        // 筛选属于当前分类的工具
-        List<ToolItem> categoryTools = allTools.stream()
-                .filter(tool -> belongsToCategory(tool, category))
-                .collect(Collectors.toList());
-
+    private VBox createCategoryPane(ToolCategory category, List<ToolItem> categoryTools, String searchText) {
         // 如果是在搜索状态下且该分类没有工具，返回null
         if (!searchText.isEmpty() && categoryTools.isEmpty()) {
             return null;
@@ -626,12 +769,10 @@ public class Center {
         toolFlowPane.setPadding(new Insets(10, 0, 0, 0));
         toolFlowPane.setStyle("-fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-border-color: transparent;");
         toolFlowPane.setFocusTraversable(false);
+        categoryFlowPanes.put(category.getId(), toolFlowPane);
 
         if (categoryTools.isEmpty()) {
-            Label noToolLabel = new Label("该分类下暂无工具");
-            noToolLabel.setFont(getCategoryDescFont());
-            noToolLabel.setStyle("-fx-text-fill: #999; -fx-focus-color: transparent; -fx-faint-focus-color: transparent;");
-            toolFlowPane.getChildren().add(noToolLabel);
+            toolFlowPane.getChildren().add(createEmptyCategoryLabel());
         } else {
             for (ToolItem tool : categoryTools) {
                 VBox toolBox = createToolBox(tool);
@@ -701,8 +842,16 @@ public class Center {
         return categoryPane;
     }
 
+    private Label createEmptyCategoryLabel() {
+        Label noToolLabel = new Label("该分类下暂无工具");
+        noToolLabel.setFont(getCategoryDescFont());
+        noToolLabel.setStyle("-fx-text-fill: #999; -fx-focus-color: transparent; -fx-faint-focus-color: transparent;");
+        return noToolLabel;
+    }
+
     private VBox createToolBox(ToolItem tool) {
         VBox toolBox = new VBox(5);
+        toolCards.put(tool.getId(), toolBox);
         toolBox.setPadding(new Insets(10));
         toolBox.setPrefSize(150, 80);
         toolBox.setStyle("-fx-background-color: white; -fx-border-color: #ddd; -fx-border-radius: 5; -fx-background-radius: 5; -fx-cursor: hand; -fx-border-width: 1; -fx-focus-color: transparent; -fx-faint-focus-color: transparent; -fx-focus-traversable: false; -fx-border-insets: 0;");
@@ -726,8 +875,8 @@ public class Center {
 
         // 工具描述
         Label descLabel = new Label();
-        if (tool.getDescription() != null && !tool.getDescription().trim().isEmpty()) {
-            descLabel.setText(tool.getDescription());
+        if (tool.getShortDescription() != null && !tool.getShortDescription().trim().isEmpty()) {
+            descLabel.setText(tool.getShortDescription());
             descLabel.setFont(getToolDescFont());
             descLabel.setStyle("-fx-text-fill: #666; -fx-focus-color: transparent; -fx-faint-focus-color: transparent;");
             descLabel.setWrapText(true);
@@ -750,75 +899,46 @@ public class Center {
         return toolBox;
     }
 
-    private boolean belongsToCategory(ToolItem tool, ToolCategory category) {
-        // 根据工具的categoryId字段来判断是否属于该分类
-        if (tool.getCategoryId() == null) {
-            return false; // 没有分类的工具不显示
-        }
-        return tool.getCategoryId().equals(category.getId());
-    }
-
     private void launchTool(ToolItem tool) {
+        // 参数中有 {target} 占位符的工具按目标列表批量运行
+        if (LaunchPlan.usesTarget(tool)) {
+            new FanOutDialog(tool).show();
+            return;
+        }
+        ProcessSupervisor.SupervisedProcess cliSession = null;
         try {
             // 详细验证并给出具体错误信息
-            String validationError = validateToolDetailed(tool);
+            String validationError = toolLauncher.validateToolDetailed(tool);
             if (validationError != null) {
                 showAlert("工具配置无效", validationError);
                 return;
             }
 
-            // 为CLI工具创建关闭回调
-            Runnable closeCallback = null;
-            if (!tool.isHasGUI()) {
-                closeCallback = () -> {
-                    Platform.runLater(() -> {
-                        // 查找对应的工具信息并更新状态
-                        for (RunningToolInfo runningTool : runningTools) {
-                            if (runningTool.getName().equals(tool.getName()) && runningTool.isRunning()) {
-                                runningTool.setRunning(false);
-                                runningTool.setStatus("已停止");
-                                updateSimpleStatus();
-
-                                // 5秒后自动移除
-                                setTimeout(() -> {
-                                    runningTools.remove(runningTool);
-                                    updateSimpleStatus();
-                                }, 5000);
-                                break;
-                            }
-                        }
-                    });
-                };
-            }
+            // CLI工具在虚拟终端中运行，没有进程对象，终端关闭时通过回调结束登记
+            cliSession = tool.isHasGUI() ? null : processSupervisor.registerSession(tool.getName());
+            ProcessSupervisor.SupervisedProcess session = cliSession;
+            Runnable closeCallback = session == null ? null : () -> processSupervisor.markExited(session);
 
             // 静默启动工具，不显示成功提示
             Process process = toolLauncher.launchTool(tool, closeCallback);
 
-            // 对于所有工具，都需要注册到状态栏（包括CLI工具）
-            RunningToolInfo toolInfo = new RunningToolInfo(tool.getName(), process, !tool.isHasGUI());
-            runningTools.add(toolInfo);
-            updateSimpleStatus();
-
-            // 对于GUI工具，启动监控线程来更新状态栏
+            // GUI工具登记到进程监控，退出后状态栏自动更新
             if (process != null) {
-                monitorProcessWithStatus(process, toolInfo);
-            }
-            // 对于CLI工具，不再需要虚拟监控线程，因为有了准确的关闭回调
-            else {
-                // CLI工具现在通过回调准确检测关闭，不需要猜测
+                processSupervisor.register(tool.getName(), process);
             }
 
         } catch (Exception e) {
+            if (cliSession != null) {
+                processSupervisor.remove(cliSession);
+            }
+
             // 只有启动失败时才显示详细错误信息
             String errorMessage = "无法启动工具 '" + tool.getName() + "':\n";
             errorMessage += "错误详情: " + e.getMessage() + "\n";
 
             // 添加更多调试信息
             if (tool.getEnvironmentId() != null) {
-                Environment env = dataManager.loadEnvironments().stream()
-                        .filter(e2 -> e2.getId().equals(tool.getEnvironmentId()))
-                        .findFirst()
-                        .orElse(null);
+                Environment env = dataManager.findEnvironmentById(tool.getEnvironmentId());
                 if (env != null) {
                     errorMessage += "环境路径: " + env.getExecutablePath() + "\n";
                 }
@@ -829,144 +949,6 @@ public class Center {
         }
     }
 
-    private String validateToolDetailed(ToolItem tool) {
-        if (tool == null) {
-            return "工具对象为空";
-        }
-
-        if (tool.getCommand() == null || tool.getCommand().trim().isEmpty()) {
-            return "工具命令未配置";
-        }
-
-        if (tool.getEnvironmentId() == null || tool.getEnvironmentId().trim().isEmpty()) {
-            return "工具未指定运行环境";
-        }
-
-        Environment environment = dataManager.loadEnvironments().stream()
-                .filter(env -> env.getId().equals(tool.getEnvironmentId()))
-                .findFirst()
-                .orElse(null);
-
-        if (environment == null) {
-            return "找不到ID为 '" + tool.getEnvironmentId() + "' 的运行环境";
-        }
-
-        if (environment.getExecutablePath() == null || environment.getExecutablePath().trim().isEmpty()) {
-            return "环境 '" + environment.getName() + "' 的可执行文件路径未配置";
-        }
-
-        File executable = new File(environment.getExecutablePath());
-        if (!executable.exists()) {
-            return "环境可执行文件不存在: " + environment.getExecutablePath();
-        }
-
-        if (!executable.isFile()) {
-            return "环境可执行文件不是有效的文件: " + environment.getExecutablePath();
-        }
-
-        if (!executable.canExecute()) {
-            return "环境可执行文件没有执行权限: " + environment.getExecutablePath();
-        }
-
-        // 检查工具命令（如果是绝对路径）
-        File toolCommand = new File(tool.getCommand());
-        if (toolCommand.isAbsolute() && !toolCommand.exists()) {
-            return "工具命令文件不存在: " + tool.getCommand();
-        }
-
-        return null; // 验证通过
-    }
-
-    private void monitorProcessSilently(Process process, ToolItem tool) {
-        new Thread(() -> {
-            try {
-                // 静默等待进程结束，不显示任何提示
-                process.waitFor();
-            } catch (InterruptedException e) {
-                // 监控被中断时也不显示提示
-                System.err.println("监控工具 '" + tool.getName() + "' 进程时被中断: " + e.getMessage());
-            }
-        }).start();
-    }
-
-    private void monitorProcessWithStatus(Process process, RunningToolInfo toolInfo) {
-        new Thread(() -> {
-            try {
-                // 等待进程结束
-                process.waitFor();
-
-                // 进程结束后更新状态栏
-                Platform.runLater(() -> {
-                    toolInfo.setRunning(false);
-                    updateSimpleStatus();
-                });
-
-                // 5秒后自动移除已完成的工具
-                Thread.sleep(5000);
-                Platform.runLater(() -> {
-                    // 再次检查，如果用户还没有清理，则自动移除
-                    if (runningTools.contains(toolInfo)) {
-                        runningTools.remove(toolInfo);
-                        updateSimpleStatus();
-                    }
-                });
-
-            } catch (InterruptedException e) {
-                // 监控被中断时更新状态
-                Platform.runLater(() -> {
-                    toolInfo.setRunning(false);
-                    updateSimpleStatus();
-                });
-                System.err.println("监控工具 '" + toolInfo.getName() + "' 进程时被中断: " + e.getMessage());
-            }
-        }).start();
-    }
-
-    private void monitorVirtualTool(RunningToolInfo toolInfo) {
-        // 对于CLI工具，我们无法实际监控进程，但可以提供一个合理的监控时间
-        new Thread(() -> {
-            try {
-                // 假设命令行工具运行10分钟后认为它已经完成
-                // 这是一个合理的估计，因为虚拟终端会自己处理exit命令
-                Thread.sleep(10 * 60 * 1000); // 10分钟
-
-                Platform.runLater(() -> {
-                    if (runningTools.contains(toolInfo)) {
-                        toolInfo.setRunning(false);
-                        toolInfo.setStatus("已结束");
-                        updateSimpleStatus();
-
-                        // 5秒后自动移除
-                        setTimeout(() -> {
-                            if (runningTools.contains(toolInfo)) {
-                                runningTools.remove(toolInfo);
-                                updateSimpleStatus();
-                            }
-                        }, 5000);
-                    }
-                });
-            } catch (InterruptedException e) {
-                // 监控被中断时更新状态
-                Platform.runLater(() -> {
-                    toolInfo.setRunning(false);
-                    updateSimpleStatus();
-                });
-                System.err.println("监控虚拟工具 '" + toolInfo.getName() + "' 时被中断: " + e.getMessage());
-            }
-        }).start();
-    }
-
-    private void setTimeout(Runnable runnable, long delay) {
-        new Thread(() -> {
-            try {
-                Thread.sleep(delay);
-                Platform.runLater(runnable);
-            } catch (InterruptedException e) {
-                Thread.currentThread().interrupt();
-            }
-        }).start();
-    }
-
     private void showAlert(String title, String message) {
         Alert alert = new Alert(Alert.AlertType.ERROR);
         alert.setTitle(title);
@@ -975,94 +957,6 @@ public class Center {
         alert.showAndWait();
     }
 
-    /**
-     * 运行工具信息类
-     */
-    private static class RunningToolInfo {
-        private String name;
-        private Process process;
-        private long startTime;
-        private boolean running;
-        private String status;
-
-        public RunningToolInfo(String name, Process process) {
-            this.name = name;
-            this.process = process;
-            this.startTime = System.currentTimeMillis();
-            this.running = true;
-            this.status = "运行中";
-        }
-
-        public RunningToolInfo(String name, Process process, boolean isCLI) {
-            this.name = name;
-            this.process = process;
-            this.startTime = System.currentTimeMillis();
-            this.running = true;
-            this.status = isCLI ? "命令行工具" : "运行中";
-        }
-
-        public String getName() {
-            return name;
-        }
-
-        public Process getProcess() {
-            return process;
-        }
-
-        public long getStartTime() {
-            return startTime;
-        }
-
-        public boolean isRunning() {
-            if (running && process != null) {
-                running = process.isAlive();
-                if (!running) {
-                    status = "已停止";
-                }
-            }
-            return running;
-        }
-
-        public void setRunning(boolean running) {
-            this.running = running;
-            this.status = running ? "运行中" : "已停止";
-        }
-
-        public void setStatus(String status) {
-            this.status = status;
-        }
-
-        public String getStatus() {
-            isRunning(); // 更新状态
-            return status;
-        }
-
-        public String getStatusColor() {
-            if (isRunning()) {
-                return "#28a745"; // 绿色
-            } else {
-                return "#dc3545"; // 红色
-            }
-        }
-
-        public String getRunningTime() {
-            long currentTime = System.currentTimeMillis();
-            long elapsed = currentTime - startTime;
-
-            long seconds = elapsed / 1000;
-            long minutes = seconds / 60;
-            long hours = minutes / 60;
-
-            if (hours > 0) {
-                return String.format("%d小时%d分钟", hours, minutes % 60);
-            } else if (minutes > 0) {
-                return String.format("%d分钟%d秒", minutes, seconds % 60);
-            } else {
-                return String.format("%d秒", seconds);
-            }
-        }
-    }
-
     /**
      * 全部展开分类
      */
@@ -1116,7 +1010,6 @@ public class Center {
      */
     private void saveCategoryCollapseStates() {
         try {
-            ObjectMapper mapper = new ObjectMapper();
             File configFile = new File("data/category_collapse_states.json");
             File dataDir = new File("data");
 
@@ -1125,7 +1018,7 @@ public class Center {
                 dataDir.mkdirs();
             }
 
-            mapper.writeValue(configFile, categoryCollapseStates);
+            JsonCodecs.BOOLEAN_MAP_WRITER.writeValue(configFile, categoryCollapseStates);
         } catch (Exception e) {
             System.err.println("保存分类折叠状态失败: " + e.getMessage());
         }
@@ -1139,9 +1032,7 @@ public class Center {
             File configFile = new File("data/category_collapse_states.json");
 
             if (configFile.exists()) {
-                ObjectMapper mapper = new ObjectMapper();
-                TypeReference<Map<String, Boolean>> typeRef = new TypeReference<Map<String, Boolean>>() {};
-                Map<String, Boolean> loadedStates = mapper.readValue(configFile, typeRef);
+                Map<String, Boolean> loadedStates = JsonCodecs.BOOLEAN_MAP_READER.readValue(configFile);
 
                 if (loadedStates != null) {
                     categoryCollapseStates.putAll(loadedStates);
@@ -1,5 +1,7 @@
 package com.y5neko.qrts.ui.common;
 
+import com.y5neko.qrts.service.Backup;
+import com.y5neko.qrts.service.DataManager;
 import com.y5neko.qrts.ui.dialog.AboutDialog;
 import com.y5neko.qrts.ui.dialog.SettingsDialog;
 import com.y5neko.qrts.ui.event.Components;
@@ -18,7 +20,14 @@ import javafx.scene.text.Font;
 import javafx.stage.Stage;
 
 import java.awt.Desktop;
+import java.io.IOException;
 import java.net.URI;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 import static com.y5neko.qrts.config.GlobalVariable.icon;
 
@@ -107,9 +116,15 @@ public class Header {
         menuBar.setStyle("-fx-background-color: transparent;");
         menuBar.setPadding(new Insets(0));
 
+        Menu workspaceMenu = new Menu("工作区");
         Menu settingMenu = new Menu("设置");
         Menu helpMenu = new Menu("帮助");
-        menuBar.getMenus().addAll(settingMenu, helpMenu);
+        menuBar.getMenus().addAll(workspaceMenu, settingMenu, helpMenu);
+
+        // ----------工作区菜单----------
+        // 每次展开时重新列出，包含在其他实例中新建的工作区
+        rebuildWorkspaceMenu(workspaceMenu);
+        workspaceMenu.setOnShowing(event -> rebuildWorkspaceMenu(workspaceMenu));
 
         // ----------设置菜单----------
         MenuItem fontSettingButton = new MenuItem("字体设置");
@@ -131,6 +146,94 @@ public class Header {
         });
     }
 
+    /**
+     * 列出所有工作区，当前工作区处于选中状态
+     */
+    private void rebuildWorkspaceMenu(Menu workspaceMenu) {
+        DataManager dataManager = DataManager.getInstance();
+        String active = dataManager.getActiveWorkspace();
+        ToggleGroup group = new ToggleGroup();
+        workspaceMenu.getItems().clear();
+        for (String name : dataManager.listWorkspaces()) {
+            RadioMenuItem item = new RadioMenuItem(DataManager.DEFAULT_WORKSPACE.equals(name) ? "默认" : name);
+            item.setToggleGroup(group);
+            item.setSelected(name.equals(active));
+            item.setOnAction(event -> switchWorkspace(name));
+            workspaceMenu.getItems().add(item);
+        }
+        MenuItem createButton = new MenuItem("新建工作区…");
+        createButton.setOnAction(event -> createWorkspace());
+        MenuItem restoreButton = new MenuItem("从备份恢复…");
+        restoreButton.setOnAction(event -> restoreBackup());
+        workspaceMenu.getItems().addAll(new SeparatorMenuItem(), createButton, restoreButton);
+    }
+
+    private void createWorkspace() {
+        TextInputDialog dialog = new TextInputDialog();
+        dialog.setTitle("新建工作区");
+        dialog.setHeaderText(null);
+        dialog.setContentText("工作区名称:");
+        Optional<String> result = dialog.showAndWait();
+        if (!result.isPresent() || result.get().trim().isEmpty()) {
+            return;
+        }
+        String name = result.get().trim();
+        try {
+            DataManager.getInstance().createWorkspace(name);
+            switchWorkspace(name);
+        } catch (IllegalArgumentException | IOException e) {
+            showError("新建工作区失败", e.getMessage());
+        }
+    }
+
+    /**
+     * 从当前工作区的自动备份中选择一份恢复，恢复前的内容也会先备份，可以再次恢复回来
+     */
+    private void restoreBackup() {
+        DataManager dataManager = DataManager.getInstance();
+        List<Backup> backups = dataManager.listBackups();
+        if (backups.isEmpty()) {
+            showError("从备份恢复", "当前工作区还没有备份");
+            return;
+        }
+        // 备份以创建时间（毫秒）区分，显示到毫秒保证每项不同
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss.SSS");
+        Map<String, String> choices = new LinkedHashMap<>();
+        for (Backup backup : backups) {
+            choices.put(format.format(new Date(backup.getCreatedAt())) + "  " + backup.getReason()
+                    + "（" + backup.getFileCount() + " 个文件）", backup.getId());
+        }
+        ChoiceDialog<String> dialog = new ChoiceDialog<>(choices.keySet().iterator().next(), choices.keySet());
+        dialog.setTitle("从备份恢复");
+        dialog.setHeaderText("恢复后当前工作区的环境、分类、工具和启动组都将替换为所选备份的内容");
+        dialog.setContentText("备份:");
+        Optional<String> result = dialog.showAndWait();
+        if (!result.isPresent()) {
+            return;
+        }
+        try {
+            dataManager.restoreBackup(choices.get(result.get()));
+        } catch (IllegalArgumentException | IOException e) {
+            showError("从备份恢复失败", e.getMessage());
+        }
+    }
+
+    private void switchWorkspace(String name) {
+        try {
+            DataManager.getInstance().switchWorkspace(name);
+        } catch (IllegalArgumentException e) {
+            showError("切换工作区失败", e.getMessage());
+        }
+    }
+
+    private void showError(String title, String content) {
+        Alert alert = new Alert(Alert.AlertType.ERROR);
+        alert.setTitle(title);
+        alert.setHeaderText(null);
+        alert.setContentText(content);
+        alert.showAndWait();
+    }
+
     /**
      * 处理鼠标按下事件
      */
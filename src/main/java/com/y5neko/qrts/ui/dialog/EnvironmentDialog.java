@@ -1,6 +1,7 @@
 package com.y5neko.qrts.ui.dialog;
 
 import com.y5neko.qrts.model.Environment;
+import com.y5neko.qrts.model.ToolItem;
 import com.y5neko.qrts.service.DataManager;
 import com.y5neko.qrts.service.ToolLauncher;
 import javafx.geometry.Insets;
@@ -129,7 +130,7 @@ public class EnvironmentDialog {
         deleteButton.setOnAction(e -> {
             Environment selected = tableView.getSelectionModel().getSelectedItem();
             if (selected != null) {
-                if (showConfirmDialog("确定要删除环境 '" + selected.getName() + "' 吗？")) {
+                if (showConfirmDialog(buildDeleteConfirmMessage(selected))) {
                     deleteEnvironment(selected);
                 }
             } else {
@@ -168,6 +169,11 @@ public class EnvironmentDialog {
         TextField pathField = new TextField();
         TextField paramsField = new TextField();
         TextField descField = new TextField();
+        Spinner<Integer> warmSpinner = new Spinner<>(0, 8, 0);
+        warmSpinner.setPrefWidth(80);
+        warmSpinner.setTooltip(new Tooltip("预先启动的解释器进程数，启动工具时直接使用，仅 java/python/node 环境有效；0 表示不使用"));
+        CheckBox inProcessCheckBox = new CheckBox("在本程序中运行 jar 工具");
+        inProcessCheckBox.setTooltip(new Tooltip("仅 java 环境、无JVM选项的 -jar/-cp 命令行工具有效；工具内的相对路径按本程序的工作目录解析"));
 
         // 创建必填字段标记
         Label nameRequiredLabel = new Label("*");
@@ -228,6 +234,8 @@ public class EnvironmentDialog {
             pathField.setText(environment.getExecutablePath());
             paramsField.setText(environment.getParameters());
             descField.setText(environment.getDescription());
+            warmSpinner.getValueFactory().setValue(environment.getWarmProcesses());
+            inProcessCheckBox.setSelected(environment.isInProcess());
         } else {
             // 新建环境时不显示ID字段，ID将在保存时自动生成
             idField.setVisible(false);
@@ -259,6 +267,9 @@ public class EnvironmentDialog {
         grid.add(paramsField, 1, 4);
         grid.add(new Label("描述:"), 0, 5);
         grid.add(descField, 1, 5);
+        grid.add(new Label("预热进程数:"), 0, 6);
+        grid.add(warmSpinner, 1, 6);
+        grid.add(inProcessCheckBox, 1, 7);
 
         dialog.getDialogPane().setContent(grid);
 
@@ -277,6 +288,8 @@ public class EnvironmentDialog {
                 env.setExecutablePath(pathField.getText());
                 env.setParameters(paramsField.getText());
                 env.setDescription(descField.getText());
+                env.setWarmProcesses(warmSpinner.getValue());
+                env.setInProcess(inProcessCheckBox.isSelected());
                 return env;
             }
             return null;
@@ -346,6 +359,26 @@ public class EnvironmentDialog {
         triggerRefresh(); // 刷新首页
     }
 
+    private String buildDeleteConfirmMessage(Environment environment) {
+        List<ToolItem> dependentTools = dataManager.findToolsByEnvironment(environment.getId());
+        if (dependentTools.isEmpty()) {
+            return "确定要删除环境 '" + environment.getName() + "' 吗？";
+        }
+
+        StringBuilder message = new StringBuilder();
+        message.append("环境 '").append(environment.getName()).append("' 正被 ")
+               .append(dependentTools.size()).append(" 个工具使用：\n");
+        int shown = Math.min(dependentTools.size(), 10);
+        for (int i = 0; i < shown; i++) {
+            message.append("• ").append(dependentTools.get(i).getName()).append("\n");
+        }
+        if (dependentTools.size() > shown) {
+            message.append("• ...\n");
+        }
+        message.append("\n删除后这些工具将无法启动，确定要删除吗？");
+        return message.toString();
+    }
+
     private void updateEnvironment(Environment updatedEnvironment) {
         List<Environment> environments = dataManager.loadEnvironments();
         for (int i = 0; i < environments.size(); i++) {
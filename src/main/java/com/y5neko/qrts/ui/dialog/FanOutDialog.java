@@ -0,0 +1,272 @@
+package com.y5neko.qrts.ui.dialog;
+
+import com.y5neko.qrts.model.ToolItem;
+import com.y5neko.qrts.service.FanOutListener;
+import com.y5neko.qrts.service.FanOutRun;
+import com.y5neko.qrts.service.LaunchPlan;
+import com.y5neko.qrts.service.ToolLauncher;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.FileChooser;
+import javafx.stage.Stage;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.List;
+
+/**
+ * 按目标列表批量运行一个带 {target} 占位符的工具，并汇总显示各目标的进度
+ */
+public class FanOutDialog {
+    // 查看单个目标的输出时最多读取的字节数
+    private static final int MAX_VIEW_BYTES = 1024 * 1024;
+
+    private final ToolItem tool;
+    private final ToolLauncher toolLauncher;
+    private Stage stage;
+    private FanOutRun run;
+
+    public FanOutDialog(ToolItem tool) {
+        this.tool = tool;
+        toolLauncher = ToolLauncher.getInstance();
+    }
+
+    public void show() {
+        stage = new Stage();
+        stage.setTitle("批量运行 - " + tool.getName());
+        stage.setWidth(720);
+        stage.setHeight(560);
+
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(10));
+
+        Label hintLabel = new Label("每行一个目标，依次替换工具参数中的 " + LaunchPlan.TARGET_PLACEHOLDER + "；# 开头的行和重复的目标会被忽略");
+        hintLabel.setWrapText(true);
+
+        TextArea targetsArea = new TextArea();
+        targetsArea.setPromptText("例如\n192.168.1.1\nexample.com");
+        VBox.setVgrow(targetsArea, Priority.ALWAYS);
+
+        Button importButton = new Button("从文件导入");
+        importButton.setOnAction(e -> {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("选择目标列表文件");
+            File selectedFile = fileChooser.showOpenDialog(stage);
+            if (selectedFile != null) {
+                try {
+                    String text = new String(Files.readAllBytes(selectedFile.toPath()), StandardCharsets.UTF_8);
+                    if (!targetsArea.getText().isEmpty() && !targetsArea.getText().endsWith("\n")) {
+                        targetsArea.appendText("\n");
+                    }
+                    targetsArea.appendText(text);
+                } catch (IOException ex) {
+                    showAlert("读取目标列表失败: " + ex.getMessage());
+                }
+            }
+        });
+
+        // 默认每个处理器一个进程，侦察类工具多在等待网络，可以调高
+        Spinner<Integer> concurrencySpinner = new Spinner<>(1, 256, Runtime.getRuntime().availableProcessors());
+        concurrencySpinner.setEditable(true);
+        concurrencySpinner.setPrefWidth(90);
+        concurrencySpinner.setTooltip(new Tooltip("同时运行的进程数上限"));
+        Spinner<Integer> rateSpinner = new Spinner<>(0, 1000, 0);
+        rateSpinner.setEditable(true);
+        rateSpinner.setPrefWidth(90);
+        rateSpinner.setTooltip(new Tooltip("每秒最多启动的进程数，0 表示不限制"));
+        Spinner<Integer> timeoutSpinner = new Spinner<>(0, 86400, 0);
+        timeoutSpinner.setEditable(true);
+        timeoutSpinner.setPrefWidth(90);
+        timeoutSpinner.setTooltip(new Tooltip("单个目标的运行时间上限（秒），超时的进程被结束；0 表示不限制"));
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.add(new Label("并发数:"), 0, 0);
+        grid.add(concurrencySpinner, 1, 0);
+        grid.add(new Label("每秒启动数:"), 2, 0);
+        grid.add(rateSpinner, 3, 0);
+        grid.add(new Label("超时(秒):"), 4, 0);
+        grid.add(timeoutSpinner, 5, 0);
+
+        Button startButton = new Button("开始");
+        Button cancelButton = new Button("取消");
+        cancelButton.setOnAction(e -> stage.close());
+        HBox buttonBox = new HBox(10, importButton, startButton, cancelButton);
+        buttonBox.setAlignment(Pos.CENTER_RIGHT);
+
+        startButton.setOnAction(e -> {
+            List<String> targets = FanOutRun.parseTargets(targetsArea.getText());
+            if (targets.isEmpty()) {
+                showAlert("请输入至少一个目标");
+                return;
+            }
+            String validationError = toolLauncher.validateToolDetailed(tool);
+            if (validationError != null) {
+                showAlert(validationError);
+                return;
+            }
+            showProgress(root, targets, concurrencySpinner.getValue(), rateSpinner.getValue(), timeoutSpinner.getValue());
+        });
+
+        root.getChildren().addAll(hintLabel, targetsArea, grid, buttonBox);
+
+        Scene scene = new Scene(root);
+        stage.setScene(scene);
+        // 关闭窗口时结束仍在运行的目标
+        stage.setOnHidden(e -> {
+            if (run != null) {
+                run.cancel();
+            }
+        });
+        stage.show();
+    }
+
+    private void showProgress(VBox root, List<String> targets, int concurrency, int ratePerSecond, int timeoutSeconds) {
+        TableView<FanOutRun.TargetStatus> statusTable = new TableView<>();
+        TableColumn<FanOutRun.TargetStatus, String> targetCol = new TableColumn<>("目标");
+        targetCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getTarget()));
+        targetCol.setPrefWidth(220);
+        TableColumn<FanOutRun.TargetStatus, String> stateCol = new TableColumn<>("状态");
+        stateCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(stateText(data.getValue())));
+        stateCol.setPrefWidth(90);
+        TableColumn<FanOutRun.TargetStatus, String> timeCol = new TableColumn<>("耗时(ms)");
+        timeCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(
+                data.getValue().getElapsedMillis() > 0 ? String.valueOf(data.getValue().getElapsedMillis()) : ""));
+        timeCol.setPrefWidth(80);
+        TableColumn<FanOutRun.TargetStatus, String> messageCol = new TableColumn<>("说明");
+        messageCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getMessage()));
+        messageCol.setPrefWidth(260);
+        statusTable.getColumns().add(targetCol);
+        statusTable.getColumns().add(stateCol);
+        statusTable.getColumns().add(timeCol);
+        statusTable.getColumns().add(messageCol);
+        VBox.setVgrow(statusTable, Priority.ALWAYS);
+
+        // 双击查看该目标的输出
+        statusTable.setRowFactory(tv -> {
+            TableRow<FanOutRun.TargetStatus> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    showOutput(row.getItem());
+                }
+            });
+            return row;
+        });
+
+        ProgressBar progressBar = new ProgressBar(0);
+        progressBar.setMaxWidth(Double.MAX_VALUE);
+        Label summaryLabel = new Label("正在运行...");
+        TextField directoryField = new TextField();
+        directoryField.setEditable(false);
+
+        Button stopButton = new Button("停止");
+        Button closeButton = new Button("关闭");
+        closeButton.setOnAction(e -> stage.close());
+        HBox buttonBox = new HBox(10, stopButton, closeButton);
+        buttonBox.setAlignment(Pos.CENTER_RIGHT);
+
+        HBox directoryBox = new HBox(10, new Label("输出目录:"), directoryField);
+        directoryBox.setAlignment(Pos.CENTER_LEFT);
+        HBox.setHgrow(directoryField, Priority.ALWAYS);
+
+        root.getChildren().setAll(statusTable, progressBar, summaryLabel, directoryBox, buttonBox);
+
+        try {
+            run = toolLauncher.launchFanOut(tool, targets, concurrency, ratePerSecond, timeoutSeconds, new FanOutListener() {
+                @Override
+                public void targetChanged(FanOutRun.TargetStatus status) {
+                    Platform.runLater(() -> {
+                        statusTable.getItems().set(status.getIndex(), status);
+                        updateSummary(progressBar, summaryLabel);
+                    });
+                }
+
+                @Override
+                public void finished(FanOutRun finishedRun) {
+                    Platform.runLater(() -> {
+                        updateSummary(progressBar, summaryLabel);
+                        stopButton.setDisable(true);
+                    });
+                }
+            });
+        } catch (IOException | IllegalArgumentException e) {
+            summaryLabel.setText("启动失败: " + e.getMessage());
+            stopButton.setDisable(true);
+            return;
+        }
+        // 状态变化通过 runLater 排在这之后，不会被初始状态覆盖
+        statusTable.getItems().setAll(run.getStatuses());
+        directoryField.setText(run.getOutputDirectory().toAbsolutePath().toString());
+        stopButton.setOnAction(e -> run.cancel());
+    }
+
+    private void updateSummary(ProgressBar progressBar, Label summaryLabel) {
+        if (run == null) {
+            return;
+        }
+        int completed = run.getCompletedCount();
+        int total = run.getTargetCount();
+        progressBar.setProgress(total == 0 ? 1 : (double) completed / total);
+        summaryLabel.setText((run.isFinished() ? "完成" : "进度") + "：" + completed + "/" + total
+                + "，成功 " + run.getSucceededCount() + "，失败 " + run.getFailedCount()
+                + "，用时 " + run.getElapsedMillis() + " ms");
+    }
+
+    private void showOutput(FanOutRun.TargetStatus status) {
+        String content;
+        try (InputStream in = Files.newInputStream(status.getOutputFile())) {
+            byte[] buffer = new byte[MAX_VIEW_BYTES];
+            int length = 0;
+            int read;
+            while (length < buffer.length && (read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+            }
+            content = new String(buffer, 0, length);
+        } catch (IOException e) {
+            content = "没有输出（" + e.getMessage() + "）";
+        }
+
+        TextArea outputArea = new TextArea(content);
+        outputArea.setEditable(false);
+        outputArea.setStyle("-fx-font-family: monospace;");
+        Stage outputStage = new Stage();
+        outputStage.setTitle(tool.getName() + " - " + status.getTarget());
+        outputStage.initOwner(stage);
+        outputStage.setScene(new Scene(outputArea, 640, 420));
+        outputStage.show();
+    }
+
+    private static String stateText(FanOutRun.TargetStatus status) {
+        switch (status.getState()) {
+            case WAITING:
+                return "等待";
+            case RUNNING:
+                return "运行中";
+            case SUCCEEDED:
+                return "完成";
+            case FAILED:
+                return "失败";
+            default:
+                return "已取消";
+        }
+    }
+
+    private void showAlert(String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("提示");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+}
@@ -0,0 +1,575 @@
+package com.y5neko.qrts.ui.dialog;
+
+import com.y5neko.qrts.model.LaunchGroup;
+import com.y5neko.qrts.model.LaunchGroupMember;
+import com.y5neko.qrts.model.ToolItem;
+import com.y5neko.qrts.service.DataManager;
+import com.y5neko.qrts.service.LaunchGroupListener;
+import com.y5neko.qrts.service.LaunchGroupRun;
+import com.y5neko.qrts.service.ToolLauncher;
+import javafx.application.Platform;
+import javafx.geometry.Insets;
+import javafx.geometry.Pos;
+import javafx.scene.Scene;
+import javafx.scene.control.*;
+import javafx.scene.layout.GridPane;
+import javafx.scene.layout.HBox;
+import javafx.scene.layout.Priority;
+import javafx.scene.layout.VBox;
+import javafx.stage.Modality;
+import javafx.stage.Stage;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+public class LaunchGroupDialog {
+    private Stage stage;
+    private TableView<LaunchGroup> tableView;
+    private DataManager dataManager;
+    private ToolLauncher toolLauncher;
+
+    public LaunchGroupDialog() {
+        dataManager = DataManager.getInstance();
+        toolLauncher = ToolLauncher.getInstance();
+    }
+
+    public void show() {
+        stage = new Stage();
+        stage.setTitle("启动组管理");
+        stage.setWidth(800);
+        stage.setHeight(500);
+
+        VBox root = new VBox(10);
+        root.setPadding(new Insets(10));
+
+        // 创建表格
+        createTableView();
+        VBox.setVgrow(tableView, Priority.ALWAYS);
+
+        // 创建按钮
+        HBox buttonBox = createButtonBox();
+
+        root.getChildren().addAll(tableView, buttonBox);
+
+        Scene scene = new Scene(root);
+        stage.setScene(scene);
+        stage.showAndWait();
+    }
+
+    private void createTableView() {
+        tableView = new TableView<>();
+
+        // 名称列
+        TableColumn<LaunchGroup, String> nameCol = new TableColumn<>("名称");
+        nameCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getName()));
+        nameCol.setPrefWidth(150);
+
+        // 成员列
+        TableColumn<LaunchGroup, String> membersCol = new TableColumn<>("工具");
+        membersCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(describeMembers(data.getValue())));
+        membersCol.setPrefWidth(330);
+
+        // 并发数列
+        TableColumn<LaunchGroup, String> parallelCol = new TableColumn<>("并发数");
+        parallelCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(String.valueOf(data.getValue().getMaxParallel())));
+        parallelCol.setPrefWidth(70);
+
+        // 描述列
+        TableColumn<LaunchGroup, String> descCol = new TableColumn<>("描述");
+        descCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getDescription()));
+        descCol.setPrefWidth(200);
+
+        tableView.getColumns().add(nameCol);
+        tableView.getColumns().add(membersCol);
+        tableView.getColumns().add(parallelCol);
+        tableView.getColumns().add(descCol);
+
+        // 加载数据
+        refreshTable();
+
+        // 双击启动
+        tableView.setRowFactory(tv -> {
+            TableRow<LaunchGroup> row = new TableRow<>();
+            row.setOnMouseClicked(event -> {
+                if (event.getClickCount() == 2 && !row.isEmpty()) {
+                    launchGroup(row.getItem());
+                }
+            });
+            return row;
+        });
+    }
+
+    private HBox createButtonBox() {
+        HBox buttonBox = new HBox(10);
+        buttonBox.setAlignment(Pos.CENTER_RIGHT);
+
+        Button launchButton = new Button("启动");
+        launchButton.setOnAction(e -> {
+            LaunchGroup selected = tableView.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                launchGroup(selected);
+            } else {
+                showAlert("请先选择要启动的启动组");
+            }
+        });
+
+        Button addButton = new Button("添加启动组");
+        addButton.setOnAction(e -> showGroupEditDialog(null));
+
+        Button editButton = new Button("编辑");
+        editButton.setOnAction(e -> {
+            LaunchGroup selected = tableView.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                showGroupEditDialog(selected);
+            } else {
+                showAlert("请先选择要编辑的启动组");
+            }
+        });
+
+        Button deleteButton = new Button("删除");
+        deleteButton.setOnAction(e -> {
+            LaunchGroup selected = tableView.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                if (showConfirmDialog("确定要删除启动组 '" + selected.getName() + "' 吗？")) {
+                    List<LaunchGroup> groups = dataManager.loadLaunchGroups();
+                    groups.removeIf(group -> group.getId().equals(selected.getId()));
+                    dataManager.saveLaunchGroups(groups);
+                    refreshTable();
+                }
+            } else {
+                showAlert("请先选择要删除的启动组");
+            }
+        });
+
+        Button refreshButton = new Button("刷新");
+        refreshButton.setOnAction(e -> refreshTable());
+
+        buttonBox.getChildren().addAll(launchButton, addButton, editButton, deleteButton, refreshButton);
+        return buttonBox;
+    }
+
+    private void showGroupEditDialog(LaunchGroup group) {
+        Dialog<LaunchGroup> dialog = new Dialog<>();
+        dialog.setTitle(group == null ? "添加启动组" : "编辑启动组");
+        dialog.setHeaderText(null);
+
+        // 设置为模态对话框
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.initOwner(stage);
+
+        ButtonType saveButtonType = new ButtonType("保存", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(saveButtonType, ButtonType.CANCEL);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 20, 10, 10));
+
+        TextField nameField = new TextField();
+        TextField descField = new TextField();
+        Spinner<Integer> parallelSpinner = new Spinner<>(1, 32, LaunchGroup.DEFAULT_MAX_PARALLEL);
+        parallelSpinner.setPrefWidth(80);
+        parallelSpinner.setTooltip(new Tooltip("同时处于启动中（尚未就绪）的工具数上限"));
+
+        // 编辑的是副本，取消时不影响原启动组
+        List<LaunchGroupMember> members = new ArrayList<>();
+        ListView<LaunchGroupMember> memberList = new ListView<>();
+        memberList.setPrefHeight(200);
+        memberList.setCellFactory(lv -> new ListCell<LaunchGroupMember>() {
+            @Override
+            protected void updateItem(LaunchGroupMember member, boolean empty) {
+                super.updateItem(member, empty);
+                setText(empty || member == null ? null : describeMember(member));
+            }
+        });
+
+        if (group != null) {
+            nameField.setText(group.getName());
+            descField.setText(group.getDescription());
+            parallelSpinner.getValueFactory().setValue(Math.max(1, group.getMaxParallel()));
+            for (LaunchGroupMember member : group.getMembers()) {
+                members.add(new LaunchGroupMember(member));
+            }
+        }
+        memberList.getItems().setAll(members);
+
+        Button addMemberButton = new Button("添加工具");
+        addMemberButton.setOnAction(e -> {
+            LaunchGroupMember member = showMemberEditDialog(dialog, null, members);
+            if (member != null) {
+                members.add(member);
+                memberList.getItems().setAll(members);
+            }
+        });
+
+        Button editMemberButton = new Button("编辑");
+        editMemberButton.setOnAction(e -> {
+            int index = memberList.getSelectionModel().getSelectedIndex();
+            if (index < 0) {
+                showAlert("请先选择要编辑的工具");
+                return;
+            }
+            LaunchGroupMember member = showMemberEditDialog(dialog, members.get(index), members);
+            if (member != null) {
+                String oldToolId = members.get(index).getToolId();
+                members.set(index, member);
+                // 更换工具后，其他成员对它的依赖一并更新
+                if (!member.getToolId().equals(oldToolId)) {
+                    for (LaunchGroupMember other : members) {
+                        other.getDependsOn().replaceAll(id -> id.equals(oldToolId) ? member.getToolId() : id);
+                    }
+                }
+                memberList.getItems().setAll(members);
+            }
+        });
+
+        Button removeMemberButton = new Button("移除");
+        removeMemberButton.setOnAction(e -> {
+            int index = memberList.getSelectionModel().getSelectedIndex();
+            if (index < 0) {
+                showAlert("请先选择要移除的工具");
+                return;
+            }
+            LaunchGroupMember removed = members.remove(index);
+            for (LaunchGroupMember other : members) {
+                other.getDependsOn().remove(removed.getToolId());
+            }
+            memberList.getItems().setAll(members);
+        });
+
+        HBox memberButtons = new HBox(10, addMemberButton, editMemberButton, removeMemberButton);
+
+        Label nameRequiredLabel = new Label("*");
+        nameRequiredLabel.setStyle("-fx-text-fill: red; -fx-font-weight: bold;");
+        HBox nameBox = new HBox(5);
+        nameBox.getChildren().addAll(new Label("名称:"), nameRequiredLabel);
+
+        grid.add(nameBox, 0, 0);
+        grid.add(nameField, 1, 0);
+        grid.add(new Label("描述:"), 0, 1);
+        grid.add(descField, 1, 1);
+        grid.add(new Label("并发数:"), 0, 2);
+        grid.add(parallelSpinner, 1, 2);
+        grid.add(new Label("工具:"), 0, 3);
+        grid.add(memberList, 1, 3);
+        grid.add(memberButtons, 1, 4);
+        GridPane.setHgrow(memberList, Priority.ALWAYS);
+
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().setPrefWidth(620);
+
+        dialog.setResultConverter(dialogButton -> {
+            if (dialogButton == saveButtonType) {
+                LaunchGroup result = group != null ? new LaunchGroup(group) : new LaunchGroup();
+                if (group == null) {
+                    result.setId("group-" + System.currentTimeMillis());
+                }
+                result.setName(nameField.getText());
+                result.setDescription(descField.getText());
+                result.setMaxParallel(parallelSpinner.getValue());
+                result.setMembers(members);
+                return result;
+            }
+            return null;
+        });
+
+        // 保存按钮的验证逻辑
+        Button saveButton = (Button) dialog.getDialogPane().lookupButton(saveButtonType);
+        saveButton.addEventFilter(javafx.event.ActionEvent.ACTION, event -> {
+            nameField.setStyle("");
+            if (nameField.getText() == null || nameField.getText().trim().isEmpty()) {
+                nameField.setStyle("-fx-border-color: red; -fx-border-width: 2px;");
+                showAlert("请填写启动组名称");
+                event.consume();
+            } else if (members.isEmpty()) {
+                showAlert("请至少添加一个工具");
+                event.consume();
+            }
+        });
+
+        Optional<LaunchGroup> result = dialog.showAndWait();
+        result.ifPresent(saved -> {
+            List<LaunchGroup> groups = dataManager.loadLaunchGroups();
+            if (group == null) {
+                groups.add(saved);
+            } else {
+                groups.replaceAll(g -> g.getId().equals(saved.getId()) ? saved : g);
+            }
+            dataManager.saveLaunchGroups(groups);
+            refreshTable();
+        });
+    }
+
+    /**
+     * 编辑启动组中的一个工具
+     * @param member 为null时添加新工具
+     * @param members 启动组当前的全部工具，用于选择依赖
+     * @return 编辑结果，取消时为null
+     */
+    private LaunchGroupMember showMemberEditDialog(Dialog<?> owner, LaunchGroupMember member, List<LaunchGroupMember> members) {
+        Dialog<LaunchGroupMember> dialog = new Dialog<>();
+        dialog.setTitle(member == null ? "添加工具" : "编辑工具");
+        dialog.setHeaderText(null);
+        dialog.initModality(Modality.APPLICATION_MODAL);
+        dialog.initOwner(owner.getDialogPane().getScene().getWindow());
+
+        ButtonType okButtonType = new ButtonType("确定", ButtonBar.ButtonData.OK_DONE);
+        dialog.getDialogPane().getButtonTypes().addAll(okButtonType, ButtonType.CANCEL);
+
+        GridPane grid = new GridPane();
+        grid.setHgap(10);
+        grid.setVgap(10);
+        grid.setPadding(new Insets(20, 20, 10, 10));
+
+        ComboBox<ToolItem> toolComboBox = new ComboBox<>();
+        toolComboBox.setPrefWidth(300);
+        toolComboBox.setCellFactory(lv -> new ListCell<ToolItem>() {
+            @Override
+            protected void updateItem(ToolItem tool, boolean empty) {
+                super.updateItem(tool, empty);
+                setText(empty || tool == null ? null : tool.getName());
+            }
+        });
+        toolComboBox.setButtonCell(toolComboBox.getCellFactory().call(null));
+        for (ToolItem tool : dataManager.loadTools()) {
+            // 同一个工具在组内只能出现一次
+            boolean used = false;
+            for (LaunchGroupMember other : members) {
+                if (other != member && tool.getId().equals(other.getToolId())) {
+                    used = true;
+                    break;
+                }
+            }
+            if (!used) {
+                toolComboBox.getItems().add(tool);
+            }
+        }
+
+        // 依赖只能选择组内的其他工具
+        ListView<LaunchGroupMember> dependsOnList = new ListView<>();
+        dependsOnList.setPrefHeight(120);
+        dependsOnList.getSelectionModel().setSelectionMode(SelectionMode.MULTIPLE);
+        dependsOnList.setCellFactory(lv -> new ListCell<LaunchGroupMember>() {
+            @Override
+            protected void updateItem(LaunchGroupMember other, boolean empty) {
+                super.updateItem(other, empty);
+                setText(empty || other == null ? null : toolName(other.getToolId()));
+            }
+        });
+        for (LaunchGroupMember other : members) {
+            if (other != member) {
+                dependsOnList.getItems().add(other);
+            }
+        }
+
+        TextField patternField = new TextField();
+        patternField.setPromptText("例如 Listening on|started");
+        patternField.setTooltip(new Tooltip("工具输出中出现匹配此正则表达式的行时视为就绪；为空时进程启动后仍在运行即视为就绪"));
+        Spinner<Integer> timeoutSpinner = new Spinner<>(1, 3600, LaunchGroupMember.DEFAULT_READY_TIMEOUT_SECONDS);
+        timeoutSpinner.setPrefWidth(90);
+        timeoutSpinner.setEditable(true);
+
+        if (member != null) {
+            for (ToolItem tool : toolComboBox.getItems()) {
+                if (tool.getId().equals(member.getToolId())) {
+                    toolComboBox.setValue(tool);
+                    break;
+                }
+            }
+            for (LaunchGroupMember other : dependsOnList.getItems()) {
+                if (member.getDependsOn().contains(other.getToolId())) {
+                    dependsOnList.getSelectionModel().select(other);
+                }
+            }
+            patternField.setText(member.getReadyPattern());
+            timeoutSpinner.getValueFactory().setValue(Math.max(1, member.getReadyTimeoutSeconds()));
+        }
+
+        grid.add(new Label("工具:"), 0, 0);
+        grid.add(toolComboBox, 1, 0);
+        grid.add(new Label("依赖:"), 0, 1);
+        grid.add(dependsOnList, 1, 1);
+        grid.add(new Label("就绪输出:"), 0, 2);
+        grid.add(patternField, 1, 2);
+        grid.add(new Label("就绪超时(秒):"), 0, 3);
+        grid.add(timeoutSpinner, 1, 3);
+
+        dialog.getDialogPane().setContent(grid);
+
+        dialog.setResultConverter(dialogButton -> {
+            if (dialogButton == okButtonType) {
+                LaunchGroupMember result = new LaunchGroupMember(toolComboBox.getValue().getId());
+                List<String> dependsOn = new ArrayList<>();
+                for (LaunchGroupMember other : dependsOnList.getSelectionModel().getSelectedItems()) {
+                    dependsOn.add(other.getToolId());
+                }
+                result.setDependsOn(dependsOn);
+                String pattern = patternField.getText();
+                result.setReadyPattern(pattern == null || pattern.trim().isEmpty() ? null : pattern);
+                result.setReadyTimeoutSeconds(timeoutSpinner.getValue());
+                return result;
+            }
+            return null;
+        });
+
+        Button okButton = (Button) dialog.getDialogPane().lookupButton(okButtonType);
+        okButton.addEventFilter(javafx.event.ActionEvent.ACTION, event -> {
+            if (toolComboBox.getValue() == null) {
+                showAlert("请选择工具");
+                event.consume();
+                return;
+            }
+            String pattern = patternField.getText();
+            if (pattern != null && !pattern.trim().isEmpty()) {
+                try {
+                    Pattern.compile(pattern);
+                } catch (PatternSyntaxException e) {
+                    showAlert("就绪输出的正则表达式无效: " + e.getDescription());
+                    event.consume();
+                }
+            }
+        });
+
+        return dialog.showAndWait().orElse(null);
+    }
+
+    private void launchGroup(LaunchGroup group) {
+        Stage progressStage = new Stage();
+        progressStage.setTitle("启动组 - " + group.getName());
+        progressStage.initOwner(stage);
+        progressStage.setWidth(560);
+        progressStage.setHeight(360);
+
+        TableView<LaunchGroupRun.MemberStatus> statusTable = new TableView<>();
+        TableColumn<LaunchGroupRun.MemberStatus, String> toolCol = new TableColumn<>("工具");
+        toolCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getToolName()));
+        toolCol.setPrefWidth(160);
+        TableColumn<LaunchGroupRun.MemberStatus, String> stateCol = new TableColumn<>("状态");
+        stateCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(stateText(data.getValue().getState())));
+        stateCol.setPrefWidth(80);
+        TableColumn<LaunchGroupRun.MemberStatus, String> messageCol = new TableColumn<>("说明");
+        messageCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getMessage()));
+        messageCol.setPrefWidth(280);
+        statusTable.getColumns().add(toolCol);
+        statusTable.getColumns().add(stateCol);
+        statusTable.getColumns().add(messageCol);
+        VBox.setVgrow(statusTable, Priority.ALWAYS);
+
+        Label summaryLabel = new Label("正在启动...");
+        Button cancelButton = new Button("取消");
+        Button closeButton = new Button("关闭");
+        closeButton.setOnAction(e -> progressStage.close());
+        HBox buttonBox = new HBox(10, cancelButton, closeButton);
+        buttonBox.setAlignment(Pos.CENTER_RIGHT);
+
+        VBox root = new VBox(10, statusTable, summaryLabel, buttonBox);
+        root.setPadding(new Insets(10));
+        progressStage.setScene(new Scene(root));
+
+        LaunchGroupRun run = toolLauncher.launchGroup(group, new LaunchGroupListener() {
+            @Override
+            public void memberChanged(LaunchGroupRun.MemberStatus status) {
+                Platform.runLater(() -> {
+                    List<LaunchGroupRun.MemberStatus> items = statusTable.getItems();
+                    for (int i = 0; i < items.size(); i++) {
+                        if (items.get(i).getToolId().equals(status.getToolId())) {
+                            items.set(i, status);
+                            return;
+                        }
+                    }
+                    items.add(status);
+                });
+            }
+
+            @Override
+            public void finished(LaunchGroupRun run) {
+                List<LaunchGroupRun.MemberStatus> statuses = run.getStatuses();
+                long elapsed = run.getElapsedMillis();
+                Platform.runLater(() -> {
+                    int ready = 0;
+                    for (LaunchGroupRun.MemberStatus status : statuses) {
+                        if (status.getState() == LaunchGroupRun.MemberState.READY) {
+                            ready++;
+                        }
+                    }
+                    summaryLabel.setText("完成：" + ready + "/" + statuses.size() + " 个工具就绪，用时 " + elapsed + " ms");
+                    cancelButton.setDisable(true);
+                });
+            }
+        });
+        cancelButton.setOnAction(e -> run.cancel());
+        progressStage.show();
+    }
+
+    private String describeMembers(LaunchGroup group) {
+        StringBuilder text = new StringBuilder();
+        for (LaunchGroupMember member : group.getMembers()) {
+            if (text.length() > 0) {
+                text.append(", ");
+            }
+            text.append(toolName(member.getToolId()));
+        }
+        return text.toString();
+    }
+
+    private String describeMember(LaunchGroupMember member) {
+        StringBuilder text = new StringBuilder(toolName(member.getToolId()));
+        if (!member.getDependsOn().isEmpty()) {
+            text.append("  ← ");
+            for (int i = 0; i < member.getDependsOn().size(); i++) {
+                if (i > 0) {
+                    text.append(", ");
+                }
+                text.append(toolName(member.getDependsOn().get(i)));
+            }
+        }
+        if (member.getReadyPattern() != null) {
+            text.append("  [就绪: ").append(member.getReadyPattern()).append("]");
+        }
+        return text.toString();
+    }
+
+    private String toolName(String toolId) {
+        ToolItem tool = dataManager.findToolById(toolId);
+        return tool != null ? tool.getName() : toolId + "（已删除）";
+    }
+
+    private static String stateText(LaunchGroupRun.MemberState state) {
+        switch (state) {
+            case WAITING:
+                return "等待";
+            case STARTING:
+                return "启动中";
+            case READY:
+                return "就绪";
+            case FAILED:
+                return "失败";
+            default:
+                return "已跳过";
+        }
+    }
+
+    private void refreshTable() {
+        tableView.getItems().clear();
+        tableView.getItems().addAll(dataManager.loadLaunchGroups());
+    }
+
+    private void showAlert(String message) {
+        Alert alert = new Alert(Alert.AlertType.INFORMATION);
+        alert.setTitle("提示");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        alert.showAndWait();
+    }
+
+    private boolean showConfirmDialog(String message) {
+        Alert alert = new Alert(Alert.AlertType.CONFIRMATION);
+        alert.setTitle("确认");
+        alert.setHeaderText(null);
+        alert.setContentText(message);
+        return alert.showAndWait().get() == ButtonType.OK;
+    }
+}
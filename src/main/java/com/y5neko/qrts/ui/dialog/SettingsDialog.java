@@ -1,6 +1,7 @@
 package com.y5neko.qrts.ui.dialog;
 
 import com.y5neko.qrts.config.GlobalVariable;
+import com.y5neko.qrts.service.AppSettings;
 import com.y5neko.qrts.service.DataManager;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -339,36 +340,14 @@ public class SettingsDialog {
      */
     private void loadCurrentSettings() {
         try {
-            // 从DataManager加载字体设置（如果有的话）
-            String savedFont = dataManager.getAppConfig("selectedFont");
-            if (savedFont != null) {
-                selectedFont = savedFont;
-            }
-
-            String savedTitleSize = dataManager.getAppConfig("titleFontSize");
-            if (savedTitleSize != null) {
-                titleFontSize = Double.parseDouble(savedTitleSize);
-            }
-
-            String savedCategorySize = dataManager.getAppConfig("categoryFontSize");
-            if (savedCategorySize != null) {
-                categoryFontSize = Double.parseDouble(savedCategorySize);
-            }
-
-            String savedCategoryDescSize = dataManager.getAppConfig("categoryDescFontSize");
-            if (savedCategoryDescSize != null) {
-                categoryDescFontSize = Double.parseDouble(savedCategoryDescSize);
-            }
-
-            String savedToolDescSize = dataManager.getAppConfig("toolDescFontSize");
-            if (savedToolDescSize != null) {
-                toolDescFontSize = Double.parseDouble(savedToolDescSize);
-            }
-
-            String savedButtonSize = dataManager.getAppConfig("buttonFontSize");
-            if (savedButtonSize != null) {
-                buttonFontSize = Double.parseDouble(savedButtonSize);
-            }
+            // 从应用设置加载字体设置，未保存过的使用默认值
+            AppSettings settings = dataManager.getSettings();
+            selectedFont = settings.get(AppSettings.SELECTED_FONT);
+            titleFontSize = settings.get(AppSettings.TITLE_FONT_SIZE);
+            categoryFontSize = settings.get(AppSettings.CATEGORY_FONT_SIZE);
+            categoryDescFontSize = settings.get(AppSettings.CATEGORY_DESC_FONT_SIZE);
+            toolDescFontSize = settings.get(AppSettings.TOOL_DESC_FONT_SIZE);
+            buttonFontSize = settings.get(AppSettings.BUTTON_FONT_SIZE);
         } catch (Exception e) {
             System.err.println("加载设置失败，使用默认值: " + e.getMessage());
         }
@@ -387,20 +366,15 @@ public class SettingsDialog {
      */
     private void applySettings() {
         try {
-            // 保存到DataManager
-            dataManager.setAppConfig("selectedFont", selectedFont);
-            dataManager.setAppConfig("titleFontSize", String.valueOf(titleFontSize));
-            dataManager.setAppConfig("categoryFontSize", String.valueOf(categoryFontSize));
-            dataManager.setAppConfig("categoryDescFontSize", String.valueOf(categoryDescFontSize));
-            dataManager.setAppConfig("toolDescFontSize", String.valueOf(toolDescFontSize));
-            dataManager.setAppConfig("buttonFontSize", String.valueOf(buttonFontSize));
-
-            // 更新全局字体设置
-            GlobalVariable.updateFontSettings(selectedFont, titleFontSize, categoryFontSize,
-                                            categoryDescFontSize, toolDescFontSize, buttonFontSize);
-
-            // 刷新Center界面
-            com.y5neko.qrts.ui.common.Center.refreshAll();
+            // 一次提交全部字体设置，只写一次文件；全局字体和Center界面由设置监听器更新
+            dataManager.getSettings().beginBatch()
+                    .set(AppSettings.SELECTED_FONT, selectedFont)
+                    .set(AppSettings.TITLE_FONT_SIZE, titleFontSize)
+                    .set(AppSettings.CATEGORY_FONT_SIZE, categoryFontSize)
+                    .set(AppSettings.CATEGORY_DESC_FONT_SIZE, categoryDescFontSize)
+                    .set(AppSettings.TOOL_DESC_FONT_SIZE, toolDescFontSize)
+                    .set(AppSettings.BUTTON_FONT_SIZE, buttonFontSize)
+                    .commit();
 
             showAlert("设置已应用", "字体设置已成功应用并保存！", Alert.AlertType.INFORMATION);
 
@@ -3,8 +3,12 @@ package com.y5neko.qrts.ui.dialog;
 import com.y5neko.qrts.model.Environment;
 import com.y5neko.qrts.model.ToolCategory;
 import com.y5neko.qrts.model.ToolItem;
+import com.y5neko.qrts.service.CatalogChange;
+import com.y5neko.qrts.service.CatalogListener;
 import com.y5neko.qrts.service.DataManager;
+import com.y5neko.qrts.service.ProcessSupervisor;
 import com.y5neko.qrts.service.ToolLauncher;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
@@ -16,8 +20,14 @@ import javafx.stage.Modality;
 import javafx.stage.Stage;
 
 import java.io.File;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.function.Function;
 
 public class ToolDialog {
     private Stage stage;
@@ -25,6 +35,31 @@ public class ToolDialog {
     private DataManager dataManager;
     private ToolLauncher toolLauncher;
     private Runnable refreshCallback; // 用于刷新首页的回调
+    private TableView<ToolCategory> categoryTable;
+    private TableView<ToolItem> toolTable;
+
+    // 数据文件被外部修改时只更新受影响的行
+    private final CatalogListener catalogListener = new CatalogListener() {
+        @Override
+        public void environmentsChanged(CatalogChange<Environment> change) {
+            // 工具表格中的环境名称列
+            Platform.runLater(() -> toolTable.refresh());
+        }
+
+        @Override
+        public void categoriesChanged(CatalogChange<ToolCategory> change) {
+            Platform.runLater(() -> {
+                applyRowChanges(categoryTable, change, ToolCategory::getId);
+                categoryTable.getItems().sort((c1, c2) -> Integer.compare(c1.getSortOrder(), c2.getSortOrder()));
+                toolTable.refresh();
+            });
+        }
+
+        @Override
+        public void toolsChanged(CatalogChange<ToolItem> change) {
+            Platform.runLater(() -> applyRowChanges(toolTable, change, ToolItem::getId));
+        }
+    };
 
     public ToolDialog() {
         dataManager = DataManager.getInstance();
@@ -55,7 +90,34 @@ public class ToolDialog {
 
         Scene scene = new Scene(root);
         stage.setScene(scene);
+        dataManager.addCatalogListener(catalogListener);
         stage.showAndWait();
+        dataManager.removeCatalogListener(catalogListener);
+    }
+
+    /**
+     * 按ID删除、原位替换、追加表格行，保留其余行及选中状态
+     */
+    private <T> void applyRowChanges(TableView<T> table, CatalogChange<T> change, Function<T, String> idExtractor) {
+        Set<String> removedIds = new HashSet<>();
+        for (T item : change.getRemoved()) {
+            removedIds.add(idExtractor.apply(item));
+        }
+        table.getItems().removeIf(item -> removedIds.contains(idExtractor.apply(item)));
+
+        Map<String, Integer> rowById = new HashMap<>();
+        for (int i = 0; i < table.getItems().size(); i++) {
+            rowById.put(idExtractor.apply(table.getItems().get(i)), i);
+        }
+        for (T item : change.getChanged()) {
+            Integer row = rowById.get(idExtractor.apply(item));
+            if (row != null) {
+                table.getItems().set(row, item);
+            } else {
+                table.getItems().add(item);
+            }
+        }
+        table.getItems().addAll(change.getAdded());
     }
 
     private void createTabPane() {
@@ -79,7 +141,7 @@ public class ToolDialog {
         pane.setPadding(new Insets(10));
 
         // 分类表格
-        TableView<ToolCategory> categoryTable = new TableView<>();
+        categoryTable = new TableView<>();
 
         TableColumn<ToolCategory, String> idCol = new TableColumn<>("ID");
         idCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getId()));
@@ -144,7 +206,7 @@ public class ToolDialog {
         pane.setPadding(new Insets(10));
 
         // 工具表格
-        TableView<ToolItem> toolTable = new TableView<>();
+        toolTable = new TableView<>();
 
         TableColumn<ToolItem, String> idCol = new TableColumn<>("ID");
         idCol.setCellValueFactory(data -> new javafx.beans.property.SimpleStringProperty(data.getValue().getId()));
@@ -524,8 +586,9 @@ public class ToolDialog {
             if (dialogButton == saveButtonType) {
                 ToolItem item = new ToolItem();
                 if (tool != null) {
-                    // 编辑现有工具，使用原ID
+                    // 编辑现有工具，使用原ID，并带上打开对话框时的版本号用于检测并发修改
                     item.setId(idField.getText());
+                    item.setVersion(tool.getVersion());
                 } else {
                     // 新建工具，自动生成ID
                     item.setId("tool-" + System.currentTimeMillis());
@@ -595,11 +658,9 @@ public class ToolDialog {
         Optional<ToolItem> result = dialog.showAndWait();
         result.ifPresent(item -> {
             if (tool == null) {
-                List<ToolItem> tools = dataManager.loadTools();
-                tools.add(item);
-                dataManager.saveTools(tools);
+                dataManager.addTool(item);
             } else {
-                updateTool(item);
+                dataManager.updateTool(item);
             }
             loadTools(toolTable);
             triggerRefresh(); // 刷新首页
@@ -615,9 +676,7 @@ public class ToolDialog {
     }
 
     private void deleteTool(ToolItem tool, TableView<ToolItem> toolTable) {
-        List<ToolItem> tools = dataManager.loadTools();
-        tools.removeIf(t -> t.getId().equals(tool.getId()));
-        dataManager.saveTools(tools);
+        dataManager.deleteTool(tool.getId());
         loadTools(toolTable);
         triggerRefresh(); // 刷新首页
     }
@@ -633,17 +692,6 @@ public class ToolDialog {
         dataManager.saveCategories(categories);
     }
 
-    private void updateTool(ToolItem updatedTool) {
-        List<ToolItem> tools = dataManager.loadTools();
-        for (int i = 0; i < tools.size(); i++) {
-            if (tools.get(i).getId().equals(updatedTool.getId())) {
-                tools.set(i, updatedTool);
-                break;
-            }
-        }
-        dataManager.saveTools(tools);
-    }
-
     private void loadCategories(TableView<ToolCategory> categoryTable) {
         categoryTable.getItems().clear();
         List<ToolCategory> categories = dataManager.loadCategories();
@@ -660,7 +708,7 @@ public class ToolDialog {
     private void testTool(ToolItem tool) {
         try {
             // 详细验证并给出具体错误信息
-            String validationError = validateToolDetailed(tool);
+            String validationError = toolLauncher.validateToolDetailed(tool);
             if (validationError != null) {
                 showAlert("工具配置无效\n\n" + validationError);
                 return;
@@ -669,15 +717,9 @@ public class ToolDialog {
             // 静默启动工具进行测试
             Process process = toolLauncher.launchTool(tool);
 
-            // 对于GUI工具，后台监控进程
+            // 对于GUI工具，登记到进程监控，与主界面启动的工具一起显示在状态栏
             if (process != null) {
-                new Thread(() -> {
-                    try {
-                        process.waitFor();
-                    } catch (InterruptedException e) {
-                        System.err.println("测试工具 '" + tool.getName() + "' 时被中断: " + e.getMessage());
-                    }
-                }).start();
+                ProcessSupervisor.getInstance().register(tool.getName(), process);
             }
             // 对于CLI工具，不需要监控进程，因为会打开虚拟终端
 
@@ -699,62 +741,12 @@ public class ToolDialog {
         }
     }
 
-    private String validateToolDetailed(ToolItem tool) {
-        if (tool == null) {
-            return "工具对象为空";
-        }
-
-        if (tool.getCommand() == null || tool.getCommand().trim().isEmpty()) {
-            return "工具路径未配置";
-        }
-
-        if (tool.getEnvironmentId() == null || tool.getEnvironmentId().trim().isEmpty()) {
-            return "工具未指定运行环境";
-        }
-
-        Environment environment = findEnvironmentById(tool.getEnvironmentId());
-        if (environment == null) {
-            return "找不到ID为 '" + tool.getEnvironmentId() + "' 的运行环境";
-        }
-
-        if (environment.getExecutablePath() == null || environment.getExecutablePath().trim().isEmpty()) {
-            return "环境 '" + environment.getName() + "' 的可执行文件路径未配置";
-        }
-
-        File executable = new File(environment.getExecutablePath());
-        if (!executable.exists()) {
-            return "环境可执行文件不存在: " + environment.getExecutablePath();
-        }
-
-        if (!executable.isFile()) {
-            return "环境可执行文件不是有效的文件: " + environment.getExecutablePath();
-        }
-
-        if (!executable.canExecute()) {
-            return "环境可执行文件没有执行权限: " + environment.getExecutablePath();
-        }
-
-        // 检查工具路径（如果是绝对路径）
-        File toolCommand = new File(tool.getCommand());
-        if (toolCommand.isAbsolute() && !toolCommand.exists()) {
-            return "工具路径文件不存在: " + tool.getCommand();
-        }
-
-        return null; // 验证通过
-    }
-
     private ToolCategory findCategoryById(String categoryId) {
-        return dataManager.loadCategories().stream()
-                .filter(cat -> cat.getId().equals(categoryId))
-                .findFirst()
-                .orElse(null);
+        return dataManager.findCategoryById(categoryId);
     }
 
     private Environment findEnvironmentById(String envId) {
-        return dataManager.loadEnvironments().stream()
-                .filter(env -> env.getId().equals(envId))
-                .findFirst()
-                .orElse(null);
+        return dataManager.findEnvironmentById(envId);
     }
 
     private void showAlert(String message) {
@@ -780,8 +772,7 @@ public class ToolDialog {
             return;
         }
 
-        List<ToolCategory> categories = categoryTable.getItems();
-        int currentIndex = categories.indexOf(selected);
+        int currentIndex = categoryTable.getItems().indexOf(selected);
 
         int newIndex;
         if (moveUp) {
@@ -792,17 +783,20 @@ public class ToolDialog {
             }
         } else {
             newIndex = currentIndex + 1;
-            if (newIndex >= categories.size()) {
+            if (newIndex >= categoryTable.getItems().size()) {
                 showAlert("已经是最后一个分类，无法下移");
                 return;
             }
         }
 
-        // 交换排序值
-        ToolCategory otherCategory = categories.get(newIndex);
-        int tempSort = selected.getSortOrder();
-        selected.setSortOrder(otherCategory.getSortOrder());
-        otherCategory.setSortOrder(tempSort);
+        // 交换排序值，表格中的分类与后台线程共享，复制后再修改
+        List<ToolCategory> categories = new ArrayList<>(categoryTable.getItems());
+        ToolCategory movedCategory = new ToolCategory(selected);
+        ToolCategory otherCategory = new ToolCategory(categories.get(newIndex));
+        movedCategory.setSortOrder(otherCategory.getSortOrder());
+        otherCategory.setSortOrder(selected.getSortOrder());
+        categories.set(currentIndex, movedCategory);
+        categories.set(newIndex, otherCategory);
 
         // 保存到文件
         try {
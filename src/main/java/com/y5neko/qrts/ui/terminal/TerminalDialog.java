@@ -3,6 +3,10 @@ package com.y5neko.qrts.ui.terminal;
 import com.y5neko.qrts.model.ToolItem;
 import com.y5neko.qrts.model.Environment;
 import com.y5neko.qrts.service.DataManager;
+import com.y5neko.qrts.service.ExecutableResolver;
+import com.y5neko.qrts.service.LaunchObserver;
+import com.y5neko.qrts.service.LaunchPlan;
+import com.y5neko.qrts.service.ToolLauncher;
 import javafx.geometry.Insets;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -15,6 +19,8 @@ public class TerminalDialog {
     private VirtualTerminal terminal;
     private DataManager dataManager;
     private Runnable externalOnCloseCallback;
+    // 报告第一次执行工具的结果（启动组等待就绪），报告后置为null
+    private LaunchObserver launchObserver;
 
     public TerminalDialog() {
         dataManager = DataManager.getInstance();
@@ -25,6 +31,11 @@ public class TerminalDialog {
         this.externalOnCloseCallback = onCloseCallback;
     }
 
+    public TerminalDialog(Runnable onCloseCallback, LaunchObserver launchObserver) {
+        this(onCloseCallback);
+        this.launchObserver = launchObserver;
+    }
+
     public void show() {
         stage = new Stage();
         stage.setTitle("虚拟终端");
@@ -79,6 +90,7 @@ public class TerminalDialog {
             // 当用户输入exit命令时关闭窗口
             javafx.application.Platform.runLater(() -> {
                 terminal.closeTerminal();
+                failPendingLaunch("终端已关闭");
                 stage.close();
                 // 调用外部回调（如果存在）
                 if (externalOnCloseCallback != null) {
@@ -108,10 +120,7 @@ public class TerminalDialog {
         Label nameLabel = new Label("工具名称: " + tool.getName());
         Label descLabel = new Label("描述: " + (tool.getDescription() != null ? tool.getDescription() : "无"));
 
-        Environment env = dataManager.loadEnvironments().stream()
-                .filter(e -> e.getId().equals(tool.getEnvironmentId()))
-                .findFirst()
-                .orElse(null);
+        Environment env = dataManager.findEnvironmentById(tool.getEnvironmentId());
 
         Label envLabel = new Label("运行环境: " + (env != null ? env.getName() : "未找到"));
         Label cmdLabel = new Label("执行命令: " + tool.getCommand());
@@ -124,7 +133,7 @@ public class TerminalDialog {
         HBox buttonBox = new HBox(10);
         Button executeBtn = new Button("执行工具");
         executeBtn.setStyle("-fx-background-color: #4a90e2; -fx-text-fill: white; -fx-border-radius: 3; -fx-background-radius: 3; -fx-padding: 8 16px;");
-        executeBtn.setOnAction(e -> executeTool(tool, env));
+        executeBtn.setOnAction(e -> executeTool(tool));
 
         Button clearBtn = new Button("清空终端");
         clearBtn.setStyle("-fx-background-color: #444; -fx-text-fill: white; -fx-border-radius: 3; -fx-background-radius: 3; -fx-padding: 8 16px;");
@@ -141,6 +150,7 @@ public class TerminalDialog {
         // 设置窗口关闭事件
         stage.setOnCloseRequest(e -> {
             terminal.closeTerminal();
+            failPendingLaunch("终端已关闭");
             stage.close();
             // 调用外部回调（如果存在）
             if (externalOnCloseCallback != null) {
@@ -157,36 +167,44 @@ public class TerminalDialog {
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                 }
-                executeTool(tool, env);
+                executeTool(tool);
             });
         }
 
         stage.show();
     }
 
-    private void executeTool(ToolItem tool, Environment environment) {
-        if (environment == null) {
+    private void executeTool(ToolItem tool) {
+        // 每次执行都重新取启动计划：工具或环境在终端打开期间被修改时使用新的配置
+        LaunchPlan plan;
+        try {
+            plan = ToolLauncher.getInstance().getLaunchPlan(tool);
+        } catch (IllegalArgumentException e) {
+            failPendingLaunch("找不到运行环境");
             showAlert("错误", "找不到运行环境，请检查工具配置");
             return;
         }
 
         // 验证环境可执行文件是否存在
-        java.io.File executableFile = new java.io.File(environment.getExecutablePath());
-        if (!executableFile.exists()) {
+        if (ExecutableResolver.getInstance().resolve(plan.getExecutablePath()).getStatus() == ExecutableResolver.Status.NOT_FOUND) {
+            failPendingLaunch("环境可执行文件不存在: " + plan.getExecutablePath());
             showAlert("环境配置错误",
-                "环境可执行文件不存在:\n" + environment.getExecutablePath() +
+                "环境可执行文件不存在:\n" + plan.getExecutablePath() +
                 "\n\n请检查环境配置中的可执行文件路径是否正确。");
             return;
         }
 
-        // 构建完整的命令
-        String fullCommand = tool.getCommand();
-        if (tool.getArguments() != null && !tool.getArguments().trim().isEmpty()) {
-            fullCommand += " " + tool.getArguments();
-        }
-
         // 在虚拟终端中执行命令
-        terminal.executeCommand(fullCommand, environment.getExecutablePath(), environment.getParameters());
+        LaunchObserver observer = launchObserver;
+        launchObserver = null;
+        terminal.executeCommand(plan, observer);
+    }
+
+    private void failPendingLaunch(String message) {
+        if (launchObserver != null) {
+            launchObserver.failed(message);
+            launchObserver = null;
+        }
     }
 
     private void showAlert(String title, String message) {
@@ -204,6 +222,7 @@ public class TerminalDialog {
     public void close() {
         if (terminal != null) {
             terminal.closeTerminal();
+            failPendingLaunch("终端已关闭");
         }
         if (stage != null) {
             stage.close();
@@ -1,5 +1,9 @@
 package com.y5neko.qrts.ui.terminal;
 
+import com.y5neko.qrts.service.ExecutableResolver;
+import com.y5neko.qrts.service.LaunchObserver;
+import com.y5neko.qrts.service.LaunchPlan;
+import com.y5neko.qrts.service.ToolLauncher;
 import javafx.scene.control.*;
 import javafx.scene.layout.*;
 import javafx.scene.input.KeyCode;
@@ -326,61 +330,57 @@ public class VirtualTerminal extends VBox {
         }
     }
 
-    public void executeCommand(String command, String environmentPath, String environmentParams) {
-        appendOutput("执行: " + command + "\n", Color.WHITE);
+    public void executeCommand(LaunchPlan plan) {
+        executeCommand(plan, null);
+    }
+
+    /**
+     * @param observer 报告本次运行的启动结果和输出，可以为null
+     */
+    public void executeCommand(LaunchPlan plan, LaunchObserver observer) {
+        appendOutput("执行: " + plan.toCommandLine() + "\n", Color.WHITE);
 
         // 验证环境路径
+        String environmentPath = plan.getExecutablePath();
         if (environmentPath != null && !environmentPath.trim().isEmpty()) {
-            File envFile = new File(environmentPath);
-            if (!envFile.exists()) {
+            ExecutableResolver.Status status = ExecutableResolver.getInstance().resolve(environmentPath).getStatus();
+            if (status == ExecutableResolver.Status.NOT_FOUND) {
                 appendOutput("错误: 环境可执行文件不存在 - " + environmentPath + "\n", Color.WHITE);
                 appendOutput("请检查环境配置\n", Color.WHITE);
                 appendOutput(prompt, Color.WHITE);
                 scrollToBottom();
+                if (observer != null) {
+                    observer.failed("环境可执行文件不存在: " + environmentPath);
+                }
                 return;
             }
-            if (!envFile.canExecute()) {
+            if (status != ExecutableResolver.Status.OK) {
                 appendOutput("错误: 环境可执行文件没有执行权限 - " + environmentPath + "\n", Color.WHITE);
                 appendOutput("请检查文件权限\n", Color.WHITE);
                 appendOutput(prompt, Color.WHITE);
                 scrollToBottom();
+                if (observer != null) {
+                    observer.failed("环境可执行文件没有执行权限: " + environmentPath);
+                }
                 return;
             }
         }
 
         try {
-            List<String> cmdList = new ArrayList<>();
-
-            // 添加环境可执行文件
-            if (environmentPath != null && !environmentPath.trim().isEmpty()) {
-                cmdList.add(environmentPath);
-
-                // 添加环境参数
-                if (environmentParams != null && !environmentParams.trim().isEmpty()) {
-                    String[] params = environmentParams.split("\\s+");
-                    for (String param : params) {
-                        if (!param.trim().isEmpty()) {
-                            cmdList.add(param.trim());
-                        }
-                    }
-                }
-            }
-
-            // 添加工具命令
-            cmdList.add(command);
-
-            ProcessBuilder pb = new ProcessBuilder(cmdList);
-            pb.directory(new File(workingDirectory));
-            pb.redirectErrorStream(true);
-
-            currentProcess = pb.start();
+            currentProcess = ToolLauncher.getInstance().startTerminalProcess(plan, new File(workingDirectory));
             isRunning = true;
+            if (observer != null) {
+                observer.started(currentProcess);
+            }
 
             // 读取输出
             executor.submit(() -> {
                 try (BufferedReader reader = new BufferedReader(new InputStreamReader(currentProcess.getInputStream()))) {
                     String line;
                     while ((line = reader.readLine()) != null && isRunning) {
+                        if (observer != null && observer.wantsOutput()) {
+                            observer.outputLine(line);
+                        }
                         final String output = line;
                         Platform.runLater(() -> {
                             appendOutput(output + "\n", Color.WHITE);
@@ -426,6 +426,9 @@ public class VirtualTerminal extends VBox {
         } catch (IOException e) {
             appendOutput("执行命令失败: " + e.getMessage() + "\n", Color.WHITE);
             appendOutput(prompt, Color.WHITE);
+            if (observer != null) {
+                observer.failed("执行命令失败: " + e.getMessage());
+            }
         }
     }
 